@@ -1,5 +1,6 @@
 import com.wordalytica.wordset.WordSetFactory;
 import com.wordalytica.wordset.core.WordSet;
+import com.wordalytica.wordset.score.Scorer;
 import java.nio.file.*;
 import java.util.*;
 
@@ -8,25 +9,16 @@ public class Wordalytica {
         System.out.println("Hello World!");
     }
 
+    // A V3 set over the index file the image builds, V2 over the word list when there is none.
     public static WordSet<?> loadWords() throws Exception {
-        List<String> lines = Files.readAllLines(Paths.get("/lib/words.all"));
-        return WordSetFactory.build(lines, 2);
-    }
-
-    private static final int[] SCORES = new int[26];
-    static {
-        String[] groups = {"aeilnorstu", "dg", "bcmp", "fhvwy", "k", "", "", "jx", "", "qz"};
-        int[] points = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
-        for (int i = 0; i < groups.length; i++) {
-            for (char c : groups[i].toCharArray()) SCORES[c - 'a'] = points[i];
+        Path index = Paths.get("/lib/words.idx");
+        if (Files.exists(index)) {
+            return WordSetFactory.load(index);
         }
+        return WordSetFactory.build(Paths.get("/lib/words.all"), 2);
     }
 
     public static int wordScore(String word) {
-        int score = 0;
-        for (char c : word.toLowerCase().toCharArray()) {
-            if (c >= 'a' && c <= 'z') score += SCORES[c - 'a'];
-        }
-        return score;
+        return Scorer.SCRABBLE.score(word);
     }
 }
@@ -0,0 +1,61 @@
+#!/bin/bash
+# Answers one query chain, e.g. 'endingWith(ing).count()', from the resident query server instead of
+# starting a JVM per call. The server is started on first use and keeps the words loaded. Requests go
+# through curl when it is installed and through bash's /dev/tcp otherwise, never through a JVM.
+# Without arguments the chain is read from wordalytica-query.txt next to this script, where the
+# wordalytica-query fraglet mode injects it.
+set -e
+PORT=${WORDALYTICA_PORT:-7878}
+URL=http://127.0.0.1:$PORT
+QUERY=$*
+if [ -z "$QUERY" ]; then
+    QUERY=$(tr -d '\r\n' < "$(dirname "$0")/wordalytica-query.txt")
+fi
+
+# Percent-encodes every byte outside the unreserved set.
+urlencode() {
+    local LC_ALL=C s=$1 out= c i
+    for ((i = 0; i < ${#s}; i++)); do
+        c=${s:i:1}
+        case $c in
+            [A-Za-z0-9._~-]) out+=$c ;;
+            *) out+=$(printf '%%%02X' "'$c") ;;
+        esac
+    done
+    printf '%s' "$out"
+}
+
+# GETs path and prints the response body, fails when the server is unreachable. HTTP/1.0 makes the
+# server close the connection after the answer, so the body runs to end of stream.
+get() {
+    if command -v curl >/dev/null 2>&1; then
+        curl -sS "$URL$1"
+        return
+    fi
+    local line
+    exec 3<>"/dev/tcp/127.0.0.1/$PORT" || return 1
+    printf 'GET %s HTTP/1.0\r\nHost: 127.0.0.1\r\n\r\n' "$1" >&3
+    while IFS= read -r line <&3 && [ "${line%$'\r'}" != "" ]; do :; done
+    cat <&3
+    exec 3<&-
+}
+
+healthy() {
+    [ "$(get /health 2>/dev/null)" = "ok" ]
+}
+
+if ! healthy; then
+    nohup java -cp /lib/wordalytica.jar com.wordalytica.wordset.server.QueryServer "$PORT" /lib/words.all \
+        >/tmp/wordalytica-server.log 2>&1 &
+    tries=0
+    until healthy; do
+        tries=$((tries + 1))
+        if [ "$tries" -gt 300 ]; then
+            cat /tmp/wordalytica-server.log >&2
+            exit 1
+        fi
+        sleep 0.1
+    done
+fi
+
+get "/query?q=$(urlencode "$QUERY")"
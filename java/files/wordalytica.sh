@@ -1,5 +1,6 @@
 #!/usr/bin/env sh
+# Runs Wordalytica.java with the source launcher, compiling it in the same JVM that runs it instead
+# of starting javac first. For a single query chain, wordalytica-query.sh asks the resident server.
 set -e
 cd /hello-world
-javac -cp /lib/wordalytica.jar:. Wordalytica.java || exit 1
-java -cp /lib/wordalytica.jar:. Wordalytica "$@"
+exec java -cp /lib/wordalytica.jar Wordalytica.java "$@"
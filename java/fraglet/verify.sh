@@ -1,6 +1,7 @@
 #!/bin/bash
 # verify.sh - Smoke tests for Java fraglet support (base + guide examples + wordalytica).
-# Contract: default run, guide examples (full-file fraglets), wordalytica mode. Args in verify_args.sh.
+# Contract: default run, guide examples (full-file fraglets), wordalytica and wordalytica-query modes.
+# Args in verify_args.sh.
 
 set -euo pipefail
 
@@ -178,4 +179,18 @@ System.out.println("tion count: " + n);
 EOF
 verify_fraglet_mode "wordalytica" "tion count:"
 
+echo "Testing wordalytica-query mode..."
+
+# Query Example 1: count
+printf 'endingWith(tion).count()' > "$tmp"
+fragletc --image "$IMAGE" --mode "wordalytica-query" "$tmp" 2>&1 | grep -Eq '^[1-9][0-9]*$'
+
+# Query Example 2: words, the default terminal call
+printf 'matching(hello)' > "$tmp"
+verify_fraglet_mode "wordalytica-query" "hello"
+
+# Query Example 3: a malformed chain is answered with a message
+printf 'startingWith(un' > "$tmp"
+verify_fraglet_mode "wordalytica-query" "Malformed query"
+
 echo "✓ All tests passed"
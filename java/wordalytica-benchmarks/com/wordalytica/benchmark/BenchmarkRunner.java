@@ -0,0 +1,44 @@
+package com.wordalytica.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * ============================== HOW TO RUN THE BENCHMARKS: ===============================
+ *
+ * Build from the java directory, with words.all next to the wordalytica sources:
+ *
+ *   mvn -B package -pl wordalytica-benchmarks -am
+ *
+ * then run the jar. Arguments are regular JMH options, for example
+ *
+ *   java -jar wordalytica-benchmarks/target/benchmarks.jar QueryBenchmark -p engine=V1,COLUMNAR
+ *
+ * Allocation rates from the GC profiler are always recorded next to the timings, and all results
+ * are written to wordalytica-jmh.json so two runs can be compared, e.g. with jmh.morethan.io.
+ *
+ * How to run JMH benchmarks is described here:
+ * http://openjdk.java.net/projects/code-tools/jmh/
+ */
+public class BenchmarkRunner {
+    public static final String RESULTS = "wordalytica-jmh.json";
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULTS);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,45 @@
+package com.wordalytica.benchmark;
+
+import com.wordalytica.wordset.core.WordSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Time to build each engine from a word list already in memory, reading the file is not measured.
+// Single shots with a fresh heap per fork, a warmed up loop would hide the cost of a cold start.
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(3)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class BuildBenchmark {
+    @Param({"V1", "V2", "V3", "PARALLEL", "COLUMNAR"})
+    public Engine engine;
+
+    @Param({"1000", "10000", "100000", Dictionary.ALL})
+    public String dictionary;
+
+    private List<String> words;
+
+    @Setup
+    public void setup() {
+        words = Dictionary.of(dictionary);
+    }
+
+    @Benchmark
+    public WordSet<?> build() {
+        return engine.build(words);
+    }
+}
@@ -0,0 +1,54 @@
+package com.wordalytica.benchmark;
+
+import com.wordalytica.wordset.storage.WordLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Dictionaries of a given size, sampled evenly from words.all so that every size keeps roughly the
+// same mix of lengths and letters. "all" is the full word list.
+public class Dictionary {
+    public static final String ALL = "all";
+
+    private static List<String> words;
+
+    private Dictionary() {
+    }
+
+    public static List<String> of(String size) {
+        List<String> all = words();
+        if (ALL.equals(size)) {
+            return all;
+        }
+        int wanted = Integer.parseInt(size);
+        if (wanted >= all.size()) {
+            return all;
+        }
+        List<String> sample = new ArrayList<>(wanted);
+        for (int i = 0; i < wanted; i++) {
+            sample.add(all.get((int) ((long) i * all.size() / wanted)));
+        }
+        return Collections.unmodifiableList(sample);
+    }
+
+    private static synchronized List<String> words() {
+        if (words == null) {
+            try (InputStream inputStream = Dictionary.class.getClassLoader().getResourceAsStream("words.all")) {
+                if (inputStream == null) {
+                    throw new IllegalStateException("words.all is not on the classpath");
+                }
+                List<String> all = new ArrayList<>();
+                WordLoader.read(inputStream, ForkJoinPool.commonPool()).forEach(all::add);
+                words = Collections.unmodifiableList(all);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,62 @@
+package com.wordalytica.benchmark;
+
+import com.wordalytica.wordset.WordSetFactory;
+import com.wordalytica.wordset.cache.ResultCache;
+import com.wordalytica.wordset.core.WordSet;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Every WordSet implementation under benchmark, named so they can be chosen with @Param.
+public enum Engine {
+    V0 {
+        @Override
+        public WordSet<?> build(List<String> words) {
+            return WordSetFactory.buildNoop();
+        }
+    },
+    V1 {
+        @Override
+        public WordSet<?> build(List<String> words) {
+            return WordSetFactory.build(words, 1);
+        }
+    },
+    V2 {
+        @Override
+        public WordSet<?> build(List<String> words) {
+            return WordSetFactory.build(words, 2);
+        }
+    },
+    V3 {
+        @Override
+        public WordSet<?> build(List<String> words) {
+            return WordSetFactory.build(words, 3);
+        }
+    },
+    PARALLEL {
+        @Override
+        public WordSet<?> build(List<String> words) {
+            return WordSetFactory.buildParallel(words.iterator(), ForkJoinPool.commonPool());
+        }
+    },
+    COLUMNAR {
+        @Override
+        public WordSet<?> build(List<String> words) {
+            return WordSetFactory.buildColumnar(words.iterator());
+        }
+    },
+    MUTABLE_V3 {
+        @Override
+        public WordSet<?> build(List<String> words) {
+            return WordSetFactory.buildMutable(words.iterator(), 3);
+        }
+    },
+    CACHED_V1 {
+        @Override
+        public WordSet<?> build(List<String> words) {
+            return WordSetFactory.cached(WordSetFactory.build(words, 1), new ResultCache(1_000_000));
+        }
+    };
+
+    public abstract WordSet<?> build(List<String> words);
+}
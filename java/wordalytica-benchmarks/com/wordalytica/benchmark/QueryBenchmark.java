@@ -0,0 +1,95 @@
+package com.wordalytica.benchmark;
+
+import com.wordalytica.wordset.core.WordSet;
+import com.wordalytica.wordset.server.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// One query at a time, so a regression shows up against the predicate type that caused it. The
+// query is applied inside the measured method, planning it is part of what a caller pays for.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@Fork(1)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class QueryBenchmark {
+    @Param({"V1", "V2", "V3", "PARALLEL", "COLUMNAR"})
+    public Engine engine;
+
+    @Param({"1000", "10000", "100000", Dictionary.ALL})
+    public String dictionary;
+
+    @Param({
+            "endingWith", "startingWith", "containing", "notContaining", "notEndingWith", "matching",
+            "withCharAt", "withoutCharAt", "longerThan", "anagramOf", "formableFrom", "matchingRegex",
+            "matchingRegexUnanchored", "matchingGlob", "withinEditDistance", "withinEditDistanceLonger",
+            "compound"})
+    public String query;
+
+    // Named rather than spelled out in @Param, whose values are split on commas on the command line.
+    private static final Map<String, String> QUERIES = new HashMap<>();
+
+    static {
+        QUERIES.put("endingWith", "endingWith(ing)");
+        QUERIES.put("startingWith", "startingWith(fish)");
+        QUERIES.put("containing", "containing(bar)");
+        QUERIES.put("notContaining", "notContaining(q)");
+        QUERIES.put("notEndingWith", "notEndingWith(s)");
+        QUERIES.put("matching", "matching(benc_mark)");
+        QUERIES.put("withCharAt", "withCharAt(z,2)");
+        QUERIES.put("withoutCharAt", "withoutCharAt(e,0)");
+        QUERIES.put("longerThan", "longerThan(12)");
+        QUERIES.put("anagramOf", "anagramOf(listen)");
+        QUERIES.put("formableFrom", "formableFrom(retains,1)");
+        QUERIES.put("matchingRegex", "matchingRegex(^c[aeiou]+t.*s$)");
+        QUERIES.put("matchingRegexUnanchored", "matchingRegex(qu[aeiou]{2})");
+        QUERIES.put("matchingGlob", "matchingGlob(un*ing)");
+        QUERIES.put("withinEditDistance", "withinEditDistance(recieve,2)");
+        QUERIES.put("withinEditDistanceLonger", "withinEditDistance(hous,1).longerThan(3)");
+        QUERIES.put("compound", "startingWith(fish).notEndingWith(ing).containing(h)");
+    }
+
+    private WordSet<?> words;
+    private Query parsed;
+
+    @Setup
+    public void setup() {
+        words = engine.build(Dictionary.of(dictionary));
+        parsed = Query.parse(QUERIES.get(query));
+    }
+
+    @Benchmark
+    public int count() {
+        return parsed.apply(words).count();
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        Iterator<String> matches = parsed.apply(words).iterator();
+        while (matches.hasNext()) {
+            blackhole.consume(matches.next());
+        }
+    }
+
+    // Callers showing a page of results, lazy engines should not pay for the rest.
+    @Benchmark
+    public void iterateFirstPage(Blackhole blackhole) {
+        parsed.apply(words).limit(20).iterator().forEachRemaining(blackhole::consume);
+    }
+}
@@ -0,0 +1,63 @@
+package com.wordalytica.benchmark;
+
+import com.wordalytica.wordset.server.Query;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Queries recorded one per line, blank lines and lines starting with '#' are skipped. A log is
+// replayed in the order it was recorded, so the hit rates of caches depend on it like in production.
+public class QueryLog {
+    public static final String DEFAULT = "queries.log";
+
+    private final List<Query> queries;
+
+    private QueryLog(List<Query> queries) {
+        this.queries = Collections.unmodifiableList(queries);
+    }
+
+    // A path on disk when one exists, a resource on the classpath otherwise.
+    public static QueryLog read(String location) {
+        Path path = Paths.get(location);
+        try (InputStream in = Files.exists(path)
+                ? Files.newInputStream(path)
+                : QueryLog.class.getClassLoader().getResourceAsStream(location)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No query log at " + location);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            List<Query> queries = new ArrayList<>();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    queries.add(Query.parse(line));
+                }
+            }
+            return new QueryLog(queries);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public List<Query> queries() {
+        return queries;
+    }
+
+    public int size() {
+        return queries.size();
+    }
+
+    public Query get(int index) {
+        return queries.get(index);
+    }
+}
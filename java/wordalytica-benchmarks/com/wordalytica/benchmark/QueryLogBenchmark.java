@@ -0,0 +1,110 @@
+package com.wordalytica.benchmark;
+
+import com.wordalytica.wordset.core.Batch;
+import com.wordalytica.wordset.core.WordSet;
+import com.wordalytica.wordset.server.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Replays a recorded query log against one shared engine, the closest thing to production traffic.
+// Every thread walks the log from its own offset, so concurrent threads ask different questions.
+// Pass -p log=<file> to replay another log, it is read from disk before the classpath.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class QueryLogBenchmark {
+    @State(Scope.Benchmark)
+    public static class Engines {
+        @Param({"V1", "V2", "V3", "PARALLEL", "COLUMNAR", "CACHED_V1"})
+        public Engine engine;
+
+        @Param({"10000", Dictionary.ALL})
+        public String dictionary;
+
+        @Param({QueryLog.DEFAULT})
+        public String log;
+
+        WordSet<?> words;
+        QueryLog queries;
+
+        @Setup
+        public void setup() {
+            words = engine.build(Dictionary.of(dictionary));
+            queries = QueryLog.read(log);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private static int threads;
+
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setup(Engines engines) {
+            synchronized (Cursor.class) {
+                next = (threads++ * 7) % engines.queries.size();
+            }
+        }
+
+        Query next(QueryLog queries) {
+            Query query = queries.get(next);
+            next = next + 1 == queries.size() ? 0 : next + 1;
+            return query;
+        }
+    }
+
+    @Benchmark
+    public int replay(Engines engines, Cursor cursor) {
+        return cursor.next(engines.queries).apply(engines.words).count();
+    }
+
+    // The whole log as one batch, compare with the log size times the time of replay().
+    @Benchmark
+    public int[] replayAsBatch(Engines engines) {
+        return counts(engines.words, engines.queries);
+    }
+
+    // Throughput should grow with the threads, the engines are immutable once built and share nothing.
+    @Benchmark
+    @Threads(2)
+    public int replayTwoThreads(Engines engines, Cursor cursor) {
+        return replay(engines, cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int replayFourThreads(Engines engines, Cursor cursor) {
+        return replay(engines, cursor);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int replayAllThreads(Engines engines, Cursor cursor) {
+        return replay(engines, cursor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends WordSet<T>> int[] counts(WordSet<T> words, QueryLog log) {
+        Batch<T> batch = words.batch();
+        for (Query query : log.queries()) {
+            batch.add(root -> (T) query.apply(root));
+        }
+        return batch.counts();
+    }
+}
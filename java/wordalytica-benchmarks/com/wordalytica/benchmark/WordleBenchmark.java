@@ -0,0 +1,43 @@
+package com.wordalytica.benchmark;
+
+import com.wordalytica.wordset.WordSetFactory;
+import com.wordalytica.wordset.solver.WordleSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Full games on 5 letter words, the opening guess is only ranked once and then remembered.
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class WordleBenchmark {
+    @Param({"false", "true"})
+    public boolean precompute;
+
+    private WordleSolver solver;
+
+    @Setup
+    public void setup() {
+        solver = WordleSolver.of(WordSetFactory.build(Dictionary.of(Dictionary.ALL), 3), 5,
+                ForkJoinPool.commonPool(), precompute);
+    }
+
+    @Benchmark
+    public int solveGames() {
+        return solver.solve("crane") + solver.solve("pizza") + solver.solve("vivid");
+    }
+}
@@ -1,16 +1,25 @@
 package com.wordalytica.wordset;
 
+import com.wordalytica.wordset.cache.CachedWordSet;
+import com.wordalytica.wordset.cache.ResultCache;
+import com.wordalytica.wordset.columnar.ColumnarWordSet;
 import com.wordalytica.wordset.core.WordSet;
+import com.wordalytica.wordset.mutable.MutableWordSet;
+import com.wordalytica.wordset.parallel.ParallelWordSet;
+import com.wordalytica.wordset.storage.WordLoader;
 import com.wordalytica.wordset.v0.WordSetNoop;
 import com.wordalytica.wordset.v1.WordSetV1;
 import com.wordalytica.wordset.v2.WordSetV2;
+import com.wordalytica.wordset.v3.WordIndexFile;
+import com.wordalytica.wordset.v3.WordSetV3;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.concurrent.ForkJoinPool;
 
 public class WordSetFactory {
     private WordSetFactory() {
@@ -21,20 +30,73 @@ public class WordSetFactory {
     }
 
     public static WordSet<?> build(Object caller, String resource, Integer version) {
-        InputStream inputStream = caller.getClass().getClassLoader().getResourceAsStream(resource);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-        Stream<String> words = reader.lines().map(s -> s.toLowerCase().trim());
-        return build(words.iterator(), version);
+        return build(readResource(caller, resource), version);
+    }
+
+    // Scans the words on the common ForkJoinPool.
+    public static WordSet<?> buildParallel(Object caller, String resource) {
+        return buildParallel(readResource(caller, resource), ForkJoinPool.commonPool());
+    }
+
+    // The pool stays the caller's to shut down, sets built on it share its workers.
+    public static WordSet<?> buildParallel(Object caller, String resource, ForkJoinPool pool) {
+        return buildParallel(readResource(caller, resource), pool);
+    }
+
+    public static WordSet<?> buildParallel(Iterator<String> words, ForkJoinPool pool) {
+        return new ParallelWordSet(words, pool);
+    }
+
+    // Scans length-bucketed word columns, for queries no index can answer.
+    public static WordSet<?> buildColumnar(Object caller, String resource) {
+        return new ColumnarWordSet(readResource(caller, resource));
+    }
+
+    public static WordSet<?> buildColumnar(Iterator<String> words) {
+        return new ColumnarWordSet(words);
+    }
+
+    // A word list file, plain or compressed, read by WordLoader.
+    public static WordSet<?> build(Path wordList, Integer version) {
+        try {
+            return build(WordLoader.load(wordList).iterator(), version);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public static WordSet<?> build(Iterator<String> words, Integer version) {
         switch(version) {
             case 0: return new WordSetNoop();
             case 1: return new WordSetV1(words);
+            case 3: return new WordSetV3(words);
             default: return new WordSetV2(words);
         }
     }
 
+    // Maps an index file written by WordIndexFile instead of rebuilding a V3 index from a word list.
+    public static WordSet<?> load(Path indexFile) {
+        try {
+            return new WordSetV3(WordIndexFile.map(indexFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Words can be added and removed later, the given engine version only rebuilds on compaction.
+    public static MutableWordSet buildMutable(Object caller, String resource, Integer version) {
+        return buildMutable(readResource(caller, resource), version);
+    }
+
+    public static MutableWordSet buildMutable(Iterator<String> words, Integer version) {
+        return new MutableWordSet(words, source -> build(source, version));
+    }
+
+    // Repeated queries against source are answered from cache, its statistics show how well that works.
+    public static WordSet<?> cached(WordSet<?> source, ResultCache cache) {
+        return new CachedWordSet(source, cache);
+    }
+
     public static WordSet<?> build(WordSet<?> source, Integer version) {
         return build(source.iterator(), version);
     }
@@ -42,4 +104,12 @@ public class WordSetFactory {
     public static WordSet<?> build(List<String> words, Integer version) {
         return build(words.iterator(), version);
     }
+
+    private static Iterator<String> readResource(Object caller, String resource) {
+        try (InputStream inputStream = caller.getClass().getClassLoader().getResourceAsStream(resource)) {
+            return WordLoader.read(inputStream, ForkJoinPool.commonPool()).iterator();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,252 @@
+package com.wordalytica.wordset.automaton;
+
+import com.wordalytica.wordset.metrics.QueryMetrics;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Deterministic automaton compiled from a regex or a glob, see RegexParser for the syntax. Symbols
+// are Latin-1 characters, every other character is the one OTHER symbol. States that can no longer
+// reach an accepting state are removed, step() then answers DEAD, so a walk over a trie of the
+// words can give up on a branch as soon as no word in it can match. Compiled automata are
+// immutable and cached by pattern.
+public final class Automaton {
+    public static final int DEAD = -1;
+    static final int OTHER = 256;
+    static final int SYMBOLS = OTHER + 1;
+    private static final int MAX_CACHED = 256;
+    private static final Map<String, Automaton> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final String syntax;
+    private final String pattern;
+    private final int[] table;
+    private final boolean[] accepting;
+    private final boolean[] universal;
+    private final int start;
+    private final boolean anchored;
+    private final int minLength;
+    private final int maxLength;
+
+    Automaton(String syntax, String pattern, boolean anchored, int[] table, boolean[] accepting) {
+        this.syntax = syntax;
+        this.pattern = pattern;
+        this.anchored = anchored;
+        this.accepting = accepting;
+        boolean[] live = live(table, accepting);
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != DEAD && !live[table[i]]) {
+                table[i] = DEAD;
+            }
+        }
+        this.table = table;
+        this.universal = universal(table, accepting);
+        this.start = live[0] ? 0 : DEAD;
+        this.minLength = start == DEAD ? Integer.MAX_VALUE : shortest();
+        this.maxLength = start == DEAD ? 0 : longest();
+    }
+
+    public static Automaton regex(String pattern) {
+        return compile("regex", pattern);
+    }
+
+    // Matches whole words only.
+    public static Automaton glob(String pattern) {
+        return compile("glob", pattern);
+    }
+
+    private static Automaton compile(String syntax, String pattern) {
+        String key = syntax + ":" + pattern;
+        synchronized (CACHE) {
+            Automaton cached = CACHE.get(key);
+            if (cached != null) {
+                QueryMetrics.cacheHit("AutomatonCache");
+                return cached;
+            }
+        }
+        QueryMetrics.cacheMiss("AutomatonCache");
+        RegexParser.Node node = syntax.equals("glob") ? RegexParser.glob(pattern) : RegexParser.regex(pattern);
+        Automaton automaton = Nfa.determinize(syntax, pattern, node);
+        synchronized (CACHE) {
+            CACHE.put(key, automaton);
+            Iterator<Automaton> eldest = CACHE.values().iterator();
+            while (CACHE.size() > MAX_CACHED) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return automaton;
+    }
+
+    public String syntax() {
+        return syntax;
+    }
+
+    public String pattern() {
+        return pattern;
+    }
+
+    // DEAD when no word can match.
+    public int start() {
+        return start;
+    }
+
+    // The state after reading c in state, DEAD once no continuation can be accepted.
+    public int step(int state, int c) {
+        return table[state * SYMBOLS + Math.min(c, OTHER)];
+    }
+
+    public boolean accepts(int state) {
+        return state != DEAD && accepting[state];
+    }
+
+    // False when a match may start anywhere, as for a regex without '^' or a glob starting with '*'.
+    // A walk over a trie of the words can then prune nothing near the root.
+    public boolean isAnchored() {
+        return anchored;
+    }
+
+    // Accepting whatever follows, e.g. after the prefix of "^un".
+    public boolean acceptsAll(int state) {
+        return state != DEAD && universal[state];
+    }
+
+    public boolean matches(CharSequence word) {
+        int state = start;
+        for (int i = 0; i < word.length() && state != DEAD; i++) {
+            state = step(state, word.charAt(i));
+        }
+        return accepts(state);
+    }
+
+    public boolean matches(byte[] bytes, int offset, int length) {
+        int state = start;
+        for (int i = offset; i < offset + length && state != DEAD; i++) {
+            state = table[state * SYMBOLS + (bytes[i] & 0xFF)];
+        }
+        return accepts(state);
+    }
+
+    public int states() {
+        return accepting.length;
+    }
+
+    // Length of the shortest accepted word, Integer.MAX_VALUE when nothing is accepted.
+    public int minLength() {
+        return minLength;
+    }
+
+    // Length of the longest accepted word, Integer.MAX_VALUE when a cycle makes it unbounded.
+    public int maxLength() {
+        return maxLength;
+    }
+
+    @Override
+    public String toString() {
+        return syntax + "(\"" + pattern + "\")";
+    }
+
+    private int shortest() {
+        int[] distance = new int[states()];
+        Arrays.fill(distance, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        distance[start] = 0;
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            if (accepting[state]) {
+                return distance[state];
+            }
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                int next = table[state * SYMBOLS + symbol];
+                if (next != DEAD && distance[next] < 0) {
+                    distance[next] = distance[state] + 1;
+                    queue.add(next);
+                }
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private int longest() {
+        int max = longest(start, new int[states()], new byte[states()]);
+        return max < 0 ? Integer.MAX_VALUE : max;
+    }
+
+    // -1 when a cycle is reachable from state, every state left on a path is live.
+    private int longest(int state, int[] longest, byte[] visited) {
+        if (visited[state] == 1) {
+            return -1;
+        }
+        if (visited[state] == 2) {
+            return longest[state];
+        }
+        visited[state] = 1;
+        int max = 0;
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            int next = table[state * SYMBOLS + symbol];
+            if (next != DEAD) {
+                int length = longest(next, longest, visited);
+                if (length < 0) {
+                    return -1;
+                }
+                max = Math.max(max, length + 1);
+            }
+        }
+        visited[state] = 2;
+        longest[state] = max;
+        return max;
+    }
+
+    private static boolean[] universal(int[] table, boolean[] accepting) {
+        boolean[] universal = new boolean[accepting.length];
+        for (int state = 0; state < accepting.length; state++) {
+            universal[state] = accepting[state];
+            for (int symbol = 0; symbol < SYMBOLS && universal[state]; symbol++) {
+                universal[state] = table[state * SYMBOLS + symbol] == state;
+            }
+        }
+        return universal;
+    }
+
+    // States from which an accepting state can be reached, found backwards from the accepting ones.
+    private static boolean[] live(int[] table, boolean[] accepting) {
+        int states = accepting.length;
+        int[] firstSource = new int[states + 1];
+        for (int target : table) {
+            if (target != DEAD) {
+                firstSource[target + 1]++;
+            }
+        }
+        for (int state = 0; state < states; state++) {
+            firstSource[state + 1] += firstSource[state];
+        }
+        int[] sources = new int[firstSource[states]];
+        int[] filled = Arrays.copyOf(firstSource, states);
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != DEAD) {
+                sources[filled[table[i]]++] = i / SYMBOLS;
+            }
+        }
+        boolean[] live = accepting.clone();
+        int[] queue = new int[states];
+        int size = 0;
+        for (int state = 0; state < states; state++) {
+            if (live[state]) {
+                queue[size++] = state;
+            }
+        }
+        while (size > 0) {
+            int state = queue[--size];
+            for (int i = firstSource[state]; i < firstSource[state + 1]; i++) {
+                if (!live[sources[i]]) {
+                    live[sources[i]] = true;
+                    queue[size++] = sources[i];
+                }
+            }
+        }
+        return live;
+    }
+}
@@ -0,0 +1,130 @@
+package com.wordalytica.wordset.automaton;
+
+// Accepts the words within maxEdits insertions, deletions and substitutions of one word. A state is
+// the row of the edit distance table for the characters read so far, entries capped at maxEdits + 1,
+// so a walk over a trie of the words extends one row per edge and gives up on a branch as soon as
+// every entry exceeds maxEdits. With transpositions, swapping two adjacent characters is a single
+// edit too (the optimal string alignment distance), a step then also needs the row and character
+// before the current one. Rows are passed in and filled by the caller, a walk reuses one per depth.
+public final class LevenshteinAutomaton {
+    private final String word;
+    private final char[] chars;
+    private final int maxEdits;
+    private final boolean transpositions;
+
+    public LevenshteinAutomaton(String word, int maxEdits, boolean transpositions) {
+        if (maxEdits < 0) {
+            throw new IllegalArgumentException("maxEdits must not be negative: " + maxEdits);
+        }
+        this.word = word;
+        this.chars = word.toCharArray();
+        // Keeps the capped entries and maxLength() from overflowing.
+        this.maxEdits = Math.min(maxEdits, Integer.MAX_VALUE / 4);
+        this.transpositions = transpositions;
+    }
+
+    public String word() {
+        return word;
+    }
+
+    public int maxEdits() {
+        return maxEdits;
+    }
+
+    public boolean transpositions() {
+        return transpositions;
+    }
+
+    // Rows have one entry more than the word has characters.
+    public int rowLength() {
+        return chars.length + 1;
+    }
+
+    public int[] start() {
+        int[] row = new int[rowLength()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = Math.min(i, maxEdits + 1);
+        }
+        return row;
+    }
+
+    // Fills into with the row after reading c in row. before and previous are the row and character
+    // preceding row, before is null at the start of a word. Answers the smallest entry of the new
+    // row, no continuation can be accepted once it is greater than maxEdits.
+    public int step(int[] row, int[] before, int previous, int c, int[] into) {
+        int cap = maxEdits + 1;
+        into[0] = Math.min(row[0] + 1, cap);
+        int min = into[0];
+        for (int i = 1; i < into.length; i++) {
+            int distance = Math.min(row[i - 1] + (chars[i - 1] == c ? 0 : 1), Math.min(row[i], into[i - 1]) + 1);
+            if (transpositions && before != null && i > 1 && chars[i - 1] == previous && chars[i - 2] == c) {
+                distance = Math.min(distance, before[i - 2] + 1);
+            }
+            into[i] = Math.min(distance, cap);
+            min = Math.min(min, into[i]);
+        }
+        return min;
+    }
+
+    public boolean accepts(int[] row) {
+        return row[chars.length] <= maxEdits;
+    }
+
+    public int minLength() {
+        return Math.max(0, chars.length - maxEdits);
+    }
+
+    public int maxLength() {
+        return chars.length + maxEdits;
+    }
+
+    public boolean matches(CharSequence candidate) {
+        if (candidate.length() < minLength() || candidate.length() > maxLength()) {
+            return false;
+        }
+        int[] before = null;
+        int[] row = start();
+        int[] next = new int[row.length];
+        int previous = 0;
+        for (int i = 0; i < candidate.length(); i++) {
+            char c = candidate.charAt(i);
+            if (step(row, before, previous, c, next) > maxEdits) {
+                return false;
+            }
+            int[] free = before == null ? new int[row.length] : before;
+            before = row;
+            row = next;
+            next = free;
+            previous = c;
+        }
+        return accepts(row);
+    }
+
+    // Words are stored as Latin-1 bytes.
+    public boolean matches(byte[] bytes, int offset, int length) {
+        if (length < minLength() || length > maxLength()) {
+            return false;
+        }
+        int[] before = null;
+        int[] row = start();
+        int[] next = new int[row.length];
+        int previous = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int c = bytes[i] & 0xFF;
+            if (step(row, before, previous, c, next) > maxEdits) {
+                return false;
+            }
+            int[] free = before == null ? new int[row.length] : before;
+            before = row;
+            row = next;
+            next = free;
+            previous = c;
+        }
+        return accepts(row);
+    }
+
+    @Override
+    public String toString() {
+        return "levenshtein(\"" + word + "\", " + maxEdits + (transpositions ? ", transpositions" : "") + ")";
+    }
+}
@@ -0,0 +1,184 @@
+package com.wordalytica.wordset.automaton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Thompson construction of a syntax tree into an NFA, then the subset construction into the
+// transition table of an Automaton. States are ints, every state either consumes one symbol of
+// its set or has epsilon edges, and every fragment has a single start and end state.
+final class Nfa {
+    // Beyond this many NFA or DFA states a pattern is rejected rather than compiled.
+    static final int MAX_STATES = 1 << 14;
+
+    private final List<BitSet> chars = new ArrayList<>();
+    private final List<int[]> epsilons = new ArrayList<>();
+    private final List<Integer> targets = new ArrayList<>();
+
+    private Nfa() {
+    }
+
+    static Automaton determinize(String syntax, String pattern, RegexParser.Node node) {
+        Nfa nfa = new Nfa();
+        int[] fragment = nfa.compile(node);
+        return nfa.subsets(syntax, pattern, node, fragment[0], fragment[1]);
+    }
+
+    private int state(BitSet symbols, int target) {
+        if (chars.size() == MAX_STATES) {
+            throw new IllegalArgumentException("Pattern needs more than " + MAX_STATES + " states");
+        }
+        chars.add(symbols);
+        epsilons.add(new int[0]);
+        targets.add(target);
+        return chars.size() - 1;
+    }
+
+    private void epsilon(int from, int to) {
+        int[] edges = epsilons.get(from);
+        int[] grown = Arrays.copyOf(edges, edges.length + 1);
+        grown[edges.length] = to;
+        epsilons.set(from, grown);
+    }
+
+    // {start, end}
+    private int[] compile(RegexParser.Node node) {
+        if (node instanceof RegexParser.Node.Chars) {
+            int end = state(null, -1);
+            int start = state(((RegexParser.Node.Chars) node).chars, end);
+            return new int[]{start, end};
+        }
+        if (node instanceof RegexParser.Node.Concat) {
+            int start = state(null, -1);
+            int end = start;
+            for (RegexParser.Node part : ((RegexParser.Node.Concat) node).parts) {
+                int[] fragment = compile(part);
+                epsilon(end, fragment[0]);
+                end = fragment[1];
+            }
+            return new int[]{start, end};
+        }
+        if (node instanceof RegexParser.Node.Alt) {
+            int start = state(null, -1);
+            int end = state(null, -1);
+            for (RegexParser.Node alternative : ((RegexParser.Node.Alt) node).alternatives) {
+                int[] fragment = compile(alternative);
+                epsilon(start, fragment[0]);
+                epsilon(fragment[1], end);
+            }
+            return new int[]{start, end};
+        }
+        RegexParser.Node.Repeat repeat = (RegexParser.Node.Repeat) node;
+        int start = state(null, -1);
+        int end = start;
+        for (int i = 0; i < repeat.min; i++) {
+            int[] fragment = compile(repeat.node);
+            epsilon(end, fragment[0]);
+            end = fragment[1];
+        }
+        if (repeat.max < 0) {
+            int[] fragment = compile(repeat.node);
+            int loop = state(null, -1);
+            epsilon(end, loop);
+            epsilon(loop, fragment[0]);
+            epsilon(fragment[1], loop);
+            end = loop;
+        } else {
+            int last = state(null, -1);
+            for (int i = repeat.min; i < repeat.max; i++) {
+                int[] fragment = compile(repeat.node);
+                epsilon(end, fragment[0]);
+                epsilon(end, last);
+                end = fragment[1];
+            }
+            epsilon(end, last);
+            end = last;
+        }
+        return new int[]{start, end};
+    }
+
+    // DFA state 0 is the closure of the NFA start state.
+    private Automaton subsets(String syntax, String pattern, RegexParser.Node node, int start, int accept) {
+        Map<BitSet, Integer> ids = new HashMap<>();
+        List<BitSet> sets = new ArrayList<>();
+        BitSet initial = closure(single(start));
+        ids.put(initial, 0);
+        sets.add(initial);
+        int[] table = new int[16 * Automaton.SYMBOLS];
+        for (int id = 0; id < sets.size(); id++) {
+            BitSet set = sets.get(id);
+            if ((id + 1) * Automaton.SYMBOLS > table.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+            }
+            BitSet[] moves = new BitSet[Automaton.SYMBOLS];
+            for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+                BitSet symbols = chars.get(s);
+                if (symbols == null) {
+                    continue;
+                }
+                for (int symbol = symbols.nextSetBit(0); symbol >= 0; symbol = symbols.nextSetBit(symbol + 1)) {
+                    if (moves[symbol] == null) {
+                        moves[symbol] = new BitSet();
+                    }
+                    moves[symbol].set(targets.get(s));
+                }
+            }
+            // Most symbols move to the same few sets, each is closed and looked up once.
+            Map<BitSet, Integer> closed = new HashMap<>();
+            for (int symbol = 0; symbol < Automaton.SYMBOLS; symbol++) {
+                BitSet moved = moves[symbol];
+                if (moved == null) {
+                    table[id * Automaton.SYMBOLS + symbol] = -1;
+                    continue;
+                }
+                Integer target = closed.get(moved);
+                if (target == null) {
+                    BitSet next = closure(moved);
+                    target = ids.get(next);
+                    if (target == null) {
+                        if (sets.size() == MAX_STATES) {
+                            throw new IllegalArgumentException("Pattern needs more than " + MAX_STATES + " states");
+                        }
+                        target = sets.size();
+                        ids.put(next, target);
+                        sets.add(next);
+                    }
+                    closed.put(moved, target);
+                }
+                table[id * Automaton.SYMBOLS + symbol] = target;
+            }
+        }
+        boolean[] accepting = new boolean[sets.size()];
+        for (int id = 0; id < accepting.length; id++) {
+            accepting[id] = sets.get(id).get(accept);
+        }
+        return new Automaton(syntax, pattern, RegexParser.isAnchored(node), Arrays.copyOf(table, sets.size() * Automaton.SYMBOLS), accepting);
+    }
+
+    private BitSet closure(BitSet states) {
+        BitSet closure = (BitSet) states.clone();
+        int[] stack = new int[chars.size()];
+        int size = 0;
+        for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+            stack[size++] = s;
+        }
+        while (size > 0) {
+            for (int next : epsilons.get(stack[--size])) {
+                if (!closure.get(next)) {
+                    closure.set(next);
+                    stack[size++] = next;
+                }
+            }
+        }
+        return closure;
+    }
+
+    private static BitSet single(int state) {
+        BitSet set = new BitSet();
+        set.set(state);
+        return set;
+    }
+}
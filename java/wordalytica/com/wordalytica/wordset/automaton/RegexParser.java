@@ -0,0 +1,310 @@
+package com.wordalytica.wordset.automaton;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+// Recursive descent parser for the regular expressions and globs an Automaton accepts. Supported are
+// literals, '.', classes such as [a-z] and [^aeiou], \d \w \s and escaped punctuation, groups (also
+// (?:...)), '|', and the quantifiers * + ? {m} {m,} {m,n}. '^' and '$' are only recognized at the
+// very start and end of a regex; without them the match may start or end anywhere in the word.
+// Globs always match the whole word: '*' is any run, '?' any character, [abc] and [!abc] classes.
+final class RegexParser {
+    static final int SYMBOLS = Automaton.SYMBOLS;
+    private static final int MAX_REPEAT = 1000;
+
+    private final String pattern;
+    private int position;
+
+    private RegexParser(String pattern) {
+        this.pattern = pattern;
+    }
+
+    static Node regex(String pattern) {
+        int from = pattern.startsWith("^") ? 1 : 0;
+        int to = pattern.length();
+        if (to > from && pattern.charAt(to - 1) == '$' && !escaped(pattern, to - 1)) {
+            to--;
+        }
+        RegexParser parser = new RegexParser(pattern.substring(0, to));
+        parser.position = from;
+        Node node = parser.alternation();
+        if (parser.position < to) {
+            throw parser.error("Unexpected '" + pattern.charAt(parser.position) + "'");
+        }
+        List<Node> parts = new ArrayList<>();
+        if (from == 0) {
+            parts.add(anyRun());
+        }
+        parts.add(node);
+        if (to == pattern.length()) {
+            parts.add(anyRun());
+        }
+        return new Node.Concat(parts);
+    }
+
+    static Node glob(String pattern) {
+        RegexParser parser = new RegexParser(pattern);
+        List<Node> parts = new ArrayList<>();
+        while (parser.position < pattern.length()) {
+            char c = pattern.charAt(parser.position++);
+            if (c == '*') {
+                parts.add(anyRun());
+            } else if (c == '?') {
+                parts.add(new Node.Chars(any()));
+            } else if (c == '[') {
+                parts.add(new Node.Chars(parser.charClass('!')));
+            } else {
+                parts.add(new Node.Chars(single(c)));
+            }
+        }
+        return new Node.Concat(parts);
+    }
+
+    // False when the pattern begins with a run of any characters.
+    static boolean isAnchored(Node node) {
+        while (node instanceof Node.Concat && !((Node.Concat) node).parts.isEmpty()) {
+            node = ((Node.Concat) node).parts.get(0);
+        }
+        if (!(node instanceof Node.Repeat) || ((Node.Repeat) node).max >= 0) {
+            return true;
+        }
+        Node repeated = ((Node.Repeat) node).node;
+        return !(repeated instanceof Node.Chars) || ((Node.Chars) repeated).chars.cardinality() < SYMBOLS;
+    }
+
+    private Node alternation() {
+        List<Node> alternatives = new ArrayList<>();
+        alternatives.add(concatenation());
+        while (peek('|')) {
+            position++;
+            alternatives.add(concatenation());
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : new Node.Alt(alternatives);
+    }
+
+    private Node concatenation() {
+        List<Node> parts = new ArrayList<>();
+        while (position < pattern.length() && !peek('|') && !peek(')')) {
+            parts.add(repetition());
+        }
+        return new Node.Concat(parts);
+    }
+
+    private Node repetition() {
+        Node node = atom();
+        while (position < pattern.length()) {
+            char c = pattern.charAt(position);
+            if (c == '*') {
+                node = new Node.Repeat(node, 0, -1);
+            } else if (c == '+') {
+                node = new Node.Repeat(node, 1, -1);
+            } else if (c == '?') {
+                node = new Node.Repeat(node, 0, 1);
+            } else if (c == '{') {
+                node = bounds(node);
+                continue;
+            } else {
+                break;
+            }
+            position++;
+        }
+        return node;
+    }
+
+    // {m}, {m,} or {m,n}, position is at the '{'.
+    private Node bounds(Node node) {
+        int close = pattern.indexOf('}', position);
+        if (close < 0) {
+            throw error("Unclosed '{'");
+        }
+        String[] bounds = pattern.substring(position + 1, close).split(",", -1);
+        try {
+            int min = Integer.parseInt(bounds[0].trim());
+            int max = bounds.length == 1 ? min : bounds[1].trim().isEmpty() ? -1 : Integer.parseInt(bounds[1].trim());
+            if (bounds.length > 2 || min < 0 || min > MAX_REPEAT || max > MAX_REPEAT || (max >= 0 && max < min)) {
+                throw error("Invalid repetition");
+            }
+            position = close + 1;
+            return new Node.Repeat(node, min, max);
+        } catch (NumberFormatException e) {
+            throw error("Invalid repetition");
+        }
+    }
+
+    private Node atom() {
+        char c = pattern.charAt(position++);
+        switch (c) {
+            case '(':
+                if (pattern.startsWith("?:", position)) {
+                    position += 2;
+                }
+                Node group = alternation();
+                if (!peek(')')) {
+                    throw error("Unclosed '('");
+                }
+                position++;
+                return group;
+            case '[':
+                return new Node.Chars(charClass('^'));
+            case '.':
+                return new Node.Chars(any());
+            case '\\':
+                return new Node.Chars(escape());
+            case '*':
+            case '+':
+            case '?':
+            case '{':
+                throw error("Nothing to repeat");
+            case '^':
+            case '$':
+                throw error("Anchors are only supported at the ends of the pattern");
+            default:
+                return new Node.Chars(single(c));
+        }
+    }
+
+    // Position is just past the '['.
+    private BitSet charClass(char negation) {
+        BitSet chars = new BitSet(SYMBOLS);
+        boolean negated = peek(negation);
+        if (negated) {
+            position++;
+        }
+        boolean first = true;
+        while (true) {
+            if (position >= pattern.length()) {
+                throw error("Unclosed '['");
+            }
+            char c = pattern.charAt(position++);
+            if (c == ']' && !first) {
+                break;
+            }
+            first = false;
+            if (c == '\\') {
+                chars.or(escape());
+                continue;
+            }
+            if (peek('-') && position + 1 < pattern.length() && pattern.charAt(position + 1) != ']') {
+                char to = pattern.charAt(position + 1);
+                if (to < c) {
+                    throw error("Invalid range " + c + "-" + to);
+                }
+                position += 2;
+                chars.set(symbol(c), symbol(to) + 1);
+            } else {
+                chars.set(symbol(c));
+            }
+        }
+        if (negated) {
+            chars.flip(0, SYMBOLS);
+        }
+        return chars;
+    }
+
+    // Position is just past the '\'.
+    private BitSet escape() {
+        if (position >= pattern.length()) {
+            throw error("Trailing '\\'");
+        }
+        char c = pattern.charAt(position++);
+        BitSet chars = new BitSet(SYMBOLS);
+        switch (c) {
+            case 'd':
+                chars.set('0', '9' + 1);
+                return chars;
+            case 'w':
+                chars.set('a', 'z' + 1);
+                chars.set('A', 'Z' + 1);
+                chars.set('0', '9' + 1);
+                chars.set('_');
+                return chars;
+            case 's':
+                chars.set(' ');
+                chars.set('\t', '\r' + 1);
+                return chars;
+            default:
+                if (Character.isLetterOrDigit(c)) {
+                    throw error("Unsupported escape \\" + c);
+                }
+                return single(c);
+        }
+    }
+
+    private boolean peek(char c) {
+        return position < pattern.length() && pattern.charAt(position) == c;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at " + position + " in pattern: " + pattern);
+    }
+
+    private static boolean escaped(String pattern, int index) {
+        int backslashes = 0;
+        while (index - backslashes > 0 && pattern.charAt(index - backslashes - 1) == '\\') {
+            backslashes++;
+        }
+        return backslashes % 2 == 1;
+    }
+
+    private static Node anyRun() {
+        return new Node.Repeat(new Node.Chars(any()), 0, -1);
+    }
+
+    private static BitSet any() {
+        BitSet chars = new BitSet(SYMBOLS);
+        chars.set(0, SYMBOLS);
+        return chars;
+    }
+
+    private static BitSet single(char c) {
+        BitSet chars = new BitSet(SYMBOLS);
+        chars.set(symbol(c));
+        return chars;
+    }
+
+    // Characters beyond Latin-1 share one symbol, words are stored as Latin-1 and never contain them.
+    private static int symbol(char c) {
+        return Math.min(c, Automaton.OTHER);
+    }
+
+    // Syntax tree, compiled once into an NFA by Nfa.
+    abstract static class Node {
+        static final class Chars extends Node {
+            final BitSet chars;
+
+            Chars(BitSet chars) {
+                this.chars = chars;
+            }
+        }
+
+        static final class Concat extends Node {
+            final List<Node> parts;
+
+            Concat(List<Node> parts) {
+                this.parts = parts;
+            }
+        }
+
+        static final class Alt extends Node {
+            final List<Node> alternatives;
+
+            Alt(List<Node> alternatives) {
+                this.alternatives = alternatives;
+            }
+        }
+
+        // max is -1 when unbounded.
+        static final class Repeat extends Node {
+            final Node node;
+            final int min;
+            final int max;
+
+            Repeat(Node node, int min, int max) {
+                this.node = node;
+                this.min = min;
+                this.max = max;
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.wordalytica.wordset.cache;
+
+import com.wordalytica.wordset.core.WordSet;
+import com.wordalytica.wordset.predicate.PredicateBuilder;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+// Puts a ResultCache in front of any WordSet. Fluent calls are only recorded, the wrapped set is
+// asked for a view on a cache miss, so an index based set does no work at all for a cached query.
+// Keys come from Predicate.cacheKey(), the same conditions chained in any order share one entry,
+// prefixed with a scope unique to each set built by the public constructor and shared by its views,
+// so a ResultCache in front of several sets keeps their results apart.
+// Limited queries are answered from a cached result when there is one but never fill the cache,
+// as the wrapped set stops scanning early for them.
+public class CachedWordSet implements WordSet<CachedWordSet> {
+    private static final String COUNT = "count:";
+    private static final String WORDS = "words:";
+    private static final AtomicLong SCOPES = new AtomicLong();
+
+    private final WordSet<?> root;
+    private final ResultCache cache;
+    private final String scope;
+    private final CachedWordSet parent;
+    private final UnaryOperator<WordSet<?>> step;
+    private final PredicateBuilder predicateBuilder;
+    private final int limit;
+
+    public CachedWordSet(WordSet<?> root, ResultCache cache) {
+        this(root, cache, SCOPES.incrementAndGet() + ":", null, null, new PredicateBuilder(), Integer.MAX_VALUE);
+    }
+
+    private CachedWordSet(WordSet<?> root, ResultCache cache, String scope, CachedWordSet parent,
+                          UnaryOperator<WordSet<?>> step, PredicateBuilder predicateBuilder, int limit) {
+        this.root = root;
+        this.cache = cache;
+        this.scope = scope;
+        this.parent = parent;
+        this.step = step;
+        this.predicateBuilder = predicateBuilder;
+        this.limit = limit;
+    }
+
+    public ResultCache cache() {
+        return cache;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        String key = key(WORDS);
+        if (key == null) {
+            return view().iterator();
+        }
+        String[] words = (String[]) cache.getIfPresent(key);
+        if (words == null) {
+            if (limit < Integer.MAX_VALUE) {
+                return view().iterator();
+            }
+            words = toArray(view().iterator());
+            cache.put(key, words, words.length + 1);
+        }
+        return Arrays.asList(words).subList(0, Math.min(words.length, limit)).iterator();
+    }
+
+    @Override
+    public int count() {
+        String key = key(COUNT);
+        if (key == null) {
+            return view().count();
+        }
+        Integer count = (Integer) cache.getIfPresent(key);
+        if (count == null) {
+            if (limit < Integer.MAX_VALUE) {
+                return view().count();
+            }
+            count = view().count();
+            cache.put(key, count, 1);
+        }
+        return Math.min(count, limit);
+    }
+
+    @Override
+    public String explain() {
+        return view().explain();
+    }
+
+    @Override
+    public CachedWordSet limit(int maxWords) {
+        if (maxWords < 0) {
+            throw new IllegalArgumentException("maxWords must not be negative: " + maxWords);
+        }
+        return new CachedWordSet(root, cache, scope, parent, step, predicateBuilder, Math.min(limit, maxWords));
+    }
+
+    @Override
+    public CachedWordSet longerThan(int minLength) {
+        return then(s -> s.longerThan(minLength), predicateBuilder.longerThan(minLength));
+    }
+
+    @Override
+    public CachedWordSet containing(String value) {
+        return then(s -> s.containing(value), predicateBuilder.containing(value));
+    }
+
+    @Override
+    public CachedWordSet endingWith(String value) {
+        return then(s -> s.endingWith(value), predicateBuilder.endingWith(value));
+    }
+
+    @Override
+    public CachedWordSet startingWith(String value) {
+        return then(s -> s.startingWith(value), predicateBuilder.startingWith(value));
+    }
+
+    @Override
+    public CachedWordSet notEndingWith(String value) {
+        return then(s -> s.notEndingWith(value), predicateBuilder.notEndingWith(value));
+    }
+
+    @Override
+    public CachedWordSet notContaining(String value) {
+        return then(s -> s.notContaining(value), predicateBuilder.notContaining(value));
+    }
+
+    @Override
+    public CachedWordSet matching(String placeHolded) {
+        return then(s -> s.matching(placeHolded), predicateBuilder.matching(placeHolded));
+    }
+
+    @Override
+    public CachedWordSet withCharAt(char c, int position) {
+        return then(s -> s.withCharAt(c, position), predicateBuilder.withCharAt(c, position));
+    }
+
+    @Override
+    public CachedWordSet withoutCharAt(char c, int position) {
+        return then(s -> s.withoutCharAt(c, position), predicateBuilder.withoutCharAt(c, position));
+    }
+
+    @Override
+    public CachedWordSet anagramOf(String value) {
+        return then(s -> s.anagramOf(value), predicateBuilder.anagramOf(value));
+    }
+
+    @Override
+    public CachedWordSet formableFrom(String tiles, int blanks) {
+        return then(s -> s.formableFrom(tiles, blanks), predicateBuilder.formableFrom(tiles, blanks));
+    }
+
+    @Override
+    public CachedWordSet matchingRegex(String regex) {
+        return then(s -> s.matchingRegex(regex), predicateBuilder.matchingRegex(regex));
+    }
+
+    @Override
+    public CachedWordSet matchingGlob(String glob) {
+        return then(s -> s.matchingGlob(glob), predicateBuilder.matchingGlob(glob));
+    }
+
+    @Override
+    public CachedWordSet withinEditDistance(String word, int maxEdits, boolean transpositions) {
+        return then(s -> s.withinEditDistance(word, maxEdits, transpositions),
+                predicateBuilder.withinEditDistance(word, maxEdits, transpositions));
+    }
+
+    private CachedWordSet then(UnaryOperator<WordSet<?>> step, PredicateBuilder predicateBuilder) {
+        return new CachedWordSet(root, cache, scope, this, step, predicateBuilder, limit);
+    }
+
+    // null when the query cannot be cached.
+    private String key(String kind) {
+        String key = predicateBuilder.build().cacheKey();
+        return key == null ? null : kind + scope + key;
+    }
+
+    // Replays the recorded calls on the wrapped set.
+    private WordSet<?> view() {
+        WordSet<?> view = unlimitedView();
+        return limit < Integer.MAX_VALUE ? view.limit(limit) : view;
+    }
+
+    private WordSet<?> unlimitedView() {
+        return parent == null ? root : step.apply(parent.unlimitedView());
+    }
+
+    private static String[] toArray(Iterator<String> words) {
+        String[] array = new String[16];
+        int size = 0;
+        while (words.hasNext()) {
+            if (size == array.length) {
+                array = Arrays.copyOf(array, size * 2);
+            }
+            array[size++] = words.next();
+        }
+        return Arrays.copyOf(array, size);
+    }
+}
@@ -0,0 +1,118 @@
+package com.wordalytica.wordset.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded map from keys to weighed values with clock (second chance) eviction. Reads never lock: a
+// hit only sets the entry's referenced flag, and only when it is not already set, so hot keys read
+// from many threads share a cache line that is not written to. Puts add to the map first and then,
+// while the total weight is over budget, one thread at a time moves the clock hand over the entries,
+// clearing referenced flags and evicting the first entry found without one. The weight may briefly
+// exceed the budget while another thread is evicting.
+public final class ClockCache<V> {
+    private final long maxWeight;
+    private final ConcurrentHashMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong weight = new AtomicLong();
+    private final LongAdder evictions = new LongAdder();
+    private final Object handLock = new Object();
+    private Iterator<Map.Entry<String, Entry<V>>> hand;
+
+    public ClockCache(long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    // null when the key is not cached.
+    public V get(String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry.value;
+    }
+
+    // Values heavier than the whole budget are not cached at all.
+    public void put(String key, V value, long weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must not be negative: " + weight);
+        }
+        if (weight > maxWeight) {
+            return;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, weight));
+        this.weight.addAndGet(previous == null ? weight : weight - previous.weight);
+        if (this.weight.get() > maxWeight) {
+            evict();
+        }
+    }
+
+    public void clear() {
+        entries.forEach((key, entry) -> {
+            if (entries.remove(key, entry)) {
+                weight.addAndGet(-entry.weight);
+            }
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long weight() {
+        return weight.get();
+    }
+
+    public long maxWeight() {
+        return maxWeight;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    // The hand is a weakly consistent iterator over the map, restarted at its end. A turn clears
+    // the referenced flags it passes, so the next one finds a victim; the loop only gives up when the
+    // map stays empty, i.e. the weight left over belongs to puts that have not finished yet.
+    private void evict() {
+        synchronized (handLock) {
+            int emptyTurns = 0;
+            while (weight.get() > maxWeight && emptyTurns < 3) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = entries.entrySet().iterator();
+                    if (!hand.hasNext()) {
+                        emptyTurns++;
+                        continue;
+                    }
+                }
+                Map.Entry<String, Entry<V>> next = hand.next();
+                Entry<V> entry = next.getValue();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else if (entries.remove(next.getKey(), entry)) {
+                    weight.addAndGet(-entry.weight);
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+        // Racy on purpose, a lost update only changes which entry is evicted next.
+        private volatile boolean referenced;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
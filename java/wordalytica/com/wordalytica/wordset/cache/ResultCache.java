@@ -0,0 +1,67 @@
+package com.wordalytica.wordset.cache;
+
+import com.wordalytica.wordset.metrics.QueryMetrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded cache of query results that CachedWordSets can share. Entries are weighed by the number
+// of words they hold, once the total exceeds maxWeight entries not read since the clock hand last
+// passed them are evicted (see ClockCache). Lookups take no lock, so hits on many threads never wait
+// on each other or on a slow scan; two threads missing the same key may both compute it. Keys are
+// scoped per CachedWordSet, one cache can front several sets without mixing up their results.
+public class ResultCache {
+    private final ClockCache<Object> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ResultCache(long maxWeight) {
+        this.entries = new ClockCache<>(maxWeight);
+    }
+
+    // null when the key is not cached, counts as a miss.
+    public Object getIfPresent(String key) {
+        Object value = entries.get(key);
+        if (value == null) {
+            misses.increment();
+            QueryMetrics.cacheMiss("ResultCache");
+            return null;
+        }
+        hits.increment();
+        QueryMetrics.cacheHit("ResultCache");
+        return value;
+    }
+
+    public void put(String key, Object value, int weight) {
+        entries.put(key, value, weight);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return entries.evictions();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long weight() {
+        return entries.weight();
+    }
+
+    @Override
+    public String toString() {
+        return "ResultCache{entries=" + size() + ", weight=" + weight() + "/" + entries.maxWeight()
+                + ", hits=" + hits() + ", misses=" + misses() + ", evictions=" + evictions() + "}";
+    }
+}
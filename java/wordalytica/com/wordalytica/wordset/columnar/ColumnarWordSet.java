@@ -0,0 +1,164 @@
+package com.wordalytica.wordset.columnar;
+
+import com.wordalytica.wordset.metrics.Probe;
+import com.wordalytica.wordset.metrics.QueryMetrics;
+import com.wordalytica.wordset.predicate.BatchPredicate;
+import com.wordalytica.wordset.predicate.ColumnFilter;
+import com.wordalytica.wordset.predicate.CountCache;
+import com.wordalytica.wordset.predicate.PlannedPredicate;
+import com.wordalytica.wordset.predicate.PredicateBuilder;
+import com.wordalytica.wordset.predicate.WordStatistics;
+import com.wordalytica.wordset.v1.AbstractWordSet;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Full scan over words bucketed by length and stored column-wise: one column per character
+// position plus a column with a 26 bit "letters present" mask per word. A query is split by
+// ColumnFilter, buckets of the wrong length are skipped whole, letter presence is one AND and
+// compare per word and every constrained position is one table lookup in its own column, each a
+// tight loop over a primitive array that narrows a selection vector of word indexes. Only the
+// words that survive are handed to the residual predicate. count() narrows a per-thread vector and
+// allocates nothing, the iterator copies out each bucket's matches.
+public class ColumnarWordSet extends AbstractWordSet<ColumnarWordSet> {
+    private final LengthBucket[] buckets;
+    private final WordStatistics statistics;
+    private final CountCache counts;
+    // Split from the plan on first use and kept like it. Volatile, as the filter's fields are not final.
+    private volatile ColumnFilter filter;
+
+    public ColumnarWordSet(Iterator<String> words) {
+        LinkedHashSet<String> unique = new LinkedHashSet<>();
+        words.forEachRemaining(unique::add);
+        ArrayList<ArrayList<String>> byLength = new ArrayList<>();
+        for (String word : unique) {
+            while (byLength.size() <= word.length()) {
+                byLength.add(new ArrayList<>());
+            }
+            byLength.get(word.length()).add(word);
+        }
+        this.buckets = new LengthBucket[byLength.size()];
+        for (int length = 0; length < buckets.length; length++) {
+            buckets[length] = new LengthBucket(length, byLength.get(length).toArray(new String[0]));
+        }
+        this.statistics = WordStatistics.of(unique.iterator());
+        this.counts = CountCache.of(unique.iterator());
+        long bytes = 0;
+        for (LengthBucket bucket : buckets) {
+            bytes += bucket.sizeInBytes();
+        }
+        QueryMetrics.loaded("Columnar", unique.size(), bytes);
+    }
+
+    private ColumnarWordSet(ColumnarWordSet source, PredicateBuilder predicateBuilder, int limit) {
+        super(predicateBuilder, limit);
+        this.buckets = source.buckets;
+        this.statistics = source.statistics;
+        this.counts = source.counts;
+    }
+
+    @Override
+    protected ColumnarWordSet derive(PredicateBuilder predicateBuilder, int limit) {
+        return new ColumnarWordSet(this, predicateBuilder, limit);
+    }
+
+    @Override
+    protected WordStatistics statistics() {
+        return this.statistics;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new MatchIterator(filter(), this.limit());
+    }
+
+    @Override
+    public int count() {
+        PlannedPredicate predicate = this.predicate();
+        int limit = this.limit();
+        Probe probe = QueryMetrics.start("Columnar", "count", predicate, statistics.size());
+        int cached = counts.count(predicate);
+        if (cached != CountCache.UNKNOWN) {
+            probe.end(0, Math.min(cached, limit));
+            return Math.min(cached, limit);
+        }
+        ColumnFilter filter = filter();
+        int count = 0;
+        int scanned = 0;
+        for (int length = 0; length < buckets.length && count < limit; length++) {
+            count += buckets[length].count(filter);
+            scanned += buckets[length].size();
+        }
+        probe.end(scanned, Math.min(count, limit));
+        return Math.min(count, limit);
+    }
+
+    @Override
+    protected int knownCount() {
+        int cached = counts.count(this.predicate());
+        return cached == CountCache.UNKNOWN ? cached : Math.min(cached, this.limit());
+    }
+
+    // Bucket by bucket, every query runs its column filter over the bucket while its columns are
+    // still in cache, so the words are read once for the whole batch.
+    @Override
+    protected BatchPredicate.Scan scan(BatchPredicate batch, List<ColumnarWordSet> queries) {
+        ColumnFilter[] filters = new ColumnFilter[queries.size()];
+        for (int q = 0; q < filters.length; q++) {
+            filters[q] = queries.get(q).filter();
+        }
+        BatchPredicate.Scan scan = batch.scan();
+        for (int length = 0; length < buckets.length && !scan.isDone(); length++) {
+            for (int q = 0; q < filters.length; q++) {
+                if (!scan.isDone(q)) {
+                    buckets[length].accept(filters[q], q, scan);
+                }
+            }
+        }
+        return scan;
+    }
+
+    private ColumnFilter filter() {
+        ColumnFilter filter = this.filter;
+        if (filter == null) {
+            filter = ColumnFilter.of(this.predicate(), statistics);
+            this.filter = filter;
+        }
+        return filter;
+    }
+
+    // One bucket's matches at a time, buckets that are never reached are never scanned.
+    private class MatchIterator implements Iterator<String> {
+        private final ColumnFilter filter;
+        private int remaining;
+        private int length = -1;
+        private int[] selected = new int[0];
+        private int next;
+
+        MatchIterator(ColumnFilter filter, int limit) {
+            this.filter = filter;
+            this.remaining = limit;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (remaining > 0 && next == selected.length && length + 1 < buckets.length) {
+                selected = buckets[++length].select(filter);
+                next = 0;
+            }
+            return remaining > 0 && next < selected.length;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            return buckets[length].words.word(selected[next++]);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.wordalytica.wordset.columnar;
+
+import com.wordalytica.wordset.metrics.Footprint;
+import com.wordalytica.wordset.predicate.BatchPredicate;
+import com.wordalytica.wordset.predicate.ColumnFilter;
+import com.wordalytica.wordset.predicate.PlannedPredicate;
+import com.wordalytica.wordset.storage.PackedWords;
+
+import java.util.Arrays;
+
+// All words of one length: columns[p][i] is the character at position p of word i as a Latin-1
+// byte, letters[i] the set of letters word i contains. The packed words are only read by the
+// residual predicate and to create the matching Strings.
+class LengthBucket {
+    // The selection vector count() narrows, one per thread and grown to the largest bucket it met,
+    // so counting allocates nothing once a thread has counted before.
+    private static final ThreadLocal<int[][]> SELECTION = ThreadLocal.withInitial(() -> new int[][]{new int[0]});
+
+    private final int length;
+    final PackedWords words;
+    private final byte[][] columns;
+    private final int[] letters;
+
+    LengthBucket(int length, String[] words) {
+        this.length = length;
+        this.words = new PackedWords(words);
+        this.columns = new byte[length][words.length];
+        this.letters = new int[words.length];
+        byte[] bytes = this.words.bytes();
+        for (int i = 0; i < words.length; i++) {
+            int offset = this.words.offset(i);
+            for (int p = 0; p < length; p++) {
+                columns[p][i] = bytes[offset + p];
+            }
+            letters[i] = ColumnFilter.letters(bytes, offset, length);
+        }
+    }
+
+    int size() {
+        return letters.length;
+    }
+
+    long sizeInBytes() {
+        long bytes = words.sizeInBytes() + Footprint.ints(letters.length);
+        for (byte[] column : columns) {
+            bytes += Footprint.bytes(column.length);
+        }
+        return bytes;
+    }
+
+    // Indexes of the words matching filter, ascending.
+    int[] select(ColumnFilter filter) {
+        if (skips(filter)) {
+            return new int[0];
+        }
+        int[] selected = new int[letters.length];
+        return Arrays.copyOf(selected, select(filter, selected));
+    }
+
+    int count(ColumnFilter filter) {
+        if (skips(filter)) {
+            return 0;
+        }
+        int[][] selection = SELECTION.get();
+        if (selection[0].length < letters.length) {
+            selection[0] = new int[letters.length];
+        }
+        return select(filter, selection[0]);
+    }
+
+    private boolean skips(ColumnFilter filter) {
+        return letters.length == 0 || filter.isNever() || length < filter.minLength() || length > filter.maxLength();
+    }
+
+    // Narrows selected down to the matching words and answers how many there are.
+    private int select(ColumnFilter filter, int[] selected) {
+        int size = selectLetters(filter.requiredLetters(), filter.forbiddenLetters(), selected);
+        for (int p = 0; p < Math.min(length, filter.positions()) && size > 0; p++) {
+            size = selectPosition(filter, p, selected, size);
+        }
+        PlannedPredicate residual = filter.residual();
+        if (residual != null) {
+            byte[] bytes = words.bytes();
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int word = selected[i];
+                if (residual.matches(bytes, words.offset(word), length)) {
+                    selected[kept++] = word;
+                }
+            }
+            size = kept;
+        }
+        return size;
+    }
+
+    void accept(ColumnFilter filter, int query, BatchPredicate.Scan scan) {
+        byte[] bytes = words.bytes();
+        int[] selected = select(filter);
+        for (int i = 0; i < selected.length && !scan.isDone(query); i++) {
+            scan.accept(query, bytes, words.offset(selected[i]), length);
+        }
+    }
+
+    // Branch free, the selection only advances for words that pass.
+    private int selectLetters(int required, int forbidden, int[] selected) {
+        int size = 0;
+        for (int i = 0; i < letters.length; i++) {
+            int present = letters[i];
+            selected[size] = i;
+            size += ((present & required) == required && (present & forbidden) == 0) ? 1 : 0;
+        }
+        return size;
+    }
+
+    private int selectPosition(ColumnFilter filter, int position, int[] selected, int size) {
+        boolean[] allowed = filter.allowed(position);
+        if (allowed == null) {
+            return size;
+        }
+        byte[] column = columns[position];
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int word = selected[i];
+            selected[kept] = word;
+            kept += allowed[column[word] & 0xFF] ? 1 : 0;
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,54 @@
+package com.wordalytica.wordset.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+// Related queries against one set, answered together. Each query is a chain of fluent calls
+// applied to the set the batch was created from. This default answers them one after the other;
+// sets that scan their words override counts() and words() to answer all of them in one pass.
+// A batch is filled by one thread, the sets it queries can still be shared.
+public class Batch<T extends WordSet<T>> {
+    private final T root;
+    private final List<T> queries = new ArrayList<>();
+
+    public Batch(T root) {
+        this.root = root;
+    }
+
+    // Returns the index of the query in counts() and words().
+    public int add(UnaryOperator<T> query) {
+        queries.add(query.apply(root));
+        return queries.size() - 1;
+    }
+
+    public int size() {
+        return queries.size();
+    }
+
+    protected List<T> queries() {
+        return Collections.unmodifiableList(queries);
+    }
+
+    public int[] counts() {
+        int[] counts = new int[queries.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = queries.get(i).count();
+        }
+        return counts;
+    }
+
+    public List<List<String>> words() {
+        List<List<String>> words = new ArrayList<>(queries.size());
+        for (T query : queries) {
+            List<String> matches = new ArrayList<>();
+            for (Iterator<String> iterator = query.iterator(); iterator.hasNext(); ) {
+                matches.add(iterator.next());
+            }
+            words.add(matches);
+        }
+        return words;
+    }
+}
@@ -1,12 +1,51 @@
 package com.wordalytica.wordset.core;
 
+import com.wordalytica.wordset.score.Scorer;
+import com.wordalytica.wordset.score.TopK;
+
 import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public interface WordSet<T extends WordSet<T>> {
+// Fluent methods never modify the receiver, they return a new view over the same read-only words.
+// A loaded set can therefore be shared between threads and used as the root of any number of queries.
+public interface WordSet<T extends WordSet<T>> extends Iterable<String> {
+    // Matches are found while iterating, abandoning the iterator early skips the rest of the scan.
+    @Override
     Iterator<String> iterator();
 
+    @Override
+    default Spliterator<String> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    default Stream<String> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
     int count();
 
+    // The k best scoring words, best first, equal scores in alphabetical order. Words are scored as
+    // they are matched and only the current top k are kept.
+    default List<String> topK(int k, Scorer scorer) {
+        return TopK.of(iterator(), k, scorer);
+    }
+
+    // Queries added to the batch start from this set, see Batch.
+    @SuppressWarnings("unchecked")
+    default Batch<T> batch() {
+        return new Batch<>((T) this);
+    }
+
+    // At most maxWords words are counted or returned, the smallest of several limits applies.
+    T limit(int maxWords);
+
+    // The evaluation plan count() and iterator() would use, one step per line.
+    String explain();
+
     T longerThan(int minLength);
 
     T containing(String value);
@@ -24,4 +63,25 @@ public interface WordSet<T extends WordSet<T>> {
     T withCharAt(char c, int position);
 
     T withoutCharAt(char c, int position);
+
+    // Same letters as value, each as often, in any order.
+    T anagramOf(String value);
+
+    // Spelled from the tiles, each used at most once, with up to blanks extra tiles that match any letter.
+    T formableFrom(String tiles, int blanks);
+
+    // Contains a match of the regex, which is compiled once to a DFA. Anchor it with ^ and $ to
+    // match whole words. Supports classes, groups, alternation and the * + ? {m,n} quantifiers.
+    T matchingRegex(String regex);
+
+    // The whole word matches the glob: * is any run of characters, ? any one, [abc] and [!abc] classes.
+    T matchingGlob(String glob);
+
+    // Within maxEdits insertions, deletions and substitutions of word, e.g. for spelling suggestions.
+    default T withinEditDistance(String word, int maxEdits) {
+        return withinEditDistance(word, maxEdits, false);
+    }
+
+    // With transpositions, swapping two adjacent letters ("huose" for "house") counts as one edit.
+    T withinEditDistance(String word, int maxEdits, boolean transpositions);
 }
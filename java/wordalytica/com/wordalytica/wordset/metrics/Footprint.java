@@ -0,0 +1,34 @@
+package com.wordalytica.wordset.metrics;
+
+import java.util.Collection;
+
+// Estimated heap sizes for QueryMetrics.loaded(), assuming compressed oops and Latin-1 Strings.
+public final class Footprint {
+    private Footprint() {
+    }
+
+    public static long string(String value) {
+        return align(24) + align(16 + value.length());
+    }
+
+    // The Strings, one node per entry and a table at the default load factor.
+    public static long hashSet(Collection<String> words) {
+        long bytes = 48 + align(16 + 4L * Integer.highestOneBit(Math.max(1, words.size() * 4 / 3) * 2));
+        for (String word : words) {
+            bytes += 32 + string(word);
+        }
+        return bytes;
+    }
+
+    public static long ints(int length) {
+        return align(16 + 4L * length);
+    }
+
+    public static long bytes(int length) {
+        return align(16 + (long) length);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,86 @@
+package com.wordalytica.wordset.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// What QueryMetrics knows about one operation of one engine, e.g. count() on V2. Scanned against
+// available words shows how much narrowing helped, matched against available how selective the
+// queries were. Counts answered from a CountCache match without scanning. Allocation is that of
+// the calling thread, work done on a pool is not included.
+public class OperationStats {
+    private final String name;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder available = new LongAdder();
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder matched = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos, long available, long scanned, long matched, long allocated) {
+        latencies.record(nanos);
+        queries.increment();
+        this.available.add(available);
+        this.scanned.add(scanned);
+        this.matched.add(matched);
+        if (allocated > 0) {
+            this.allocated.add(allocated);
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public LatencyHistogram latencies() {
+        return latencies;
+    }
+
+    public long queries() {
+        return queries.sum();
+    }
+
+    public long scanned() {
+        return scanned.sum();
+    }
+
+    public long matched() {
+        return matched.sum();
+    }
+
+    // Fraction of the words in the set that had to be looked at.
+    public double scannedRatio() {
+        long available = this.available.sum();
+        return available == 0 ? 0 : (double) scanned.sum() / available;
+    }
+
+    // Fraction of the words in the set that matched.
+    public double matchedRatio() {
+        long available = this.available.sum();
+        return available == 0 ? 0 : (double) matched.sum() / available;
+    }
+
+    public long allocatedPerQuery() {
+        long queries = this.queries.sum();
+        return queries == 0 ? 0 : allocated.sum() / queries;
+    }
+
+    void reset() {
+        latencies.reset();
+        queries.reset();
+        available.reset();
+        scanned.reset();
+        matched.reset();
+        allocated.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-20s %8d queries  p50 %8.1f us  p99 %8.1f us  max %8.1f us"
+                        + "  scanned %6.2f%%  matched %6.2f%%  %8d B/query",
+                name, queries(), latencies.percentile(50) / 1e3, latencies.percentile(99) / 1e3,
+                latencies.max() / 1e3, scannedRatio() * 100, matchedRatio() * 100, allocatedPerQuery());
+    }
+}
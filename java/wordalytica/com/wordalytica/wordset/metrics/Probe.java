@@ -0,0 +1,54 @@
+package com.wordalytica.wordset.metrics;
+
+// Measures one query from QueryMetrics.start() to end(). While neither QueryMetrics nor the
+// Flight Recorder event is enabled, start() hands out NONE and a query pays for one check.
+public final class Probe {
+    public static final Probe NONE = new Probe(null, null, null, null, 0, false);
+
+    private final OperationStats stats;
+    private final String engine;
+    private final String operation;
+    private final Object query;
+    private final long available;
+    private final long start;
+    private final long allocatedBefore;
+    private final QueryEvent event;
+
+    // Stats are null when only the event is recorded.
+    Probe(OperationStats stats, String engine, String operation, Object query, long available, boolean emit) {
+        this.stats = stats;
+        this.engine = engine;
+        this.operation = operation;
+        this.query = query;
+        this.available = available;
+        this.allocatedBefore = stats != null ? QueryMetrics.allocatedBytes() : 0;
+        this.event = emit ? new QueryEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        this.start = System.nanoTime();
+    }
+
+    public void end(long scanned, long matched) {
+        if (this == NONE) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        if (stats != null) {
+            long allocated = QueryMetrics.allocatedBytes();
+            stats.record(nanos, available, scanned, matched, allocated < 0 ? 0 : allocated - allocatedBefore);
+        }
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.engine = engine;
+                event.operation = operation;
+                event.query = String.valueOf(query);
+                event.available = available;
+                event.scanned = scanned;
+                event.matched = matched;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.wordalytica.wordset.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// One query as a Flight Recorder event, recorded whenever a recording enables it, independent of
+// QueryMetrics. Enable it with e.g. -XX:StartFlightRecording:settings=profile or in JMC.
+@Name("com.wordalytica.Query")
+@Label("Word Set Query")
+@Category("Wordalytica")
+@Description("A count or iteration over a word set")
+@StackTrace(false)
+class QueryEvent extends Event {
+    @Label("Engine")
+    String engine;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Query")
+    String query;
+
+    @Label("Words Available")
+    long available;
+
+    @Label("Words Scanned")
+    long scanned;
+
+    @Label("Words Matched")
+    long matched;
+}
@@ -0,0 +1,143 @@
+package com.wordalytica.wordset.metrics;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process wide instrumentation of the engines: latency histograms and scan counters per operation,
+// hit rates per cache and the estimated memory footprint of every engine built. Off unless enabled
+// here or with -Dwordalytica.metrics=true, queries then only check a flag. Every query is also a
+// com.wordalytica.Query Flight Recorder event, emitted whenever a recording has it enabled.
+// Flight Recorder and the thread MXBean take a few hundred milliseconds to initialize, so neither is
+// touched before it is needed: the event type once Flight Recorder runs, the MXBean once enabled.
+public final class QueryMetrics {
+    private static volatile EventType queryEvent;
+    private static final Map<String, OperationStats> OPERATIONS = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder[]> CACHES = new ConcurrentHashMap<>();
+    private static final Map<String, String> FOOTPRINTS = new ConcurrentHashMap<>();
+
+    private static volatile boolean enabled = Boolean.getBoolean("wordalytica.metrics");
+
+    private QueryMetrics() {
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // Available is the number of words in the set queried, query is only turned into a String
+    // for the Flight Recorder.
+    public static Probe start(String engine, String operation, Object query, long available) {
+        boolean record = enabled;
+        boolean emit = emitting();
+        if (!record && !emit) {
+            return Probe.NONE;
+        }
+        OperationStats stats = record
+                ? OPERATIONS.computeIfAbsent(engine + "." + operation, OperationStats::new) : null;
+        return new Probe(stats, engine, operation, query, available, emit);
+    }
+
+    public static void cacheHit(String cache) {
+        if (enabled) {
+            cache(cache)[0].increment();
+        }
+    }
+
+    public static void cacheMiss(String cache) {
+        if (enabled) {
+            cache(cache)[1].increment();
+        }
+    }
+
+    // Recorded whether or not metrics are enabled, engines are built rarely.
+    public static void loaded(String engine, int words, long bytes) {
+        FOOTPRINTS.put(engine, String.format("%-20s %8d words  %10.1f KiB  %6.1f B/word",
+                engine, words, bytes / 1024.0, words == 0 ? 0 : (double) bytes / words));
+    }
+
+    public static Map<String, OperationStats> operations() {
+        return new TreeMap<>(OPERATIONS);
+    }
+
+    public static double cacheHitRate(String cache) {
+        LongAdder[] counters = CACHES.get(cache);
+        if (counters == null) {
+            return 0;
+        }
+        long hits = counters[0].sum();
+        long total = hits + counters[1].sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public static String report() {
+        StringBuilder report = new StringBuilder("Operations\n");
+        for (OperationStats stats : operations().values()) {
+            report.append("  ").append(stats).append('\n');
+        }
+        report.append("Caches\n");
+        for (Map.Entry<String, LongAdder[]> cache : new TreeMap<>(CACHES).entrySet()) {
+            report.append(String.format("  %-20s %8d hits  %8d misses  %6.2f%% hit rate%n", cache.getKey(),
+                    cache.getValue()[0].sum(), cache.getValue()[1].sum(), cacheHitRate(cache.getKey()) * 100));
+        }
+        report.append("Footprints\n");
+        for (String footprint : new TreeMap<>(FOOTPRINTS).values()) {
+            report.append("  ").append(footprint).append('\n');
+        }
+        return report.toString();
+    }
+
+    public static void reset() {
+        OPERATIONS.values().forEach(OperationStats::reset);
+        CACHES.clear();
+    }
+
+    // Bytes allocated by the current thread so far, -1 where the JVM cannot tell.
+    static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = Threads.THREADS;
+        return threads == null ? -1 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static boolean emitting() {
+        if (!FlightRecorder.isInitialized()) {
+            return false;
+        }
+        EventType type = queryEvent;
+        if (type == null) {
+            type = EventType.getEventType(QueryEvent.class);
+            queryEvent = type;
+        }
+        return type.isEnabled();
+    }
+
+    private static LongAdder[] cache(String cache) {
+        return CACHES.computeIfAbsent(cache, name -> new LongAdder[]{new LongAdder(), new LongAdder()});
+    }
+
+    // Initialized on first use by the class loader.
+    private static final class Threads {
+        static final com.sun.management.ThreadMXBean THREADS = threads();
+
+        private static com.sun.management.ThreadMXBean threads() {
+            java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+                return (com.sun.management.ThreadMXBean) threads;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.wordalytica.wordset.mutable;
+
+import com.wordalytica.wordset.core.WordSet;
+import com.wordalytica.wordset.predicate.Predicate;
+import com.wordalytica.wordset.predicate.PredicateBuilder;
+import com.wordalytica.wordset.storage.PackedWords;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+// A WordSet that words can be added to and removed from without rebuilding it. Every update
+// publishes a new immutable Segments version: the set built by the engine is shared and only the
+// words added and removed since are copied. Once those deltas hold compactThreshold words the
+// engine rebuilds the base from the current words, on the updating thread.
+// Readers never block. Fluent calls on the root pin the current version, so a query sees one
+// consistent dictionary however many updates are applied while it runs. Like CachedWordSet the
+// calls are recorded and replayed on the base set, the deltas are filtered with the same predicate.
+// Engines that pack words as Latin-1 (Columnar, Parallel) cannot hold every word; built with
+// packedOnly, the set rejects such words when they are added instead of failing on compaction.
+public class MutableWordSet implements WordSet<MutableWordSet> {
+    public static final int DEFAULT_COMPACT_THRESHOLD = 4096;
+
+    private final AtomicReference<Segments> current;
+    private final Function<Iterator<String>, WordSet<?>> engine;
+    private final int compactThreshold;
+    private final boolean packedOnly;
+    private final Segments pinned;
+    private final MutableWordSet parent;
+    private final UnaryOperator<WordSet<?>> step;
+    private final PredicateBuilder predicateBuilder;
+    private final int limit;
+
+    public MutableWordSet(Iterator<String> words, Function<Iterator<String>, WordSet<?>> engine) {
+        this(words, engine, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    public MutableWordSet(Iterator<String> words, Function<Iterator<String>, WordSet<?>> engine, int compactThreshold) {
+        this(words, engine, compactThreshold, false);
+    }
+
+    public MutableWordSet(Iterator<String> words, Function<Iterator<String>, WordSet<?>> engine, int compactThreshold,
+                          boolean packedOnly) {
+        if (compactThreshold < 1) {
+            throw new IllegalArgumentException("compactThreshold must be positive: " + compactThreshold);
+        }
+        this.current = new AtomicReference<>(Segments.build(0, words, engine));
+        this.engine = engine;
+        this.compactThreshold = compactThreshold;
+        this.packedOnly = packedOnly;
+        this.pinned = null;
+        this.parent = null;
+        this.step = null;
+        this.predicateBuilder = new PredicateBuilder();
+        this.limit = Integer.MAX_VALUE;
+    }
+
+    private MutableWordSet(MutableWordSet source, Segments pinned, MutableWordSet parent,
+                           UnaryOperator<WordSet<?>> step, PredicateBuilder predicateBuilder, int limit) {
+        this.current = source.current;
+        this.engine = source.engine;
+        this.compactThreshold = source.compactThreshold;
+        this.packedOnly = source.packedOnly;
+        this.pinned = pinned;
+        this.parent = parent;
+        this.step = step;
+        this.predicateBuilder = predicateBuilder;
+        this.limit = limit;
+    }
+
+    // Incremented by every update that changes the words.
+    public long version() {
+        return segments().version;
+    }
+
+    // The current words, unaffected by later updates.
+    public MutableWordSet snapshot() {
+        return pinned != null ? this : new MutableWordSet(this, current.get(), null, null, predicateBuilder, limit);
+    }
+
+    public boolean contains(String word) {
+        return segments().contains(word);
+    }
+
+    public boolean add(String word) {
+        return update(Collections.singleton(word), Collections.emptySet());
+    }
+
+    public boolean remove(String word) {
+        return update(Collections.emptySet(), Collections.singleton(word));
+    }
+
+    // One new version for the whole batch, readers never see half of it.
+    public boolean addAll(Iterable<String> words) {
+        return update(words, Collections.emptySet());
+    }
+
+    public boolean removeAll(Iterable<String> words) {
+        return update(Collections.emptySet(), words);
+    }
+
+    // Adds are applied before removes, a word in both ends up removed. A word the engine cannot
+    // hold rejects the whole batch.
+    public boolean update(Iterable<String> adds, Iterable<String> removes) {
+        if (pinned != null) {
+            throw new UnsupportedOperationException("Views and snapshots are read-only, update the root set");
+        }
+        if (packedOnly) {
+            for (String word : adds) {
+                if (!PackedWords.packable(word)) {
+                    throw new IllegalArgumentException("Word is not packable as Latin-1: " + word);
+                }
+            }
+        }
+        synchronized (current) {
+            Segments updated = current.get().update(adds, removes);
+            if (updated == null) {
+                return false;
+            }
+            current.set(updated.changes() >= compactThreshold ? updated.compact(engine) : updated);
+            return true;
+        }
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        Segments segments = segments();
+        return segments.iterator(view(segments).iterator(), predicateBuilder.build(), limit);
+    }
+
+    @Override
+    public int count() {
+        Segments segments = segments();
+        Predicate predicate = predicateBuilder.build();
+        long count = view(segments).count();
+        for (String word : segments.removed) {
+            count -= predicate.matches(word) ? 1 : 0;
+        }
+        for (String word : segments.added) {
+            count += predicate.matches(word) ? 1 : 0;
+        }
+        return (int) Math.min(count, limit);
+    }
+
+    @Override
+    public String explain() {
+        Segments segments = segments();
+        return view(segments).explain() + " (version " + segments.version + ", " + segments.added.size()
+                + " added and " + segments.removed.size() + " removed words filtered separately)";
+    }
+
+    @Override
+    public MutableWordSet limit(int maxWords) {
+        if (maxWords < 0) {
+            throw new IllegalArgumentException("maxWords must not be negative: " + maxWords);
+        }
+        return new MutableWordSet(this, segments(), parent, step, predicateBuilder, Math.min(limit, maxWords));
+    }
+
+    @Override
+    public MutableWordSet longerThan(int minLength) {
+        return then(s -> s.longerThan(minLength), predicateBuilder.longerThan(minLength));
+    }
+
+    @Override
+    public MutableWordSet containing(String value) {
+        return then(s -> s.containing(value), predicateBuilder.containing(value));
+    }
+
+    @Override
+    public MutableWordSet endingWith(String value) {
+        return then(s -> s.endingWith(value), predicateBuilder.endingWith(value));
+    }
+
+    @Override
+    public MutableWordSet startingWith(String value) {
+        return then(s -> s.startingWith(value), predicateBuilder.startingWith(value));
+    }
+
+    @Override
+    public MutableWordSet notEndingWith(String value) {
+        return then(s -> s.notEndingWith(value), predicateBuilder.notEndingWith(value));
+    }
+
+    @Override
+    public MutableWordSet notContaining(String value) {
+        return then(s -> s.notContaining(value), predicateBuilder.notContaining(value));
+    }
+
+    @Override
+    public MutableWordSet matching(String placeHolded) {
+        return then(s -> s.matching(placeHolded), predicateBuilder.matching(placeHolded));
+    }
+
+    @Override
+    public MutableWordSet withCharAt(char c, int position) {
+        return then(s -> s.withCharAt(c, position), predicateBuilder.withCharAt(c, position));
+    }
+
+    @Override
+    public MutableWordSet withoutCharAt(char c, int position) {
+        return then(s -> s.withoutCharAt(c, position), predicateBuilder.withoutCharAt(c, position));
+    }
+
+    @Override
+    public MutableWordSet anagramOf(String value) {
+        return then(s -> s.anagramOf(value), predicateBuilder.anagramOf(value));
+    }
+
+    @Override
+    public MutableWordSet formableFrom(String tiles, int blanks) {
+        return then(s -> s.formableFrom(tiles, blanks), predicateBuilder.formableFrom(tiles, blanks));
+    }
+
+    @Override
+    public MutableWordSet matchingRegex(String regex) {
+        return then(s -> s.matchingRegex(regex), predicateBuilder.matchingRegex(regex));
+    }
+
+    @Override
+    public MutableWordSet matchingGlob(String glob) {
+        return then(s -> s.matchingGlob(glob), predicateBuilder.matchingGlob(glob));
+    }
+
+    @Override
+    public MutableWordSet withinEditDistance(String word, int maxEdits, boolean transpositions) {
+        return then(s -> s.withinEditDistance(word, maxEdits, transpositions),
+                predicateBuilder.withinEditDistance(word, maxEdits, transpositions));
+    }
+
+    private MutableWordSet then(UnaryOperator<WordSet<?>> step, PredicateBuilder predicateBuilder) {
+        return new MutableWordSet(this, segments(), this, step, predicateBuilder, limit);
+    }
+
+    private Segments segments() {
+        return pinned != null ? pinned : current.get();
+    }
+
+    // Replays the recorded calls on the base set, the limit only applies once the deltas are merged.
+    private WordSet<?> view(Segments segments) {
+        return parent == null ? segments.base : step.apply(parent.view(segments));
+    }
+}
@@ -0,0 +1,122 @@
+package com.wordalytica.wordset.mutable;
+
+import com.wordalytica.wordset.core.WordSet;
+import com.wordalytica.wordset.predicate.Predicate;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+// One immutable version of a MutableWordSet: a base set built by some engine plus the words added
+// and removed since. Updates copy the two small deltas and share the base, so applying one is cheap
+// and readers holding an older version are never affected. Removed words are always base words and
+// added words never are, which keeps counts a simple sum.
+class Segments {
+    final long version;
+    final WordSet<?> base;
+    final Set<String> baseWords;
+    final Set<String> added;
+    final Set<String> removed;
+
+    private Segments(long version, WordSet<?> base, Set<String> baseWords, Set<String> added, Set<String> removed) {
+        this.version = version;
+        this.base = base;
+        this.baseWords = baseWords;
+        this.added = added;
+        this.removed = removed;
+    }
+
+    static Segments build(long version, Iterator<String> words, Function<Iterator<String>, WordSet<?>> engine) {
+        LinkedHashSet<String> unique = new LinkedHashSet<>();
+        words.forEachRemaining(unique::add);
+        return new Segments(version, engine.apply(unique.iterator()), Collections.unmodifiableSet(unique),
+                Collections.emptySet(), Collections.emptySet());
+    }
+
+    boolean contains(String word) {
+        return added.contains(word) || (baseWords.contains(word) && !removed.contains(word));
+    }
+
+    int size() {
+        return baseWords.size() - removed.size() + added.size();
+    }
+
+    int changes() {
+        return added.size() + removed.size();
+    }
+
+    // Null when nothing changes, callers then keep publishing this version.
+    Segments update(Iterable<String> adds, Iterable<String> removes) {
+        Set<String> added = new HashSet<>(this.added);
+        Set<String> removed = new HashSet<>(this.removed);
+        boolean changed = false;
+        for (String word : adds) {
+            changed |= baseWords.contains(word) ? removed.remove(word) : added.add(word);
+        }
+        for (String word : removes) {
+            changed |= baseWords.contains(word) ? removed.add(word) : added.remove(word);
+        }
+        if (!changed) {
+            return null;
+        }
+        return new Segments(version + 1, base, baseWords, Collections.unmodifiableSet(added),
+                Collections.unmodifiableSet(removed));
+    }
+
+    // Folds the deltas into a freshly built base, the version does not change as the words do not.
+    Segments compact(Function<Iterator<String>, WordSet<?>> engine) {
+        return build(version, words(), engine);
+    }
+
+    Iterator<String> words() {
+        return iterator(baseWords.iterator(), null, Integer.MAX_VALUE);
+    }
+
+    // Base matches minus removed words, then the added words matching predicate, at most limit.
+    Iterator<String> iterator(Iterator<String> baseMatches, Predicate predicate, int limit) {
+        Iterator<String> addedWords = added.iterator();
+        return new Iterator<String>() {
+            private int remaining = limit;
+            private String next = advance();
+
+            private String advance() {
+                if (remaining == 0) {
+                    return null;
+                }
+                while (baseMatches.hasNext()) {
+                    String word = baseMatches.next();
+                    if (!removed.contains(word)) {
+                        return word;
+                    }
+                }
+                while (addedWords.hasNext()) {
+                    String word = addedWords.next();
+                    if (predicate == null || predicate.matches(word)) {
+                        return word;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                String word = next;
+                remaining--;
+                next = advance();
+                return word;
+            }
+        };
+    }
+}
@@ -0,0 +1,292 @@
+package com.wordalytica.wordset.parallel;
+
+import com.wordalytica.wordset.metrics.Footprint;
+import com.wordalytica.wordset.metrics.Probe;
+import com.wordalytica.wordset.metrics.QueryMetrics;
+import com.wordalytica.wordset.predicate.BatchPredicate;
+import com.wordalytica.wordset.predicate.CountCache;
+import com.wordalytica.wordset.predicate.PlannedPredicate;
+import com.wordalytica.wordset.predicate.Predicate;
+import com.wordalytica.wordset.predicate.PredicateBuilder;
+import com.wordalytica.wordset.predicate.WordStatistics;
+import com.wordalytica.wordset.score.Scorer;
+import com.wordalytica.wordset.score.TopK;
+import com.wordalytica.wordset.storage.PackedWords;
+import com.wordalytica.wordset.v1.AbstractWordSet;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+// Full scan like V1, but the words are packed into one byte[] that is split into fixed size chunks
+// and count(), topK() and batches evaluate the chunks on a ForkJoinPool. Predicates match the packed
+// bytes, so counting allocates nothing per word and listing only creates Strings for the matches.
+// A count() still allocates its fork-join tasks, one per split of the chunks, about 1 KB for 120k
+// words.
+// The iterator scans lazily on the calling thread, holding no more than the next match and stopping
+// where the caller does, a parallel stream splits the same scan along chunk boundaries instead.
+public class ParallelWordSet extends AbstractWordSet<ParallelWordSet> {
+    static final int CHUNK_SIZE = 4096;
+
+    private final PackedWords words;
+    private final ForkJoinPool pool;
+    private final WordStatistics statistics;
+    private final CountCache counts;
+    private final int[] scrabbleScores;
+
+    public ParallelWordSet(Iterator<String> words, ForkJoinPool pool) {
+        LinkedHashSet<String> unique = new LinkedHashSet<>();
+        words.forEachRemaining(unique::add);
+        this.words = new PackedWords(unique.toArray(new String[0]));
+        this.pool = pool;
+        this.statistics = WordStatistics.of(unique.iterator());
+        this.counts = CountCache.of(unique.iterator());
+        this.scrabbleScores = new int[this.words.size()];
+        for (int id = 0; id < scrabbleScores.length; id++) {
+            scrabbleScores[id] = Scorer.SCRABBLE.score(this.words.bytes(), this.words.offset(id), this.words.length(id));
+        }
+        QueryMetrics.loaded("Parallel", this.words.size(), this.words.sizeInBytes() + Footprint.ints(scrabbleScores.length));
+    }
+
+    private ParallelWordSet(ParallelWordSet source, PredicateBuilder predicateBuilder, int limit) {
+        super(predicateBuilder, limit);
+        this.words = source.words;
+        this.pool = source.pool;
+        this.statistics = source.statistics;
+        this.counts = source.counts;
+        this.scrabbleScores = source.scrabbleScores;
+    }
+
+    @Override
+    protected ParallelWordSet derive(PredicateBuilder predicateBuilder, int limit) {
+        return new ParallelWordSet(this, predicateBuilder, limit);
+    }
+
+    @Override
+    protected WordStatistics statistics() {
+        return this.statistics;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    @Override
+    public int count() {
+        PlannedPredicate predicate = this.predicate();
+        Probe probe = QueryMetrics.start("Parallel", "count", predicate, words.size());
+        int cached = counts.count(predicate);
+        int scanned = 0;
+        if (cached == CountCache.UNKNOWN) {
+            cached = pool.invoke(new CountTask(predicate, 0, chunks()));
+            scanned = words.size();
+        }
+        probe.end(scanned, Math.min(cached, this.limit()));
+        return Math.min(cached, this.limit());
+    }
+
+    @Override
+    protected int knownCount() {
+        int cached = counts.count(this.predicate());
+        return cached == CountCache.UNKNOWN ? cached : Math.min(cached, this.limit());
+    }
+
+    // Every chunk is scanned for the whole batch at once, the scans are merged in chunk order.
+    @Override
+    protected BatchPredicate.Scan scan(BatchPredicate batch, List<ParallelWordSet> queries) {
+        return pool.invoke(new BatchTask(batch, 0, chunks()));
+    }
+
+    // Every chunk keeps its own top k, they are merged as the tasks join.
+    @Override
+    public List<String> topK(int k, Scorer scorer) {
+        if (this.limit() < Integer.MAX_VALUE) {
+            return TopK.of(iterator(), k, scorer);
+        }
+        TopK top = pool.invoke(new TopTask(this.predicate(), k, scorer, 0, chunks()));
+        List<String> best = new ArrayList<>();
+        for (int id : top.ids()) {
+            best.add(words.word(id));
+        }
+        return best;
+    }
+
+    // Splits along chunk boundaries, so a parallel stream divides the words like the ForkJoin tasks do.
+    @Override
+    public Spliterator<String> spliterator() {
+        return new MatchSpliterator(this.predicate(), 0, words.size(), this.limit());
+    }
+
+    private int chunks() {
+        return (words.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    private class MatchSpliterator implements Spliterator<String> {
+        private final Predicate predicate;
+        private int id;
+        private final int to;
+        private int remaining;
+
+        MatchSpliterator(Predicate predicate, int from, int to, int limit) {
+            this.predicate = predicate;
+            this.id = from;
+            this.to = to;
+            this.remaining = limit;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            byte[] bytes = words.bytes();
+            while (remaining > 0 && id < to) {
+                int current = id++;
+                if (predicate.matches(bytes, words.offset(current), words.length(current))) {
+                    remaining--;
+                    action.accept(words.word(current));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // A limit applies to the whole set, not to each half, so limited scans stay sequential.
+        @Override
+        public Spliterator<String> trySplit() {
+            if (remaining < Integer.MAX_VALUE || to - id <= CHUNK_SIZE) {
+                return null;
+            }
+            int middle = id + ((to - id) / CHUNK_SIZE / 2) * CHUNK_SIZE;
+            if (middle == id) {
+                middle += CHUNK_SIZE;
+            }
+            MatchSpliterator prefix = new MatchSpliterator(predicate, id, middle, remaining);
+            this.id = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - id;
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL | ORDERED;
+        }
+    }
+
+    private class CountTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final Predicate predicate;
+        private final int fromChunk;
+        private final int toChunk;
+
+        CountTask(Predicate predicate, int fromChunk, int toChunk) {
+            this.predicate = predicate;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                CountTask left = new CountTask(predicate, fromChunk, middle);
+                left.fork();
+                int right = new CountTask(predicate, middle, toChunk).compute();
+                return left.join() + right;
+            }
+            int count = 0;
+            byte[] bytes = words.bytes();
+            int to = Math.min(words.size(), toChunk * CHUNK_SIZE);
+            for (int id = fromChunk * CHUNK_SIZE; id < to; id++) {
+                if (predicate.matches(bytes, words.offset(id), words.length(id))) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private class TopTask extends RecursiveTask<TopK> {
+        private static final long serialVersionUID = 1L;
+
+        private final Predicate predicate;
+        private final int k;
+        private final Scorer scorer;
+        private final int fromChunk;
+        private final int toChunk;
+
+        TopTask(Predicate predicate, int k, Scorer scorer, int fromChunk, int toChunk) {
+            this.predicate = predicate;
+            this.k = k;
+            this.scorer = scorer;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                TopTask left = new TopTask(predicate, k, scorer, fromChunk, middle);
+                left.fork();
+                TopK top = new TopTask(predicate, k, scorer, middle, toChunk).compute();
+                top.offerAll(left.join());
+                return top;
+            }
+            TopK top = new TopK(k, words::compare);
+            byte[] bytes = words.bytes();
+            int to = Math.min(words.size(), toChunk * CHUNK_SIZE);
+            for (int id = fromChunk * CHUNK_SIZE; id < to; id++) {
+                int offset = words.offset(id);
+                int length = words.length(id);
+                if (predicate.matches(bytes, offset, length)) {
+                    top.offer(id, scorer == Scorer.SCRABBLE ? scrabbleScores[id] : scorer.score(bytes, offset, length));
+                }
+            }
+            return top;
+        }
+    }
+
+    private class BatchTask extends RecursiveTask<BatchPredicate.Scan> {
+        private static final long serialVersionUID = 1L;
+
+        private final BatchPredicate batch;
+        private final int fromChunk;
+        private final int toChunk;
+
+        BatchTask(BatchPredicate batch, int fromChunk, int toChunk) {
+            this.batch = batch;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected BatchPredicate.Scan compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                BatchTask left = new BatchTask(batch, fromChunk, middle);
+                left.fork();
+                BatchPredicate.Scan right = new BatchTask(batch, middle, toChunk).compute();
+                BatchPredicate.Scan scan = left.join();
+                scan.merge(right);
+                return scan;
+            }
+            BatchPredicate.Scan scan = batch.scan();
+            byte[] bytes = words.bytes();
+            int to = Math.min(words.size(), toChunk * CHUNK_SIZE);
+            for (int id = fromChunk * CHUNK_SIZE; id < to && !scan.isDone(); id++) {
+                scan.offer(bytes, words.offset(id), words.length(id));
+            }
+            return scan;
+        }
+    }
+}
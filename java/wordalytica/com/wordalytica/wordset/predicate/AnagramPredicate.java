@@ -0,0 +1,72 @@
+package com.wordalytica.wordset.predicate;
+
+// Same letters as value, each as often, in any order. Letters are counted in place, so checking a
+// word allocates nothing.
+public class AnagramPredicate extends AbstractPredicate {
+    private final String value;
+    private final byte[] bytes;
+
+    public AnagramPredicate(String value) {
+        this.value = value;
+        this.bytes = latin1(value);
+    }
+
+    String value() {
+        return value;
+    }
+
+    @Override
+    public boolean matches(String word) {
+        if (word.length() != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (word.indexOf(c) == i && occurrences(word, c) != occurrences(value, c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        if (this.bytes == null || length != this.bytes.length) {
+            return false;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            byte b = bytes[i];
+            if (occurrences(bytes, offset, i - offset, b) == 0
+                    && occurrences(bytes, i, offset + length - i, b) != occurrences(this.bytes, 0, length, b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public double cost(WordStatistics statistics) {
+        return Math.max(1, value.length() * value.length());
+    }
+
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        double selectivity = statistics.lengthBetween(value.length(), value.length());
+        for (int i = 0; i < value.length(); i++) {
+            if (value.indexOf(value.charAt(i)) == i) {
+                selectivity *= statistics.containing(value.charAt(i));
+            }
+        }
+        return selectivity;
+    }
+
+    @Override
+    public String cacheKey() {
+        return "anagramOf-" + signature(value);
+    }
+
+    @Override
+    public String toString() {
+        return "anagramOf(\"" + value + "\")";
+    }
+}
@@ -0,0 +1,50 @@
+package com.wordalytica.wordset.predicate;
+
+import com.wordalytica.wordset.automaton.Automaton;
+
+// Words accepted by a compiled regex or glob. A check is one table lookup per character and stops
+// at the first character after which no word can match.
+public class AutomatonPredicate extends AbstractPredicate {
+    private final Automaton automaton;
+
+    public AutomatonPredicate(Automaton automaton) {
+        this.automaton = automaton;
+    }
+
+    public Automaton automaton() {
+        return automaton;
+    }
+
+    @Override
+    public boolean matches(String word) {
+        return automaton.matches(word);
+    }
+
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        return automaton.matches(bytes, offset, length);
+    }
+
+    @Override
+    public double cost(WordStatistics statistics) {
+        return Math.max(1, statistics.averageLength());
+    }
+
+    // Only the length bounds are known, the pattern makes the real fraction much smaller.
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        return statistics.lengthBetween(automaton.minLength(), automaton.maxLength());
+    }
+
+    @Override
+    public String cacheKey() {
+        return automaton.syntax() + "-" + automaton.pattern();
+    }
+
+    @Override
+    public String toString() {
+        return automaton.syntax().equals("glob")
+                ? "matchingGlob(\"" + automaton.pattern() + "\")"
+                : "matchingRegex(\"" + automaton.pattern() + "\")";
+    }
+}
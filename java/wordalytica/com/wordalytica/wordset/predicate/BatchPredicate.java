@@ -0,0 +1,215 @@
+package com.wordalytica.wordset.predicate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// The planned predicates of a batch of queries, with every predicate they share (same cacheKey())
+// evaluated at most once per word. Queries keep their planned order and still stop at their first
+// miss, a shared predicate one query already rejected a word with rejects it for the others for free.
+// Queries are grouped by their first, most selective, predicate so a word is usually turned down
+// by one test per group rather than one per query.
+public class BatchPredicate {
+    private final Predicate[] distinct;
+    private final int[][] queries;
+    private final int[][] groups;
+    private final int[] limits;
+    private final boolean collect;
+
+    public BatchPredicate(List<PlannedPredicate> predicates, int[] limits, boolean collect) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<Predicate> distinct = new ArrayList<>();
+        this.queries = new int[predicates.size()][];
+        for (int q = 0; q < queries.length; q++) {
+            List<Predicate> planned = predicates.get(q).predicates();
+            queries[q] = new int[planned.size()];
+            for (int i = 0; i < planned.size(); i++) {
+                Predicate predicate = planned.get(i);
+                String key = predicate.cacheKey();
+                Integer id = key == null ? null : ids.get(key);
+                if (id == null) {
+                    id = distinct.size();
+                    distinct.add(predicate);
+                    if (key != null) {
+                        ids.put(key, id);
+                    }
+                }
+                queries[q][i] = id;
+            }
+        }
+        this.distinct = distinct.toArray(new Predicate[0]);
+        Map<Integer, List<Integer>> byFirst = new LinkedHashMap<>();
+        for (int q = 0; q < queries.length; q++) {
+            byFirst.computeIfAbsent(queries[q].length == 0 ? -1 : queries[q][0], first -> new ArrayList<>()).add(q);
+        }
+        this.groups = new int[byFirst.size()][];
+        int group = 0;
+        for (List<Integer> members : byFirst.values()) {
+            groups[group++] = members.stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.limits = limits.clone();
+        this.collect = collect;
+    }
+
+    public int size() {
+        return queries.length;
+    }
+
+    // Distinct predicates over all queries, at most the sum of their lengths.
+    public int distinctPredicates() {
+        return distinct.length;
+    }
+
+    public Scan scan() {
+        return new Scan();
+    }
+
+    // Counts, and when collecting the words, of one pass over some of the words. Not thread safe,
+    // a parallel pass gives every task its own scan and merges them in word order.
+    public class Scan {
+        private final int[] seen = new int[distinct.length];
+        private final boolean[] matched = new boolean[distinct.length];
+        private final int[] counts = new int[queries.length];
+        private final List<List<String>> words = new ArrayList<>();
+        private int word;
+        private int open = queries.length;
+
+        private Scan() {
+            for (int q = 0; q < queries.length; q++) {
+                words.add(collect ? new ArrayList<>() : null);
+                if (limits[q] == 0) {
+                    open--;
+                }
+            }
+        }
+
+        // True once every query reached its limit, the rest of the pass can be skipped.
+        public boolean isDone() {
+            return open == 0;
+        }
+
+        public void offer(String value) {
+            word++;
+            for (int[] group : groups) {
+                if (!first(group[0], value, null, 0, 0)) {
+                    continue;
+                }
+                for (int q : group) {
+                    if (counts[q] < limits[q] && matches(q, value, null, 0, 0)) {
+                        add(q, value);
+                    }
+                }
+            }
+        }
+
+        // The String is only created when a query matches and words are collected.
+        public void offer(byte[] bytes, int offset, int length) {
+            word++;
+            String value = null;
+            for (int[] group : groups) {
+                if (!first(group[0], null, bytes, offset, length)) {
+                    continue;
+                }
+                for (int q : group) {
+                    if (counts[q] < limits[q] && matches(q, null, bytes, offset, length)) {
+                        if (collect && value == null) {
+                            value = new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+                        }
+                        add(q, value);
+                    }
+                }
+            }
+        }
+
+        // Only the given queries are tested, for sets that find candidates per query.
+        public void offer(String value, int[] only) {
+            word++;
+            for (int q : only) {
+                if (counts[q] < limits[q] && matches(q, value, null, 0, 0)) {
+                    add(q, value);
+                }
+            }
+        }
+
+        // Only the given queries are tested, and the String is only created when one of them matches.
+        public void offer(byte[] bytes, int offset, int length, int[] only) {
+            word++;
+            String value = null;
+            for (int q : only) {
+                if (counts[q] < limits[q] && matches(q, null, bytes, offset, length)) {
+                    if (collect && value == null) {
+                        value = new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+                    }
+                    add(q, value);
+                }
+            }
+        }
+
+        // A word the set already knows query matches, e.g. from an index or column filter.
+        public void accept(int query, byte[] bytes, int offset, int length) {
+            if (counts[query] < limits[query]) {
+                add(query, collect ? new String(bytes, offset, length, StandardCharsets.ISO_8859_1) : null);
+            }
+        }
+
+        public boolean isDone(int query) {
+            return counts[query] >= limits[query];
+        }
+
+        // Appends the results of a scan over the words following the ones this scan saw.
+        public void merge(Scan next) {
+            for (int q = 0; q < queries.length; q++) {
+                int taken = Math.min(next.counts[q], limits[q] - counts[q]);
+                if (taken > 0 && collect) {
+                    words.get(q).addAll(next.words.get(q).subList(0, taken));
+                }
+                if (taken > 0 && (counts[q] += taken) == limits[q]) {
+                    open--;
+                }
+            }
+        }
+
+        public int[] counts() {
+            return counts.clone();
+        }
+
+        public List<List<String>> words() {
+            return words;
+        }
+
+        private void add(int q, String value) {
+            if (collect) {
+                words.get(q).add(value);
+            }
+            if (++counts[q] == limits[q]) {
+                open--;
+            }
+        }
+
+        private boolean first(int q, String value, byte[] bytes, int offset, int length) {
+            return queries[q].length == 0 || evaluate(queries[q][0], value, bytes, offset, length);
+        }
+
+        private boolean matches(int q, String value, byte[] bytes, int offset, int length) {
+            for (int id : queries[q]) {
+                if (!evaluate(id, value, bytes, offset, length)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean evaluate(int id, String value, byte[] bytes, int offset, int length) {
+            if (seen[id] != word) {
+                seen[id] = word;
+                matched[id] = value != null
+                        ? distinct[id].matches(value)
+                        : distinct[id].matches(bytes, offset, length);
+            }
+            return matched[id];
+        }
+    }
+}
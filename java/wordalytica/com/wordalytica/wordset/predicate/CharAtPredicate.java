@@ -9,12 +9,42 @@ public class CharAtPredicate extends AbstractPredicate {
         this.position = position;
     }
 
+    char character() {
+        return character;
+    }
+
+    int position() {
+        return position;
+    }
+
     @Override
     public boolean matches(String word) {
         return position >= 0
                 && position < word.length()
                 && word.charAt(position) == character;
     }
+
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        return position >= 0
+                && position < length
+                && (bytes[offset + position] & 0xFF) == character;
+    }
+
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        return statistics.charAt(character, position);
+    }
+
+    @Override
+    public String cacheKey() {
+        return "charAt-" + character + "-" + position;
+    }
+
+    @Override
+    public String toString() {
+        return "withCharAt('" + character + "', " + position + ")";
+    }
 }
 
 
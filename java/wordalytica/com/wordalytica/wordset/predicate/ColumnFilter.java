@@ -0,0 +1,154 @@
+package com.wordalytica.wordset.predicate;
+
+import com.wordalytica.wordset.automaton.Automaton;
+import com.wordalytica.wordset.automaton.LevenshteinAutomaton;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A planned predicate split into the parts a column store can check without looking at whole
+// words: a length range, letters every match must or must not contain (bit i stands for 'a' + i)
+// and the characters allowed at each position. Whatever is left has to run on the words as the
+// residual predicate. Required letters are also derived from substring, prefix, suffix and anagram
+// values, and length bounds from regex, glob and edit distance automata, as a cheap first filter
+// ahead of the residual check.
+public final class ColumnFilter {
+    private int minLength = 0;
+    private int maxLength = Integer.MAX_VALUE;
+    private int requiredLetters;
+    private int forbiddenLetters;
+    private PositionalPredicate positional;
+    // allowed[p][b] tells whether the Latin-1 byte b may appear at position p, null for a position
+    // that allows every byte. Built once per filter, so scans only look entries up.
+    private boolean[][] allowed = new boolean[0][];
+    private boolean never;
+    private final List<Predicate> residual = new ArrayList<>();
+    private PlannedPredicate residualPredicate;
+
+    private ColumnFilter() {
+    }
+
+    public static ColumnFilter of(PlannedPredicate predicate, WordStatistics statistics) {
+        ColumnFilter filter = new ColumnFilter();
+        for (Predicate p : predicate.predicates()) {
+            filter.add(p);
+        }
+        filter.residualPredicate = filter.residual.isEmpty() ? null : new PlannedPredicate(filter.residual, statistics);
+        if (filter.positional != null) {
+            filter.allowed = allowed(filter.positional);
+        }
+        return filter;
+    }
+
+    // No word can match, e.g. for contradicting lengths.
+    public boolean isNever() {
+        return never || minLength > maxLength || (requiredLetters & forbiddenLetters) != 0;
+    }
+
+    public int minLength() {
+        return minLength;
+    }
+
+    public int maxLength() {
+        return maxLength;
+    }
+
+    public int requiredLetters() {
+        return requiredLetters;
+    }
+
+    public int forbiddenLetters() {
+        return forbiddenLetters;
+    }
+
+    public int positions() {
+        return allowed.length;
+    }
+
+    // Indexed by a Latin-1 byte, whether it may appear at position. null when every byte may, e.g.
+    // for a wildcard. The table is shared, callers must not modify it.
+    public boolean[] allowed(int position) {
+        return position < allowed.length ? allowed[position] : null;
+    }
+
+    // null when the columns decide everything.
+    public PlannedPredicate residual() {
+        return residualPredicate;
+    }
+
+    public static int letters(byte[] bytes, int offset, int length) {
+        int letters = 0;
+        for (int i = offset; i < offset + length; i++) {
+            letters |= letter(bytes[i] & 0xFF);
+        }
+        return letters;
+    }
+
+    private void add(Predicate p) {
+        if (p instanceof PositionalPredicate) {
+            positional = (PositionalPredicate) p;
+            length(positional.minLength(), positional.maxLength());
+        } else if (p instanceof RangePredicate) {
+            length(((RangePredicate) p).minLength(), ((RangePredicate) p).maxLength());
+        } else if (p instanceof ContainsPredicate && isLetter(((ContainsPredicate) p).value())) {
+            requiredLetters |= letters(((ContainsPredicate) p).value());
+        } else if (p instanceof NegatedPredicate && ((NegatedPredicate) p).predicate() instanceof NullPredicate) {
+            never = true;
+        } else if (p instanceof NegatedPredicate && ((NegatedPredicate) p).predicate() instanceof ContainsPredicate
+                && isLetter(((ContainsPredicate) ((NegatedPredicate) p).predicate()).value())) {
+            forbiddenLetters |= letters(((ContainsPredicate) ((NegatedPredicate) p).predicate()).value());
+        } else {
+            if (p instanceof ContainsPredicate) {
+                requiredLetters |= letters(((ContainsPredicate) p).value());
+            } else if (p instanceof StartingWithPredicate) {
+                requiredLetters |= letters(((StartingWithPredicate) p).value());
+            } else if (p instanceof EndingWithPredicate) {
+                requiredLetters |= letters(((EndingWithPredicate) p).value());
+            } else if (p instanceof AnagramPredicate) {
+                requiredLetters |= letters(((AnagramPredicate) p).value());
+            } else if (p instanceof AutomatonPredicate) {
+                Automaton automaton = ((AutomatonPredicate) p).automaton();
+                length(automaton.minLength(), automaton.maxLength());
+            } else if (p instanceof EditDistancePredicate) {
+                LevenshteinAutomaton automaton = ((EditDistancePredicate) p).automaton();
+                length(automaton.minLength(), automaton.maxLength());
+            }
+            residual.add(p);
+        }
+    }
+
+    private static boolean[][] allowed(PositionalPredicate positional) {
+        boolean[][] allowed = new boolean[positional.positions()][];
+        for (int position = 0; position < allowed.length; position++) {
+            boolean[] bytes = new boolean[256];
+            boolean everything = true;
+            for (int b = 0; b < bytes.length; b++) {
+                bytes[b] = positional.allows(position, (char) b);
+                everything &= bytes[b];
+            }
+            allowed[position] = everything ? null : bytes;
+        }
+        return allowed;
+    }
+
+    private void length(int minLength, int maxLength) {
+        this.minLength = Math.max(this.minLength, minLength);
+        this.maxLength = Math.min(this.maxLength, maxLength);
+    }
+
+    private static boolean isLetter(String value) {
+        return value.length() == 1 && letter(value.charAt(0)) != 0;
+    }
+
+    private static int letters(String value) {
+        int letters = 0;
+        for (int i = 0; i < value.length(); i++) {
+            letters |= letter(value.charAt(i));
+        }
+        return letters;
+    }
+
+    private static int letter(int c) {
+        return c >= 'a' && c <= 'z' ? 1 << (c - 'a') : 0;
+    }
+}
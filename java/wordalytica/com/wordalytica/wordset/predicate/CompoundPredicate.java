@@ -1,28 +1,100 @@
 package com.wordalytica.wordset.predicate;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
 
+// Immutable: and() returns a new compound predicate, so a built predicate can be shared. Children
+// are evaluated in the order they were added, QueryPlanner produces a cost based order instead.
 public class CompoundPredicate extends AbstractPredicate {
 
-    private final HashSet<Predicate> predicateSet;
+    private final ArrayList<Predicate> predicates;
 
     public CompoundPredicate(Predicate predicate) {
-        this.predicateSet = new HashSet<>();
-        this.predicateSet.add(predicate);
+        this.predicates = new ArrayList<>();
+        this.predicates.add(predicate);
+    }
+
+    private CompoundPredicate(ArrayList<Predicate> predicates) {
+        this.predicates = predicates;
     }
 
     public CompoundPredicate and(Predicate predicate) {
-        predicateSet.add(predicate);
-        return this;
+        ArrayList<Predicate> predicates = new ArrayList<>(this.predicates);
+        predicates.add(predicate);
+        return new CompoundPredicate(predicates);
+    }
+
+    List<Predicate> predicates() {
+        return Collections.unmodifiableList(predicates);
     }
 
     @Override
     public boolean matches(String word) {
-        for(Predicate p : predicateSet) {
+        for(Predicate p : predicates) {
             if(!p.matches(word)) {
                 return false;
             }
         }
         return true;
     }
+
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        for(Predicate p : predicates) {
+            if(!p.matches(bytes, offset, length)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public double cost(WordStatistics statistics) {
+        double cost = 0;
+        for(Predicate p : predicates) {
+            cost += p.cost(statistics);
+        }
+        return cost;
+    }
+
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        double selectivity = 1;
+        for(Predicate p : predicates) {
+            selectivity *= p.selectivity(statistics);
+        }
+        return selectivity;
+    }
+
+    // Sorted and de-duplicated, so the same conditions added in any order share a key. Every child key
+    // is prefixed with its length, a value containing separators can then not make two keys collide.
+    @Override
+    public String cacheKey() {
+        TreeSet<String> keys = new TreeSet<>();
+        for(Predicate p : predicates) {
+            if(p instanceof NullPredicate) {
+                continue;
+            }
+            String key = p.cacheKey();
+            if(key == null) {
+                return null;
+            }
+            keys.add(key);
+        }
+        if(keys.isEmpty()) {
+            return new NullPredicate().cacheKey();
+        }
+        StringBuilder cacheKey = new StringBuilder("and");
+        for(String key : keys) {
+            cacheKey.append('-').append(key.length()).append(':').append(key);
+        }
+        return cacheKey.toString();
+    }
+
+    @Override
+    public String toString() {
+        return predicates.toString();
+    }
 }
@@ -2,13 +2,60 @@ package com.wordalytica.wordset.predicate;
 
 public class ContainsPredicate extends AbstractPredicate {
     private final String value;
+    private final byte[] bytes;
 
     public ContainsPredicate(String value) {
         this.value = value;
+        this.bytes = latin1(value);
+    }
+
+    String value() {
+        return value;
     }
 
     @Override
     public boolean matches(String word) {
         return word.contains(this.value);
     }
+
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        if (this.bytes == null) {
+            return false;
+        }
+        for (int i = offset; i <= offset + length - this.bytes.length; i++) {
+            if (regionMatches(bytes, i, this.bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public double cost(WordStatistics statistics) {
+        return Math.max(1, statistics.averageLength());
+    }
+
+    // The rarest letter bounds the estimate, and so does the expected number of occurrences
+    // when letters are assumed independent.
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        double rarest = 1;
+        double occurrences = statistics.averageLength();
+        for (int i = 0; i < value.length(); i++) {
+            rarest = Math.min(rarest, statistics.containing(value.charAt(i)));
+            occurrences *= statistics.frequency(value.charAt(i));
+        }
+        return value.length() == 1 ? rarest : Math.min(rarest, occurrences);
+    }
+
+    @Override
+    public String cacheKey() {
+        return "containing-" + value;
+    }
+
+    @Override
+    public String toString() {
+        return "containing(\"" + value + "\")";
+    }
 }
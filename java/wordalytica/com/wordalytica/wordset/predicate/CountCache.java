@@ -0,0 +1,78 @@
+package com.wordalytica.wordset.predicate;
+
+import com.wordalytica.wordset.metrics.QueryMetrics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+
+// Exact counts for the single predicates dashboards ask for most: every length and every suffix of
+// up to MAX_SUFFIX characters. A query made of one such predicate is answered without a scan.
+public class CountCache {
+    public static final int UNKNOWN = -1;
+    private static final int MAX_SUFFIX = 3;
+
+    private int size;
+    private int[] lengths = new int[16];
+    private final HashMap<String, Integer> suffixes = new HashMap<>();
+
+    private CountCache() {
+    }
+
+    public static CountCache of(Iterator<String> words) {
+        CountCache cache = new CountCache();
+        words.forEachRemaining(cache::add);
+        return cache;
+    }
+
+    private void add(String word) {
+        int length = word.length();
+        if (length >= lengths.length) {
+            lengths = Arrays.copyOf(lengths, Math.max(length + 1, lengths.length * 2));
+        }
+        size++;
+        lengths[length]++;
+        for (int i = 1; i <= MAX_SUFFIX && i <= length; i++) {
+            suffixes.merge(word.substring(length - i), 1, Integer::sum);
+        }
+    }
+
+    // Number of words the predicate matches, or UNKNOWN when it has to be evaluated word by word.
+    public int count(PlannedPredicate predicate) {
+        int count = lookup(predicate);
+        if (count == UNKNOWN) {
+            QueryMetrics.cacheMiss("CountCache");
+        } else {
+            QueryMetrics.cacheHit("CountCache");
+        }
+        return count;
+    }
+
+    private int lookup(PlannedPredicate predicate) {
+        if (predicate.isEmpty()) {
+            return size;
+        }
+        if (predicate.predicates().size() != 1) {
+            return UNKNOWN;
+        }
+        Predicate p = predicate.predicates().get(0);
+        if (p instanceof RangePredicate) {
+            int count = 0;
+            int maxLength = Math.min(((RangePredicate) p).maxLength(), lengths.length - 1);
+            for (int length = Math.max(0, ((RangePredicate) p).minLength()); length <= maxLength; length++) {
+                count += lengths[length];
+            }
+            return count;
+        }
+        if (p instanceof EndingWithPredicate) {
+            String value = ((EndingWithPredicate) p).value();
+            if (value.isEmpty()) {
+                return size;
+            }
+            if (value.length() <= MAX_SUFFIX) {
+                return suffixes.getOrDefault(value, 0);
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,51 @@
+package com.wordalytica.wordset.predicate;
+
+import com.wordalytica.wordset.automaton.LevenshteinAutomaton;
+
+// Words within maxEdits edits of a word, optionally counting adjacent transpositions as one edit.
+// Words of the wrong length are rejected up front, the others run the automaton until no
+// continuation can be accepted, usually after a few characters.
+public class EditDistancePredicate extends AbstractPredicate {
+    private final LevenshteinAutomaton automaton;
+
+    public EditDistancePredicate(LevenshteinAutomaton automaton) {
+        this.automaton = automaton;
+    }
+
+    public LevenshteinAutomaton automaton() {
+        return automaton;
+    }
+
+    @Override
+    public boolean matches(String word) {
+        return automaton.matches(word);
+    }
+
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        return automaton.matches(bytes, offset, length);
+    }
+
+    // One row of the table per character read.
+    @Override
+    public double cost(WordStatistics statistics) {
+        return Math.max(1, statistics.averageLength()) * automaton.rowLength();
+    }
+
+    // Only the length bounds are known, the real fraction is far smaller.
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        return statistics.lengthBetween(automaton.minLength(), automaton.maxLength());
+    }
+
+    @Override
+    public String cacheKey() {
+        return "edits-" + automaton.maxEdits() + (automaton.transpositions() ? "t-" : "-") + automaton.word();
+    }
+
+    @Override
+    public String toString() {
+        return "withinEditDistance(\"" + automaton.word() + "\", " + automaton.maxEdits()
+                + (automaton.transpositions() ? ", true)" : ")");
+    }
+}
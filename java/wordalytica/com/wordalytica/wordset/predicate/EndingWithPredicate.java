@@ -2,15 +2,55 @@ package com.wordalytica.wordset.predicate;
 
 public class EndingWithPredicate extends AbstractPredicate {
     private final String value;
+    private final byte[] bytes;
 
     public EndingWithPredicate(String value) {
         this.value = value;
+        this.bytes = latin1(value);
+    }
+
+    String value() {
+        return value;
     }
 
     @Override
     public boolean matches(String word) {
         return word.endsWith(this.value);
     }
+
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        return this.bytes != null
+                && length >= this.bytes.length
+                && regionMatches(bytes, offset + length - this.bytes.length, this.bytes);
+    }
+
+    @Override
+    public double cost(WordStatistics statistics) {
+        return Math.max(1, value.length());
+    }
+
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        if (value.isEmpty()) {
+            return 1;
+        }
+        double selectivity = statistics.endingWith(value.charAt(value.length() - 1));
+        for (int i = 0; i < value.length() - 1; i++) {
+            selectivity *= statistics.frequency(value.charAt(i));
+        }
+        return selectivity;
+    }
+
+    @Override
+    public String cacheKey() {
+        return "endingWith-" + value;
+    }
+
+    @Override
+    public String toString() {
+        return "endingWith(\"" + value + "\")";
+    }
 }
 
 
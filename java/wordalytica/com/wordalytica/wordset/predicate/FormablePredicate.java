@@ -0,0 +1,91 @@
+package com.wordalytica.wordset.predicate;
+
+// Words that can be spelled with the given tiles, each tile used at most once, plus up to blanks
+// tiles that stand for any letter. Letters are counted in place, so checking a word allocates nothing.
+public class FormablePredicate extends AbstractPredicate {
+    private final String tiles;
+    private final byte[] bytes;
+    private final int blanks;
+
+    public FormablePredicate(String tiles, int blanks) {
+        if (blanks < 0) {
+            throw new IllegalArgumentException("blanks must not be negative: " + blanks);
+        }
+        this.tiles = tiles;
+        this.bytes = latin1(tiles);
+        this.blanks = blanks;
+    }
+
+    String tiles() {
+        return tiles;
+    }
+
+    int blanks() {
+        return blanks;
+    }
+
+    int maxLength() {
+        return (int) Math.min(Integer.MAX_VALUE, (long) tiles.length() + blanks);
+    }
+
+    @Override
+    public boolean matches(String word) {
+        if (word.length() > maxLength()) {
+            return false;
+        }
+        int missing = 0;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (word.indexOf(c) == i) {
+                missing += Math.max(0, occurrences(word, c) - occurrences(tiles, c));
+                if (missing > blanks) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        if (this.bytes == null) {
+            return super.matches(bytes, offset, length);
+        }
+        if (length > maxLength()) {
+            return false;
+        }
+        int missing = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = bytes[i];
+            if (occurrences(bytes, offset, i - offset, b) == 0) {
+                int needed = occurrences(bytes, i, offset + length - i, b);
+                missing += Math.max(0, needed - occurrences(this.bytes, 0, this.bytes.length, b));
+                if (missing > blanks) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public double cost(WordStatistics statistics) {
+        return Math.max(1, statistics.averageLength() * statistics.averageLength());
+    }
+
+    // Only the length bound is known, the letters make the real fraction much smaller.
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        return statistics.lengthBetween(0, maxLength());
+    }
+
+    @Override
+    public String cacheKey() {
+        return "formableFrom-" + blanks + "-" + signature(tiles);
+    }
+
+    @Override
+    public String toString() {
+        return "formableFrom(\"" + tiles + "\", " + blanks + ")";
+    }
+}
@@ -0,0 +1,59 @@
+package com.wordalytica.wordset.predicate;
+
+import com.wordalytica.wordset.metrics.Probe;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Filters words lazily, the predicate only runs when the caller asks for the next match and at most
+// limit matches are returned, so abandoning the iterator early skips the rest of the words.
+// The probe ends once the iterator is exhausted, an abandoned iterator is never reported.
+public class MatchingIterator implements Iterator<String> {
+    private final Iterator<String> words;
+    private final Predicate predicate;
+    private final Probe probe;
+    private int remaining;
+    private String next;
+    private long scanned;
+    private long matched;
+    private boolean ended;
+
+    public MatchingIterator(Iterator<String> words, Predicate predicate, int limit) {
+        this(words, predicate, limit, Probe.NONE);
+    }
+
+    public MatchingIterator(Iterator<String> words, Predicate predicate, int limit, Probe probe) {
+        this.words = words;
+        this.predicate = predicate;
+        this.remaining = limit;
+        this.probe = probe;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && remaining > 0 && words.hasNext()) {
+            String word = words.next();
+            scanned++;
+            if (predicate.matches(word)) {
+                next = word;
+                matched++;
+            }
+        }
+        if (next == null && !ended) {
+            ended = true;
+            probe.end(scanned, matched);
+        }
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String current = next;
+        next = null;
+        remaining--;
+        return current;
+    }
+}
@@ -7,6 +7,14 @@ public class MatchingPredicate extends AbstractPredicate {
         this.placeHolded = placeHolded;
     }
 
+    int length() {
+        return placeHolded.length();
+    }
+
+    String placeHolded() {
+        return placeHolded;
+    }
+
     @Override
     public boolean matches(String string) {
         if(string.length() != placeHolded.length()) {
@@ -23,4 +31,50 @@ public class MatchingPredicate extends AbstractPredicate {
         }
         return true;
     }
+
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        if(length != placeHolded.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char placeholder = placeHolded.charAt(i);
+            if('_' == placeholder || '?' == placeholder) {
+                continue;
+            }
+            if(placeholder != (bytes[offset + i] & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Most words already fail the length check.
+    @Override
+    public double cost(WordStatistics statistics) {
+        return 1 + statistics.lengthBetween(length(), length()) * length();
+    }
+
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        double selectivity = statistics.lengthBetween(length(), length());
+        for (int i = 0; i < placeHolded.length(); i++) {
+            char placeholder = placeHolded.charAt(i);
+            if ('_' != placeholder && '?' != placeholder) {
+                selectivity *= statistics.charAt(placeholder, i);
+            }
+        }
+        return selectivity;
+    }
+
+    // Both placeholders match any character, so patterns differing only in which one is used share a key.
+    @Override
+    public String cacheKey() {
+        return "matching-" + placeHolded.replace('?', '_');
+    }
+
+    @Override
+    public String toString() {
+        return "matching(\"" + placeHolded + "\")";
+    }
 }
@@ -7,11 +7,20 @@ public class NegatedPredicate extends AbstractPredicate {
         this.predicate = predicate;
     }
 
+    Predicate predicate() {
+        return predicate;
+    }
+
     @Override
     public boolean matches(String word) {
         return !predicate.matches(word);
     }
 
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        return !predicate.matches(bytes, offset, length);
+    }
+
     @Override
     public String cacheKey() {
         if(null == predicate.cacheKey()) {
@@ -19,4 +28,19 @@ public class NegatedPredicate extends AbstractPredicate {
         }
         return "not-" + predicate.cacheKey();
     }
+
+    @Override
+    public double cost(WordStatistics statistics) {
+        return predicate.cost(statistics);
+    }
+
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        return 1 - predicate.selectivity(statistics);
+    }
+
+    @Override
+    public String toString() {
+        return "not " + predicate;
+    }
 }
@@ -5,4 +5,29 @@ public class NullPredicate extends AbstractPredicate {
     public boolean matches(String word) {
         return true;
     }
+
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        return true;
+    }
+
+    @Override
+    public double cost(WordStatistics statistics) {
+        return 0;
+    }
+
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        return 1;
+    }
+
+    @Override
+    public String cacheKey() {
+        return "any";
+    }
+
+    @Override
+    public String toString() {
+        return "any";
+    }
 }
@@ -0,0 +1,90 @@
+package com.wordalytica.wordset.predicate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Conjunction evaluated in a fixed order chosen by the QueryPlanner, stopping at the first miss.
+public class PlannedPredicate extends AbstractPredicate {
+    private final Predicate[] predicates;
+    private final List<Predicate> list;
+    private final double[] costs;
+    private final double[] selectivities;
+
+    PlannedPredicate(List<Predicate> predicates, WordStatistics statistics) {
+        this.predicates = predicates.toArray(new Predicate[0]);
+        this.list = Collections.unmodifiableList(Arrays.asList(this.predicates));
+        this.costs = new double[this.predicates.length];
+        this.selectivities = new double[this.predicates.length];
+        for (int i = 0; i < this.predicates.length; i++) {
+            costs[i] = this.predicates[i].cost(statistics);
+            selectivities[i] = this.predicates[i].selectivity(statistics);
+        }
+    }
+
+    List<Predicate> predicates() {
+        return list;
+    }
+
+    public boolean isEmpty() {
+        return predicates.length == 0;
+    }
+
+    @Override
+    public boolean matches(String word) {
+        for (Predicate p : predicates) {
+            if (!p.matches(word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        for (Predicate p : predicates) {
+            if (!p.matches(bytes, offset, length)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Later predicates only run for the words that passed the earlier ones.
+    @Override
+    public double cost(WordStatistics statistics) {
+        double cost = 0;
+        double reaching = 1;
+        for (int i = 0; i < predicates.length; i++) {
+            cost += reaching * costs[i];
+            reaching *= selectivities[i];
+        }
+        return cost;
+    }
+
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        double selectivity = 1;
+        for (double s : selectivities) {
+            selectivity *= s;
+        }
+        return selectivity;
+    }
+
+    public String explain() {
+        if (predicates.length == 0) {
+            return "all words";
+        }
+        StringBuilder explain = new StringBuilder();
+        for (int i = 0; i < predicates.length; i++) {
+            explain.append(String.format("%d. %s cost=%.2f selectivity=%.4f%n",
+                    i + 1, predicates[i], costs[i], selectivities[i]));
+        }
+        return explain.toString();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(predicates);
+    }
+}
@@ -0,0 +1,236 @@
+package com.wordalytica.wordset.predicate;
+
+import java.util.Arrays;
+
+// Every length, matching(), withCharAt() and withoutCharAt() constraint of a query fused into one
+// matcher: a length range plus, per position, a 256 bit mask of the Latin-1 characters allowed
+// there. A word is checked in a single pass over its characters with no virtual calls, where the
+// separate predicates would each be dispatched to in turn. Building one costs about as much as
+// looking it up would, so every plan builds its own and planning threads share nothing.
+public class PositionalPredicate extends AbstractPredicate {
+    private final int minLength;
+    private final int maxLength;
+    // Four longs per position, bit b of the mask for position p is masks[p * 4 + b / 64] >>> (b % 64).
+    private final long[] masks;
+    // Positions that only allow a single character, a character above Latin-1 never matches there.
+    private final boolean[] pinned;
+
+    private PositionalPredicate(int minLength, int maxLength, long[] masks, boolean[] pinned) {
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.masks = masks;
+        this.pinned = pinned;
+    }
+
+    int minLength() {
+        return minLength;
+    }
+
+    int maxLength() {
+        return maxLength;
+    }
+
+    // Positions past the last one allow every character.
+    int positions() {
+        return pinned.length;
+    }
+
+    @Override
+    public boolean matches(String word) {
+        int length = word.length();
+        if (length < minLength || length > maxLength) {
+            return false;
+        }
+        int positions = Math.min(length, pinned.length);
+        for (int p = 0; p < positions; p++) {
+            char c = word.charAt(p);
+            if (c > 0xFF ? pinned[p] : (masks[(p << 2) | (c >>> 6)] & (1L << c)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        if (length < minLength || length > maxLength) {
+            return false;
+        }
+        int positions = Math.min(length, pinned.length);
+        for (int p = 0; p < positions; p++) {
+            int b = bytes[offset + p] & 0xFF;
+            if ((masks[(p << 2) | (b >>> 6)] & (1L << b)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public double cost(WordStatistics statistics) {
+        return 1 + Math.min(statistics.averageLength(), pinned.length);
+    }
+
+    // Each position keeps the share of the words having a letter there whose letter is allowed.
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        double selectivity = statistics.lengthBetween(minLength, maxLength);
+        for (int p = 0; p < pinned.length; p++) {
+            double total = 0;
+            double allowed = 0;
+            for (char c = 'a'; c <= 'z'; c++) {
+                double share = statistics.charAt(c, p);
+                total += share;
+                if (allows(p, c)) {
+                    allowed += share;
+                }
+            }
+            if (total > 0) {
+                selectivity *= allowed / total;
+            }
+        }
+        return selectivity;
+    }
+
+    // Pinning only decides characters above Latin-1, which no mask holds, but it is part of the key.
+    @Override
+    public String cacheKey() {
+        StringBuilder key = new StringBuilder("positional-").append(minLength).append('-').append(maxLength);
+        for (int p = 0; p < pinned.length; p++) {
+            key.append(pinned[p] ? "-=" : "-");
+            for (int w = p << 2; w < (p + 1) << 2; w++) {
+                key.append(Long.toHexString(masks[w])).append(w + 1 < (p + 1) << 2 ? "," : "");
+            }
+        }
+        return key.toString();
+    }
+
+    // Pinned positions show their character, others the characters they exclude, e.g. 0='c' 1!='ae'.
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder("positional(");
+        string.append(maxLength == Integer.MAX_VALUE ? "length>=" + minLength : "length " + minLength + ".." + maxLength);
+        for (int p = 0; p < pinned.length; p++) {
+            StringBuilder characters = new StringBuilder();
+            for (char c = 0; c <= 0xFF; c++) {
+                if (allows(p, c) == pinned[p]) {
+                    characters.append(c);
+                }
+            }
+            if (pinned[p] || characters.length() > 0) {
+                string.append(", ").append(p).append(pinned[p] ? "='" : "!='").append(characters).append('\'');
+            }
+        }
+        return string.append(')').toString();
+    }
+
+    boolean allows(int position, char c) {
+        return (masks[(position << 2) | (c >>> 6)] & (1L << c)) != 0;
+    }
+
+    // Collects the positional constraints of one query, every other predicate is refused by add().
+    static class Builder {
+        private int minLength = 0;
+        private int maxLength = Integer.MAX_VALUE;
+        private long[] masks = new long[0];
+        private boolean[] pinned = new boolean[0];
+        private boolean never;
+
+        // false when the predicate is not positional, or uses a character the masks can't hold.
+        boolean add(Predicate predicate) {
+            if (predicate instanceof RangePredicate) {
+                minLength = Math.max(minLength, ((RangePredicate) predicate).minLength());
+                maxLength = Math.min(maxLength, ((RangePredicate) predicate).maxLength());
+            } else if (predicate instanceof MatchingPredicate) {
+                String placeHolded = ((MatchingPredicate) predicate).placeHolded();
+                if (latin1(placeHolded) == null) {
+                    return false;
+                }
+                minLength = Math.max(minLength, placeHolded.length());
+                maxLength = Math.min(maxLength, placeHolded.length());
+                for (int p = 0; p < placeHolded.length(); p++) {
+                    char c = placeHolded.charAt(p);
+                    if ('_' != c && '?' != c) {
+                        pin(p, c);
+                    }
+                }
+            } else if (predicate instanceof CharAtPredicate) {
+                CharAtPredicate charAt = (CharAtPredicate) predicate;
+                if (charAt.character() > 0xFF) {
+                    return false;
+                }
+                if (charAt.position() < 0) {
+                    never = true;
+                } else {
+                    minLength = Math.max(minLength, charAt.position() + 1);
+                    pin(charAt.position(), charAt.character());
+                }
+            } else if (predicate instanceof NegatedPredicate
+                    && ((NegatedPredicate) predicate).predicate() instanceof CharAtPredicate) {
+                CharAtPredicate charAt = (CharAtPredicate) ((NegatedPredicate) predicate).predicate();
+                if (charAt.character() > 0xFF) {
+                    return false;
+                }
+                if (charAt.position() >= 0) {
+                    mask(charAt.position())[(charAt.position() << 2) | (charAt.character() >>> 6)] &= ~(1L << charAt.character());
+                }
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        // A position that allows no character caps the length below it.
+        boolean isSatisfiable() {
+            return !never && minLength <= effectiveMaxLength();
+        }
+
+        // null when nothing is constrained, a plain RangePredicate when only the length is.
+        Predicate build() {
+            int maxLength = effectiveMaxLength();
+            if (isUnconstrained()) {
+                return minLength > 0 || maxLength < Integer.MAX_VALUE ? new RangePredicate(minLength, maxLength) : null;
+            }
+            return new PositionalPredicate(minLength, maxLength, masks, pinned);
+        }
+
+        private boolean isUnconstrained() {
+            for (long mask : masks) {
+                if (mask != -1L) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int effectiveMaxLength() {
+            for (int p = 0; p < pinned.length && p < maxLength; p++) {
+                long any = masks[p << 2] | masks[(p << 2) | 1] | masks[(p << 2) | 2] | masks[(p << 2) | 3];
+                if (any == 0) {
+                    return p;
+                }
+            }
+            return maxLength;
+        }
+
+        private void pin(int position, char c) {
+            int word = (position << 2) | (c >>> 6);
+            long bit = mask(position)[word] & (1L << c);
+            Arrays.fill(masks, position << 2, (position + 1) << 2, 0L);
+            masks[word] = bit;
+            pinned[position] = true;
+        }
+
+        // Grows the masks so position exists, new positions allow every character.
+        private long[] mask(int position) {
+            if (position >= pinned.length) {
+                int positions = position + 1;
+                int old = masks.length;
+                masks = Arrays.copyOf(masks, positions << 2);
+                Arrays.fill(masks, old, masks.length, -1L);
+                pinned = Arrays.copyOf(pinned, positions);
+            }
+            return masks;
+        }
+    }
+}
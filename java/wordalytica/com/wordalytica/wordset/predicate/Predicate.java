@@ -1,14 +1,28 @@
 package com.wordalytica.wordset.predicate;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 public interface Predicate {
     boolean matches(String word);
+    // Same answer as matches(String) for a word stored as Latin-1 bytes, without creating a String.
+    boolean matches(byte[] bytes, int offset, int length);
     String cacheKey();
     Predicate negate();
+    // Relative cost of one matches() call, comparing a single character costs about 1.
+    double cost(WordStatistics statistics);
+    // Estimated fraction of the words that match.
+    double selectivity(WordStatistics statistics);
 }
 
 abstract class AbstractPredicate implements Predicate {
     public abstract boolean matches(String word);
 
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        return matches(new String(bytes, offset, length, StandardCharsets.ISO_8859_1));
+    }
+
     @Override
     public String cacheKey() {
         return null;
@@ -18,4 +32,58 @@ abstract class AbstractPredicate implements Predicate {
     public Predicate negate() {
         return new NegatedPredicate(this);
     }
+
+    @Override
+    public double cost(WordStatistics statistics) {
+        return 1;
+    }
+
+    // null when value has characters outside Latin-1, it then can't occur in a packed word.
+    static byte[] latin1(String value) {
+        byte[] bytes = new byte[value.length()];
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c > 0xFF) {
+                return null;
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    static int occurrences(String value, char c) {
+        int count = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == c) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static int occurrences(byte[] bytes, int offset, int length, byte b) {
+        int count = 0;
+        for (int i = offset; i < offset + length; i++) {
+            if (bytes[i] == b) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Letters sorted, words with the same signature are anagrams of each other.
+    static String signature(String value) {
+        char[] chars = value.toCharArray();
+        Arrays.sort(chars);
+        return new String(chars);
+    }
+
+    static boolean regionMatches(byte[] bytes, int offset, byte[] value) {
+        for (int i = 0; i < value.length; i++) {
+            if (bytes[offset + i] != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
\ No newline at end of file
@@ -1,58 +1,82 @@
 package com.wordalytica.wordset.predicate;
 
+import com.wordalytica.wordset.automaton.Automaton;
+import com.wordalytica.wordset.automaton.LevenshteinAutomaton;
+
+// Immutable: every call returns a new builder and leaves this one untouched, so partially built
+// chains can be shared between threads and extended independently.
 public class PredicateBuilder {
-    private CompoundPredicate predicate;
+    private final CompoundPredicate predicate;
 
     public PredicateBuilder() {
-        this.predicate = new CompoundPredicate(new NullPredicate());
+        this(new CompoundPredicate(new NullPredicate()));
+    }
+
+    private PredicateBuilder(CompoundPredicate predicate) {
+        this.predicate = predicate;
     }
 
     public PredicateBuilder longerThan(int minLength) {
-        this.predicate.and(new RangePredicate(minLength + 1, Integer.MAX_VALUE));
-        return this;
+        return and(new RangePredicate(minLength + 1, Integer.MAX_VALUE));
     }
 
     public PredicateBuilder containing(String value) {
-        this.predicate.and(new ContainsPredicate(value));
-        return this;
+        return and(new ContainsPredicate(value));
     }
 
     public PredicateBuilder endingWith(String value) {
-        this.predicate.and(new EndingWithPredicate(value));
-        return this;
+        return and(new EndingWithPredicate(value));
     }
 
     public PredicateBuilder startingWith(String value) {
-        this.predicate.and(new StartingWithPredicate(value));
-        return this;
+        return and(new StartingWithPredicate(value));
     }
 
     public PredicateBuilder notEndingWith(String value) {
-        this.predicate.and(new EndingWithPredicate(value).negate());
-        return this;
+        return and(new EndingWithPredicate(value).negate());
     }
 
     public PredicateBuilder notContaining(String value) {
-        this.predicate.and(new ContainsPredicate(value).negate());
-        return this;
+        return and(new ContainsPredicate(value).negate());
     }
 
     public PredicateBuilder matching(String placeHolded) {
-        this.predicate.and(new MatchingPredicate(placeHolded));
-        return this;
+        return and(new MatchingPredicate(placeHolded));
     }
 
     public PredicateBuilder withCharAt(char c, int position) {
-        this.predicate.and(new CharAtPredicate(c, position));
-        return this;
+        return and(new CharAtPredicate(c, position));
     }
 
     public PredicateBuilder withoutCharAt(char c, int position) {
-        this.predicate.and(new CharAtPredicate(c, position).negate());
-        return this;
+        return and(new CharAtPredicate(c, position).negate());
+    }
+
+    public PredicateBuilder anagramOf(String value) {
+        return and(new AnagramPredicate(value));
+    }
+
+    public PredicateBuilder formableFrom(String tiles, int blanks) {
+        return and(new FormablePredicate(tiles, blanks));
+    }
+
+    public PredicateBuilder matchingRegex(String regex) {
+        return and(new AutomatonPredicate(Automaton.regex(regex)));
+    }
+
+    public PredicateBuilder matchingGlob(String glob) {
+        return and(new AutomatonPredicate(Automaton.glob(glob)));
+    }
+
+    public PredicateBuilder withinEditDistance(String word, int maxEdits, boolean transpositions) {
+        return and(new EditDistancePredicate(new LevenshteinAutomaton(word, maxEdits, transpositions)));
     }
 
     public Predicate build() {
         return this.predicate;
     }
+
+    private PredicateBuilder and(Predicate predicate) {
+        return new PredicateBuilder(this.predicate.and(predicate));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.wordalytica.wordset.predicate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+// Turns a built predicate into a PlannedPredicate. Duplicates are dropped and every length and
+// positional constraint is fused into one PositionalPredicate (or a plain length range when there
+// is nothing positional). The rest is ordered by cost / (1 - selectivity), so cheap and selective
+// checks run first.
+public class QueryPlanner {
+    private QueryPlanner() {
+    }
+
+    public static PlannedPredicate plan(Predicate predicate, WordStatistics statistics) {
+        LinkedHashMap<String, Predicate> unique = new LinkedHashMap<>();
+        flatten(predicate, unique);
+
+        PositionalPredicate.Builder positions = new PositionalPredicate.Builder();
+        List<Predicate> predicates = new ArrayList<>();
+        for (Predicate p : unique.values()) {
+            if (!positions.add(p)) {
+                predicates.add(p);
+            }
+        }
+        Predicate positional = positions.build();
+        if (positional != null) {
+            predicates.add(positional);
+        }
+        if (!positions.isSatisfiable()) {
+            predicates.clear();
+            predicates.add(new NullPredicate().negate());
+        }
+        predicates.sort(Comparator.comparingDouble(p -> rank(p, statistics)));
+        return new PlannedPredicate(predicates, statistics);
+    }
+
+    private static double rank(Predicate predicate, WordStatistics statistics) {
+        double rejected = 1 - predicate.selectivity(statistics);
+        return rejected <= 0 ? Double.MAX_VALUE : predicate.cost(statistics) / rejected;
+    }
+
+    private static void flatten(Predicate predicate, LinkedHashMap<String, Predicate> unique) {
+        if (predicate instanceof CompoundPredicate) {
+            for (Predicate child : ((CompoundPredicate) predicate).predicates()) {
+                flatten(child, unique);
+            }
+        } else if (predicate instanceof PlannedPredicate) {
+            for (Predicate child : ((PlannedPredicate) predicate).predicates()) {
+                flatten(child, unique);
+            }
+        } else if (!(predicate instanceof NullPredicate)) {
+            unique.putIfAbsent(predicate.toString(), predicate);
+        }
+    }
+}
@@ -10,8 +10,39 @@ public class RangePredicate extends AbstractPredicate {
         this.maxLength = maxLength;
     }
 
+    int minLength() {
+        return minLength;
+    }
+
+    int maxLength() {
+        return maxLength;
+    }
+
     @Override
     public boolean matches(String word) {
         return minLength <= word.length() && word.length() <= maxLength;
     }
+
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        return minLength <= length && length <= maxLength;
+    }
+
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        return statistics.lengthBetween(minLength, maxLength);
+    }
+
+    @Override
+    public String cacheKey() {
+        return "length-" + minLength + "-" + maxLength;
+    }
+
+    @Override
+    public String toString() {
+        if (maxLength == Integer.MAX_VALUE) {
+            return "longerThan(" + (minLength - 1) + ")";
+        }
+        return "lengthBetween(" + minLength + ", " + maxLength + ")";
+    }
 }
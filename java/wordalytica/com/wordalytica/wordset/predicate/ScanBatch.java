@@ -0,0 +1,67 @@
+package com.wordalytica.wordset.predicate;
+
+import com.wordalytica.wordset.core.Batch;
+import com.wordalytica.wordset.core.WordSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// A Batch for sets that scan their words: the planned predicates of all queries are combined into
+// one BatchPredicate and the set makes a single pass over its words for the whole batch. Counts
+// the set already knows, see CountCache, are left out of the pass.
+public class ScanBatch<T extends WordSet<T>> extends Batch<T> {
+    private final Function<T, PlannedPredicate> predicate;
+    private final ToIntFunction<T> limit;
+    private final ToIntFunction<T> knownCount;
+    private final BiFunction<BatchPredicate, List<T>, BatchPredicate.Scan> scanner;
+
+    public ScanBatch(T root, Function<T, PlannedPredicate> predicate, ToIntFunction<T> limit,
+                     ToIntFunction<T> knownCount, BiFunction<BatchPredicate, List<T>, BatchPredicate.Scan> scanner) {
+        super(root);
+        this.predicate = predicate;
+        this.limit = limit;
+        this.knownCount = knownCount;
+        this.scanner = scanner;
+    }
+
+    @Override
+    public int[] counts() {
+        List<T> queries = queries();
+        int[] known = new int[queries.size()];
+        boolean scan = false;
+        for (int q = 0; q < known.length; q++) {
+            known[q] = knownCount.applyAsInt(queries.get(q));
+            scan |= known[q] == CountCache.UNKNOWN;
+        }
+        if (!scan) {
+            return known;
+        }
+        int[] counts = scanner.apply(batchPredicate(false, known), queries).counts();
+        for (int q = 0; q < known.length; q++) {
+            if (known[q] != CountCache.UNKNOWN) {
+                counts[q] = known[q];
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public List<List<String>> words() {
+        return scanner.apply(batchPredicate(true, null), queries()).words();
+    }
+
+    // Queries with a known count get a limit of 0, the pass skips them.
+    private BatchPredicate batchPredicate(boolean collect, int[] known) {
+        List<T> queries = queries();
+        List<PlannedPredicate> predicates = new ArrayList<>(queries.size());
+        int[] limits = new int[queries.size()];
+        for (int q = 0; q < limits.length; q++) {
+            predicates.add(predicate.apply(queries.get(q)));
+            limits[q] = known != null && known[q] != CountCache.UNKNOWN ? 0 : limit.applyAsInt(queries.get(q));
+        }
+        return new BatchPredicate(predicates, limits, collect);
+    }
+}
@@ -2,13 +2,50 @@ package com.wordalytica.wordset.predicate;
 
 public class StartingWithPredicate extends AbstractPredicate {
     private final String value;
+    private final byte[] bytes;
 
     public StartingWithPredicate(String value) {
         this.value = value;
+        this.bytes = latin1(value);
+    }
+
+    String value() {
+        return value;
     }
 
     @Override
     public boolean matches(String word) {
         return word.startsWith(this.value);
     }
+
+    @Override
+    public boolean matches(byte[] bytes, int offset, int length) {
+        return this.bytes != null
+                && length >= this.bytes.length
+                && regionMatches(bytes, offset, this.bytes);
+    }
+
+    @Override
+    public double cost(WordStatistics statistics) {
+        return Math.max(1, value.length());
+    }
+
+    @Override
+    public double selectivity(WordStatistics statistics) {
+        double selectivity = 1;
+        for (int i = 0; i < value.length(); i++) {
+            selectivity *= statistics.charAt(value.charAt(i), i);
+        }
+        return selectivity;
+    }
+
+    @Override
+    public String cacheKey() {
+        return "startingWith-" + value;
+    }
+
+    @Override
+    public String toString() {
+        return "startingWith(\"" + value + "\")";
+    }
 }
@@ -0,0 +1,164 @@
+package com.wordalytica.wordset.predicate;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+
+// Load time statistics used by the QueryPlanner to estimate selectivities: a length histogram and,
+// for every letter, how many words contain it, have it at a given position or end with it.
+public class WordStatistics {
+    private static final int ALPHABET = 26;
+    private static final double UNKNOWN = 0.5;
+
+    private int size;
+    private long characters;
+    private int[] lengths = new int[16];
+    private int[][] charAt = new int[16][ALPHABET];
+    private final int[] containing = new int[ALPHABET];
+    private final int[] endingWith = new int[ALPHABET];
+
+    private WordStatistics() {
+    }
+
+    public static WordStatistics of(Iterator<String> words) {
+        WordStatistics statistics = new WordStatistics();
+        words.forEachRemaining(statistics::add);
+        return statistics;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeLong(characters);
+        out.writeInt(lengths.length);
+        for (int position = 0; position < lengths.length; position++) {
+            out.writeInt(lengths[position]);
+            for (int count : charAt[position]) {
+                out.writeInt(count);
+            }
+        }
+        for (int letter = 0; letter < ALPHABET; letter++) {
+            out.writeInt(containing[letter]);
+            out.writeInt(endingWith[letter]);
+        }
+    }
+
+    public static WordStatistics read(ByteBuffer in) {
+        WordStatistics statistics = new WordStatistics();
+        statistics.size = in.getInt();
+        statistics.characters = in.getLong();
+        int positions = in.getInt();
+        statistics.lengths = new int[positions];
+        statistics.charAt = new int[positions][ALPHABET];
+        for (int position = 0; position < positions; position++) {
+            statistics.lengths[position] = in.getInt();
+            for (int letter = 0; letter < ALPHABET; letter++) {
+                statistics.charAt[position][letter] = in.getInt();
+            }
+        }
+        for (int letter = 0; letter < ALPHABET; letter++) {
+            statistics.containing[letter] = in.getInt();
+            statistics.endingWith[letter] = in.getInt();
+        }
+        return statistics;
+    }
+
+    private void add(String word) {
+        int length = word.length();
+        if (length >= lengths.length) {
+            int grown = Math.max(length + 1, lengths.length * 2);
+            lengths = Arrays.copyOf(lengths, grown);
+            charAt = Arrays.copyOf(charAt, grown);
+            for (int position = 0; position < grown; position++) {
+                if (charAt[position] == null) {
+                    charAt[position] = new int[ALPHABET];
+                }
+            }
+        }
+        size++;
+        characters += length;
+        lengths[length]++;
+        boolean[] seen = new boolean[ALPHABET];
+        for (int position = 0; position < length; position++) {
+            int letter = word.charAt(position) - 'a';
+            if (letter < 0 || letter >= ALPHABET) {
+                continue;
+            }
+            charAt[position][letter]++;
+            if (!seen[letter]) {
+                seen[letter] = true;
+                containing[letter]++;
+            }
+        }
+        if (length > 0) {
+            int letter = word.charAt(length - 1) - 'a';
+            if (letter >= 0 && letter < ALPHABET) {
+                endingWith[letter]++;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double averageLength() {
+        return size == 0 ? 0 : (double) characters / size;
+    }
+
+    // Fraction of words with minLength <= length <= maxLength.
+    public double lengthBetween(int minLength, int maxLength) {
+        if (size == 0) {
+            return 0;
+        }
+        int count = 0;
+        for (int length = Math.max(0, minLength); length <= maxLength && length < lengths.length; length++) {
+            count += lengths[length];
+        }
+        return (double) count / size;
+    }
+
+    public double charAt(char c, int position) {
+        if (!isLetter(c)) {
+            return UNKNOWN;
+        }
+        if (size == 0 || position < 0 || position >= charAt.length) {
+            return 0;
+        }
+        return (double) charAt[position][c - 'a'] / size;
+    }
+
+    public double containing(char c) {
+        if (!isLetter(c)) {
+            return UNKNOWN;
+        }
+        return size == 0 ? 0 : (double) containing[c - 'a'] / size;
+    }
+
+    public double endingWith(char c) {
+        if (!isLetter(c)) {
+            return UNKNOWN;
+        }
+        return size == 0 ? 0 : (double) endingWith[c - 'a'] / size;
+    }
+
+    // Probability that a random character of a random word is c.
+    public double frequency(char c) {
+        if (!isLetter(c)) {
+            return UNKNOWN;
+        }
+        if (characters == 0) {
+            return 0;
+        }
+        long count = 0;
+        for (int[] position : charAt) {
+            count += position[c - 'a'];
+        }
+        return (double) count / characters;
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+}
@@ -0,0 +1,39 @@
+package com.wordalytica.wordset.score;
+
+// Letter values compiled into a primitive lookup, scoring neither lowercases nor allocates.
+final class LetterScorer implements Scorer {
+    private static final int ALPHABET = 26;
+
+    private final int[] values;
+
+    LetterScorer(int[] values) {
+        if (values.length != ALPHABET) {
+            throw new IllegalArgumentException("Expected " + ALPHABET + " letter values, got " + values.length);
+        }
+        this.values = values.clone();
+    }
+
+    @Override
+    public int score(String word) {
+        int score = 0;
+        for (int i = 0; i < word.length(); i++) {
+            score += value(word.charAt(i));
+        }
+        return score;
+    }
+
+    @Override
+    public int score(byte[] bytes, int offset, int length) {
+        int score = 0;
+        for (int i = offset; i < offset + length; i++) {
+            score += value((char) (bytes[i] & 0xFF));
+        }
+        return score;
+    }
+
+    // Setting 0x20 lowercases A to Z and maps no other character into a to z.
+    private int value(char c) {
+        int letter = (c | 0x20) - 'a';
+        return letter >= 0 && letter < ALPHABET ? values[letter] : 0;
+    }
+}
@@ -0,0 +1,22 @@
+package com.wordalytica.wordset.score;
+
+import java.nio.charset.StandardCharsets;
+
+// Integer score of a word, higher ranks first in WordSet.topK().
+public interface Scorer {
+    // Scrabble tile values, word sets keep a precomputed column of these scores.
+    Scorer SCRABBLE = letterValues(new int[]{
+            1, 3, 3, 2, 1, 4, 2, 4, 1, 8, 5, 1, 3, 1, 1, 3, 10, 1, 1, 1, 1, 4, 4, 8, 4, 10});
+
+    int score(String word);
+
+    // Same answer as score(String) for a word stored as Latin-1 bytes.
+    default int score(byte[] bytes, int offset, int length) {
+        return score(new String(bytes, offset, length, StandardCharsets.ISO_8859_1));
+    }
+
+    // Sum of the values of the letters a to z, in either case, other characters score 0.
+    static Scorer letterValues(int[] values) {
+        return new LetterScorer(values);
+    }
+}
@@ -0,0 +1,155 @@
+package com.wordalytica.wordset.score;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntBinaryOperator;
+
+// Bounded min-heap of the k best (id, score) pairs seen so far, offered while matches are found so
+// the rest never has to be kept. Among equal scores, ties decides which id ranks first. The root
+// is the worst entry kept, anything not beating it is rejected without touching the heap.
+public final class TopK {
+    private final int k;
+    private final IntBinaryOperator ties;
+    private int[] ids;
+    private int[] scores;
+    private int size;
+
+    // ties compares two ids with equal scores, negative when the first one ranks first.
+    public TopK(int k, IntBinaryOperator ties) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        this.k = k;
+        this.ties = ties;
+        this.ids = new int[Math.min(k, 16)];
+        this.scores = new int[ids.length];
+    }
+
+    public void offer(int id, int score) {
+        if (size < k) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, (int) Math.min(k, size * 2L));
+                scores = Arrays.copyOf(scores, ids.length);
+            }
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (k > 0 && worse(ids[0], scores[0], id, score)) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    public void offerAll(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ids[i], other.scores[i]);
+        }
+    }
+
+    // Best first.
+    public int[] ids() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> worse(ids[a], scores[a], ids[b], scores[b]) ? 1
+                : worse(ids[b], scores[b], ids[a], scores[a]) ? -1 : 0);
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = ids[order[i]];
+        }
+        return result;
+    }
+
+    // For sets without word ids: the best k words, ties broken alphabetically. Only words that make
+    // it into the current top k are kept.
+    public static List<String> of(Iterator<String> words, int k, Scorer scorer) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        PriorityQueue<Scored> heap = new PriorityQueue<>();
+        while (words.hasNext() && k > 0) {
+            String word = words.next();
+            int score = scorer.score(word);
+            if (heap.size() < k) {
+                heap.add(new Scored(word, score));
+            } else if (score >= heap.peek().score) {
+                Scored scored = new Scored(word, score);
+                if (scored.compareTo(heap.peek()) > 0) {
+                    heap.poll();
+                    heap.add(scored);
+                }
+            }
+        }
+        ArrayList<String> best = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            best.add(heap.poll().word);
+        }
+        Collections.reverse(best);
+        return best;
+    }
+
+    private boolean worse(int id, int score, int otherId, int otherScore) {
+        return score < otherScore || (score == otherScore && ties.applyAsInt(id, otherId) > 0);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(ids[i], scores[i], ids[parent], scores[parent])) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int worst = i;
+            for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                if (worse(ids[child], scores[child], ids[worst], scores[worst])) {
+                    worst = child;
+                }
+            }
+            if (worst == i) {
+                return;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        int score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+
+    // Orders worst first, so the head of a PriorityQueue is the entry to evict.
+    private static class Scored implements Comparable<Scored> {
+        private final String word;
+        private final int score;
+
+        Scored(String word, int score) {
+            this.word = word;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Scored other) {
+            if (score != other.score) {
+                return Integer.compare(score, other.score);
+            }
+            return other.word.compareTo(word);
+        }
+    }
+}
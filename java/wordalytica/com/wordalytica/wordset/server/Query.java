@@ -0,0 +1,91 @@
+package com.wordalytica.wordset.server;
+
+import com.wordalytica.wordset.core.WordSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// A chain of WordSet calls such as "startingWith(fish).notEndingWith(ing)". Arguments are taken
+// literally up to the matching closing parenthesis, so parentheses in them must be balanced, and
+// only the patterns of matchingRegex and matchingGlob may contain ','. Used for the requests of the
+// QueryServer and the lines of a benchmark query log.
+public class Query {
+    private final String text;
+    private final List<Function<WordSet<?>, WordSet<?>>> steps;
+
+    private Query(String text, List<Function<WordSet<?>, WordSet<?>>> steps) {
+        this.text = text;
+        this.steps = steps;
+    }
+
+    public static Query parse(String text) {
+        List<Function<WordSet<?>, WordSet<?>>> steps = new ArrayList<>();
+        int position = 0;
+        while (position < text.length()) {
+            int open = text.indexOf('(', position);
+            int close = open < 0 ? -1 : close(text, open);
+            if (open < 0 || close < 0) {
+                throw new IllegalArgumentException("Malformed query: " + text);
+            }
+            String method = text.substring(position, open);
+            String arguments = text.substring(open + 1, close);
+            steps.add(step(method, method.startsWith("matching") ? new String[]{arguments} : arguments.split(",", -1), text));
+            position = close + 1;
+            if (position < text.length() && text.charAt(position) != '.') {
+                throw new IllegalArgumentException("Malformed query: " + text);
+            }
+            position++;
+        }
+        return new Query(text, steps);
+    }
+
+    public WordSet<?> apply(WordSet<?> words) {
+        for (Function<WordSet<?>, WordSet<?>> step : steps) {
+            words = step.apply(words);
+        }
+        return words;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    // Index of the parenthesis closing the one at open, -1 when there is none.
+    private static int close(String text, int open) {
+        int depth = 0;
+        for (int i = open; i < text.length(); i++) {
+            if (text.charAt(i) == '(') {
+                depth++;
+            } else if (text.charAt(i) == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Function<WordSet<?>, WordSet<?>> step(String method, String[] arguments, String text) {
+        String value = arguments[0];
+        switch (method + "/" + arguments.length) {
+            case "longerThan/1": return words -> words.longerThan(Integer.parseInt(value));
+            case "containing/1": return words -> words.containing(value);
+            case "endingWith/1": return words -> words.endingWith(value);
+            case "startingWith/1": return words -> words.startingWith(value);
+            case "notEndingWith/1": return words -> words.notEndingWith(value);
+            case "notContaining/1": return words -> words.notContaining(value);
+            case "matching/1": return words -> words.matching(value);
+            case "matchingRegex/1": return words -> words.matchingRegex(value);
+            case "matchingGlob/1": return words -> words.matchingGlob(value);
+            case "anagramOf/1": return words -> words.anagramOf(value);
+            case "limit/1": return words -> words.limit(Integer.parseInt(value));
+            case "withCharAt/2": return words -> words.withCharAt(value.charAt(0), Integer.parseInt(arguments[1]));
+            case "withoutCharAt/2": return words -> words.withoutCharAt(value.charAt(0), Integer.parseInt(arguments[1]));
+            case "formableFrom/2": return words -> words.formableFrom(value, Integer.parseInt(arguments[1]));
+            case "withinEditDistance/2": return words -> words.withinEditDistance(value, Integer.parseInt(arguments[1]));
+            case "withinEditDistance/3":
+                return words -> words.withinEditDistance(value, Integer.parseInt(arguments[1]), Boolean.parseBoolean(arguments[2]));
+            default: throw new IllegalArgumentException("Unknown call " + method + " in query: " + text);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.wordalytica.wordset.server;
+
+import com.wordalytica.wordset.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends queries to a running QueryServer. With --load, replays a file of queries (one chain per
+// line, blank lines and lines starting with '#' skipped) from several threads at once and reports
+// the latencies seen by the clients.
+public class QueryClient {
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final URI base;
+
+    public QueryClient(int port) {
+        this.base = URI.create("http://127.0.0.1:" + port + "/");
+    }
+
+    // The answer of the server, IllegalArgumentException when it rejected the query.
+    public String query(String text) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(
+                HttpRequest.newBuilder(base.resolve("query?q=" + URLEncoder.encode(text, StandardCharsets.UTF_8))).build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        if (response.statusCode() != 200) {
+            throw new IllegalArgumentException(response.body().trim());
+        }
+        return response.body();
+    }
+
+    public String stats() throws IOException, InterruptedException {
+        return http.send(HttpRequest.newBuilder(base.resolve("stats")).build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)).body();
+    }
+
+    // Every thread takes the next query in turn until requests have been sent.
+    public LatencyHistogram load(List<String> queries, int threads, int requests) throws Exception {
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicInteger sent = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                clients.add(pool.submit(() -> {
+                    for (int i = sent.getAndIncrement(); i < requests; i = sent.getAndIncrement()) {
+                        long start = System.nanoTime();
+                        query(queries.get(i % queries.size()));
+                        latencies.record(System.nanoTime() - start);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : clients) {
+                client.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return latencies;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = QueryServer.DEFAULT_PORT;
+        int first = 0;
+        if (args.length > 1 && args[0].equals("--port")) {
+            port = Integer.parseInt(args[1]);
+            first = 2;
+        }
+        QueryClient client = new QueryClient(port);
+        if (args.length == first + 4 && args[first].equals("--load")) {
+            List<String> queries = new ArrayList<>();
+            for (String line : Files.readAllLines(Paths.get(args[first + 1]), StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    queries.add(line);
+                }
+            }
+            int threads = Integer.parseInt(args[first + 2]);
+            int requests = Integer.parseInt(args[first + 3]);
+            long start = System.nanoTime();
+            LatencyHistogram latencies = client.load(queries, threads, requests);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d requests on %d threads in %.2f s, %.0f requests/s  p50 %.1f us  p99 %.1f us  max %.1f us%n",
+                    requests, threads, seconds, requests / seconds, latencies.percentile(50) / 1e3,
+                    latencies.percentile(99) / 1e3, latencies.max() / 1e3);
+            System.out.print(client.stats());
+        } else if (args.length == first + 1) {
+            try {
+                System.out.print(client.query(args[first]));
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                System.exit(2);
+            }
+        } else {
+            System.err.println("Usage: QueryClient [--port port] <query> | [--port port] --load <query file> <threads> <requests>");
+            System.exit(1);
+        }
+    }
+}
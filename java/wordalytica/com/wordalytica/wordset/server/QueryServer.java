@@ -0,0 +1,194 @@
+package com.wordalytica.wordset.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.wordalytica.wordset.WordSetFactory;
+import com.wordalytica.wordset.core.WordSet;
+import com.wordalytica.wordset.metrics.LatencyHistogram;
+import com.wordalytica.wordset.metrics.QueryMetrics;
+import com.wordalytica.wordset.score.Scorer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Keeps one WordSet loaded and answers queries over HTTP on the loopback interface, so a lookup
+// costs a round trip instead of starting a JVM and loading the words. Endpoints:
+//   GET /query?q=<chain>  a Query chain, optionally ending in count(), topK(k) or words()
+//   GET /stats            request latencies and the QueryMetrics report
+//   GET /health           "ok" once the words are loaded
+// Answers are text/plain, a count or one word per line. Every exchange runs on its own virtual
+// thread where the JVM has them (Java 21 and later), on a cached thread pool otherwise.
+public class QueryServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 7878;
+
+    // Small answers would otherwise wait for the client's delayed ACK, about 40 ms per request.
+    static {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final WordSet<?> words;
+    private final HttpServer http;
+    private final ExecutorService executor;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    // Port 0 picks a free port, see port().
+    public QueryServer(WordSet<?> words, int port) throws IOException {
+        this.words = words;
+        this.executor = perRequestExecutor();
+        this.http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.setExecutor(executor);
+        http.createContext("/query", this::query);
+        http.createContext("/stats", exchange -> respond(exchange, 200, stats()));
+        http.createContext("/health", exchange -> respond(exchange, 200, "ok\n"));
+        http.start();
+    }
+
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    public LatencyHistogram latencies() {
+        return latencies;
+    }
+
+    @Override
+    public void close() {
+        http.stop(0);
+        executor.shutdown();
+    }
+
+    // The part of the chain before a terminal call is a Query, words() is implied when there is none.
+    public String answer(String text) {
+        String chain = text.trim();
+        String terminal = "words()";
+        int dot = chain.lastIndexOf('.', Math.max(0, chain.lastIndexOf('(')));
+        String last = chain.substring(dot + 1);
+        if (last.startsWith("count(") || last.startsWith("topK(") || last.startsWith("words(")) {
+            terminal = last;
+            chain = dot < 0 ? "" : chain.substring(0, dot);
+        }
+        WordSet<?> result = Query.parse(chain).apply(words);
+        if (terminal.equals("count()")) {
+            return result.count() + "\n";
+        }
+        if (terminal.equals("words()")) {
+            return lines(result.iterator());
+        }
+        if (terminal.startsWith("topK(") && terminal.endsWith(")")) {
+            int k = Integer.parseInt(terminal.substring("topK(".length(), terminal.length() - 1));
+            return lines(result.topK(k, Scorer.SCRABBLE).iterator());
+        }
+        throw new IllegalArgumentException("Malformed terminal call " + terminal + " in query: " + text);
+    }
+
+    // Every exchange is answered and closed, a failing query must not leave the client waiting.
+    private void query(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            String text = parameter(exchange.getRequestURI().getRawQuery(), "q");
+            if (text == null) {
+                respond(exchange, 400, "Missing parameter q\n");
+                return;
+            }
+            String answer;
+            try {
+                answer = answer(text);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                respond(exchange, 400, e.getMessage() + "\n");
+                return;
+            } catch (RuntimeException e) {
+                respond(exchange, 500, e + "\n");
+                return;
+            }
+            respond(exchange, 200, answer);
+        } finally {
+            exchange.close();
+            latencies.record(System.nanoTime() - start);
+        }
+    }
+
+    private String stats() {
+        return String.format("requests %d  p50 %.1f us  p99 %.1f us  max %.1f us%n",
+                latencies.count(), latencies.percentile(50) / 1e3, latencies.percentile(99) / 1e3, latencies.max() / 1e3)
+                + QueryMetrics.report();
+    }
+
+    private static String lines(Iterator<String> words) {
+        StringBuilder lines = new StringBuilder();
+        words.forEachRemaining(word -> lines.append(word).append('\n'));
+        return lines.toString();
+    }
+
+    private static String parameter(String rawQuery, String name) {
+        if (rawQuery == null) {
+            return null;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Looked up reflectively, the sources are compiled for Java 11.
+    private static ExecutorService perRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "wordalytica-query");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // A prebuilt index when the word list has one next to it, V2 over the word list otherwise.
+    static WordSet<?> load(Path words) throws IOException {
+        if (words.toString().endsWith(".idx")) {
+            return WordSetFactory.load(words);
+        }
+        Path index = words.resolveSibling(words.getFileName().toString().replaceFirst("\\.[^.]*$", "") + ".idx");
+        if (Files.exists(index)) {
+            return WordSetFactory.load(index);
+        }
+        return WordSetFactory.build(words, 2);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 2) {
+            System.err.println("Usage: QueryServer [port] [word list or index file]");
+            System.exit(1);
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Path path = Paths.get(args.length > 1 ? args[1] : "/lib/words.all");
+        long start = System.nanoTime();
+        WordSet<?> words = load(path);
+        QueryServer server = new QueryServer(words, port);
+        System.out.printf("Loaded %s in %d ms, listening on http://127.0.0.1:%d/query%n",
+                path, (System.nanoTime() - start) / 1_000_000, server.port());
+    }
+}
@@ -0,0 +1,99 @@
+package com.wordalytica.wordset.solver;
+
+// Wordle feedback packed into an int, one base-3 digit per position with position 0 as the least
+// significant digit: ABSENT, PRESENT (right letter, wrong position) or CORRECT. A letter repeated in
+// the guess is only marked PRESENT as often as it occurs in the unmatched rest of the answer, left
+// to right, the way the game colors it. Encoding allocates nothing.
+public final class Feedback {
+    public static final int ABSENT = 0;
+    public static final int PRESENT = 1;
+    public static final int CORRECT = 2;
+    // 3^MAX_LENGTH patterns, a histogram over all of them must stay small.
+    public static final int MAX_LENGTH = 10;
+
+    private Feedback() {
+    }
+
+    public static int pattern(String guess, String answer) {
+        int length = guess.length();
+        if (length != answer.length() || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Can't compare " + guess + " to " + answer);
+        }
+        int pattern = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            pattern = pattern * 3 + digit(guess, answer, i);
+        }
+        return pattern;
+    }
+
+    public static int digit(int pattern, int position) {
+        for (int i = 0; i < position; i++) {
+            pattern /= 3;
+        }
+        return pattern % 3;
+    }
+
+    // All positions CORRECT.
+    public static int solved(int length) {
+        return patterns(length) - 1;
+    }
+
+    public static int patterns(int length) {
+        int patterns = 1;
+        for (int i = 0; i < length; i++) {
+            patterns *= 3;
+        }
+        return patterns;
+    }
+
+    // Reads one of 'g' (CORRECT), 'y' (PRESENT) or 'b', '.', 'x' (ABSENT) per position, e.g. "gy..b".
+    public static int parse(String colors) {
+        if (colors.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Feedback too long: " + colors);
+        }
+        int pattern = 0;
+        for (int i = colors.length() - 1; i >= 0; i--) {
+            switch (Character.toLowerCase(colors.charAt(i))) {
+                case 'g': pattern = pattern * 3 + CORRECT; break;
+                case 'y': pattern = pattern * 3 + PRESENT; break;
+                case 'b':
+                case '.':
+                case 'x': pattern = pattern * 3 + ABSENT; break;
+                default: throw new IllegalArgumentException("Unknown feedback color in " + colors);
+            }
+        }
+        return pattern;
+    }
+
+    public static String toString(int pattern, int length) {
+        StringBuilder colors = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            colors.append("byg".charAt(pattern % 3));
+            pattern /= 3;
+        }
+        return colors.toString();
+    }
+
+    // Letter i is PRESENT when fewer earlier non-CORRECT positions of the guess used it up than the
+    // answer has unmatched copies of it.
+    private static int digit(String guess, String answer, int i) {
+        char c = guess.charAt(i);
+        if (c == answer.charAt(i)) {
+            return CORRECT;
+        }
+        int unmatched = 0;
+        int used = 0;
+        for (int j = 0; j < guess.length(); j++) {
+            if (guess.charAt(j) == answer.charAt(j)) {
+                continue;
+            }
+            if (answer.charAt(j) == c) {
+                unmatched++;
+            }
+            if (j < i && guess.charAt(j) == c) {
+                used++;
+            }
+        }
+        return used < unmatched ? PRESENT : ABSENT;
+    }
+}
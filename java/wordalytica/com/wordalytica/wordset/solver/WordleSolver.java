@@ -0,0 +1,270 @@
+package com.wordalytica.wordset.solver;
+
+import com.wordalytica.wordset.core.WordSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Ranks Wordle guesses by the expected information their feedback gives about the answer, the
+// entropy of the feedback patterns over the remaining candidate answers. Scoring every guess
+// against every candidate dominates, so guesses are split into chunks scored on a ForkJoinPool,
+// each chunk reusing one pattern histogram. For words of up to 5 letters every guess x answer
+// pattern fits a byte and can be precomputed once into a matrix instead.
+// Answers are referred to by id, their index in answers(), candidates are arrays of answer ids.
+public class WordleSolver {
+    static final int GUESSES_PER_TASK = 64;
+    private static final double LOG_2 = Math.log(2);
+
+    private final String[] guesses;
+    private final String[] answers;
+    private final int[] guessOfAnswer;
+    private final int length;
+    private final ForkJoinPool pool;
+    private final byte[] matrix;
+    private volatile int opening = -1;
+
+    // Answers are always allowed as guesses, even when guesses does not list them.
+    public WordleSolver(Collection<String> guesses, Collection<String> answers, ForkJoinPool pool, boolean precompute) {
+        LinkedHashSet<String> uniqueAnswers = new LinkedHashSet<>(answers);
+        LinkedHashSet<String> uniqueGuesses = new LinkedHashSet<>(uniqueAnswers);
+        uniqueGuesses.addAll(guesses);
+        this.answers = uniqueAnswers.toArray(new String[0]);
+        this.guesses = uniqueGuesses.toArray(new String[0]);
+        if (this.answers.length == 0) {
+            throw new IllegalArgumentException("No answers to solve for");
+        }
+        this.length = this.answers[0].length();
+        for (String guess : this.guesses) {
+            if (guess.length() != length || length > Feedback.MAX_LENGTH) {
+                throw new IllegalArgumentException("Words must all have the same length of at most "
+                        + Feedback.MAX_LENGTH + ": " + guess);
+            }
+        }
+        HashMap<String, Integer> guessIds = new HashMap<>();
+        for (int id = 0; id < this.guesses.length; id++) {
+            guessIds.put(this.guesses[id], id);
+        }
+        this.guessOfAnswer = new int[this.answers.length];
+        for (int id = 0; id < this.answers.length; id++) {
+            guessOfAnswer[id] = guessIds.get(this.answers[id]);
+        }
+        this.pool = pool;
+        this.matrix = precompute ? precompute() : null;
+    }
+
+    // Every word of the given length is both a possible guess and a possible answer.
+    public static WordleSolver of(WordSet<?> words, int length, ForkJoinPool pool, boolean precompute) {
+        ArrayList<String> list = new ArrayList<>();
+        words.matching("_".repeat(length)).iterator().forEachRemaining(list::add);
+        return new WordleSolver(list, list, pool, precompute);
+    }
+
+    // Narrows words down to the ones consistent with the feedback, as far as fluent calls can
+    // express it: a letter marked ABSENT that is CORRECT or PRESENT elsewhere in the guess only
+    // rules out its own position, exact letter counts are not enforced.
+    public static WordSet<?> constrain(WordSet<?> words, String guess, int pattern) {
+        WordSet<?> result = words.matching("_".repeat(guess.length()));
+        for (int i = 0; i < guess.length(); i++) {
+            char c = guess.charAt(i);
+            int digit = Feedback.digit(pattern, i);
+            if (digit == Feedback.CORRECT) {
+                result = result.withCharAt(c, i);
+            } else if (digit == Feedback.PRESENT) {
+                result = result.containing(String.valueOf(c)).withoutCharAt(c, i);
+            } else if (occursElsewhere(guess, pattern, c)) {
+                result = result.withoutCharAt(c, i);
+            } else {
+                result = result.notContaining(String.valueOf(c));
+            }
+        }
+        return result;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public String[] answers() {
+        return answers.clone();
+    }
+
+    public int[] allAnswers() {
+        int[] candidates = new int[answers.length];
+        for (int id = 0; id < candidates.length; id++) {
+            candidates[id] = id;
+        }
+        return candidates;
+    }
+
+    public String guess(int guess) {
+        return guesses[guess];
+    }
+
+    public int pattern(int guess, int answer) {
+        if (matrix != null) {
+            return matrix[guess * answers.length + answer] & 0xFF;
+        }
+        return Feedback.pattern(guesses[guess], answers[answer]);
+    }
+
+    // The candidates that would have produced pattern for guess.
+    public int[] filter(int[] candidates, int guess, int pattern) {
+        int[] remaining = new int[candidates.length];
+        int size = 0;
+        for (int answer : candidates) {
+            if (pattern(guess, answer) == pattern) {
+                remaining[size++] = answer;
+            }
+        }
+        return Arrays.copyOf(remaining, size);
+    }
+
+    // Expected information in bits of every guess, indexed by guess id.
+    public double[] score(int[] candidates) {
+        double[] scores = new double[guesses.length];
+        pool.invoke(new ScoreTask(candidates, scores, 0, guesses.length));
+        return scores;
+    }
+
+    // Among guesses giving the same information, one that may be the answer itself wins.
+    public int bestGuess(int[] candidates) {
+        if (candidates.length == 0) {
+            throw new IllegalArgumentException("No candidates left");
+        }
+        if (candidates.length <= 2) {
+            return guessOfAnswer[candidates[0]];
+        }
+        boolean whole = candidates.length == answers.length;
+        if (whole && opening >= 0) {
+            return opening;
+        }
+        boolean[] candidate = new boolean[guesses.length];
+        for (int answer : candidates) {
+            candidate[guessOfAnswer[answer]] = true;
+        }
+        double[] scores = score(candidates);
+        int best = 0;
+        for (int guess = 1; guess < guesses.length; guess++) {
+            if (scores[guess] > scores[best] || (scores[guess] == scores[best] && candidate[guess] && !candidate[best])) {
+                best = guess;
+            }
+        }
+        if (whole) {
+            opening = best;
+        }
+        return best;
+    }
+
+    // Plays a full game against answer and returns the number of guesses it took.
+    public int solve(String answer) {
+        if (answer.length() != length) {
+            throw new IllegalArgumentException("Answer must have " + length + " letters: " + answer);
+        }
+        int solved = Feedback.solved(length);
+        int[] candidates = allAnswers();
+        for (int turn = 1; ; turn++) {
+            int guess = bestGuess(candidates);
+            int pattern = Feedback.pattern(guesses[guess], answer);
+            if (pattern == solved) {
+                return turn;
+            }
+            candidates = filter(candidates, guess, pattern);
+        }
+    }
+
+    private static boolean occursElsewhere(String guess, int pattern, char c) {
+        for (int i = 0; i < guess.length(); i++) {
+            if (guess.charAt(i) == c && Feedback.digit(pattern, i) != Feedback.ABSENT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] precompute() {
+        if (Feedback.patterns(length) > 256) {
+            throw new IllegalArgumentException("Patterns can only be precomputed for words of at most 5 letters");
+        }
+        if ((long) guesses.length * answers.length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many words to precompute patterns for");
+        }
+        byte[] matrix = new byte[guesses.length * answers.length];
+        pool.invoke(new PrecomputeTask(matrix, 0, guesses.length));
+        return matrix;
+    }
+
+    private class ScoreTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] candidates;
+        private final double[] scores;
+        private final int fromGuess;
+        private final int toGuess;
+
+        ScoreTask(int[] candidates, double[] scores, int fromGuess, int toGuess) {
+            this.candidates = candidates;
+            this.scores = scores;
+            this.fromGuess = fromGuess;
+            this.toGuess = toGuess;
+        }
+
+        @Override
+        protected void compute() {
+            if (toGuess - fromGuess > GUESSES_PER_TASK) {
+                int middle = (fromGuess + toGuess) >>> 1;
+                invokeAll(new ScoreTask(candidates, scores, fromGuess, middle),
+                        new ScoreTask(candidates, scores, middle, toGuess));
+                return;
+            }
+            int[] histogram = new int[Feedback.patterns(length)];
+            double total = candidates.length;
+            for (int guess = fromGuess; guess < toGuess; guess++) {
+                Arrays.fill(histogram, 0);
+                for (int answer : candidates) {
+                    histogram[pattern(guess, answer)]++;
+                }
+                double entropy = 0;
+                for (int count : histogram) {
+                    if (count > 0) {
+                        double p = count / total;
+                        entropy -= p * Math.log(p);
+                    }
+                }
+                scores[guess] = entropy / LOG_2;
+            }
+        }
+    }
+
+    private class PrecomputeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] matrix;
+        private final int fromGuess;
+        private final int toGuess;
+
+        PrecomputeTask(byte[] matrix, int fromGuess, int toGuess) {
+            this.matrix = matrix;
+            this.fromGuess = fromGuess;
+            this.toGuess = toGuess;
+        }
+
+        @Override
+        protected void compute() {
+            if (toGuess - fromGuess > GUESSES_PER_TASK) {
+                int middle = (fromGuess + toGuess) >>> 1;
+                invokeAll(new PrecomputeTask(matrix, fromGuess, middle), new PrecomputeTask(matrix, middle, toGuess));
+                return;
+            }
+            for (int guess = fromGuess; guess < toGuess; guess++) {
+                for (int answer = 0; answer < answers.length; answer++) {
+                    matrix[guess * answers.length + answer] = (byte) Feedback.pattern(guesses[guess], answers[answer]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.wordalytica.wordset.storage;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// The de-duplicated words read by WordLoader and how fast they were read. Iterating creates one
+// String per packed word on demand, in file order, followed by the words that could not be packed
+// as Latin-1. The engines build their own storage from them, V1, V2 and V3 keep the unpackable ones
+// as Strings while the engines that only pack reject them.
+public final class LoadedWords implements Iterable<String> {
+    private final PackedWords words;
+    private final List<String> unpackable;
+    private final long bytes;
+    private final long nanos;
+
+    LoadedWords(PackedWords words, List<String> unpackable, long bytes, long nanos) {
+        this.words = words;
+        this.unpackable = Collections.unmodifiableList(unpackable);
+        this.bytes = bytes;
+        this.nanos = nanos;
+    }
+
+    public PackedWords words() {
+        return words;
+    }
+
+    // Words with characters beyond Latin-1, in file order.
+    public List<String> unpackable() {
+        return unpackable;
+    }
+
+    public int size() {
+        return words.size() + unpackable.size();
+    }
+
+    // Uncompressed size of the word list.
+    public long bytes() {
+        return bytes;
+    }
+
+    public long nanos() {
+        return nanos;
+    }
+
+    public double megabytesPerSecond() {
+        return nanos == 0 ? 0 : bytes / (1024.0 * 1024.0) / (nanos / 1e9);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int id;
+
+            @Override
+            public boolean hasNext() {
+                return id < size();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int next = id++;
+                return next < words.size() ? words.word(next) : unpackable.get(next - words.size());
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d words from %.1f MB in %d ms (%.1f MB/s)",
+                size(), bytes / (1024.0 * 1024.0), nanos / 1_000_000, megabytesPerSecond());
+    }
+}
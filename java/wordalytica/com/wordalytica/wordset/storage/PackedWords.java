@@ -0,0 +1,114 @@
+package com.wordalytica.wordset.storage;
+
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Every word as Latin-1 bytes in one contiguous byte[], each word followed by an END byte, plus a
+// table of start offsets. A word id is its index in the array it was built from. Strings are only
+// created by word(id), predicates can match the bytes in place. The offsets are a buffer so that a
+// mapped index file can serve them without copying.
+public final class PackedWords {
+    public static final byte END = 0;
+
+    private final byte[] bytes;
+    private final IntBuffer offsets;
+
+    public PackedWords(String[] words) {
+        int length = 0;
+        for (String word : words) {
+            length += word.length() + 1;
+        }
+        this.bytes = new byte[length];
+        int[] offsets = new int[words.length + 1];
+        int offset = 0;
+        for (int id = 0; id < words.length; id++) {
+            String word = words[id];
+            offsets[id] = offset;
+            if (!packable(word)) {
+                throw new IllegalArgumentException("Word is not packable as Latin-1: " + word);
+            }
+            for (int i = 0; i < word.length(); i++) {
+                bytes[offset++] = (byte) word.charAt(i);
+            }
+            bytes[offset++] = END;
+        }
+        offsets[words.length] = offset;
+        this.offsets = IntBuffer.wrap(offsets);
+    }
+
+    // Takes ownership of both, laid out as described above with one offset past the last word.
+    public PackedWords(byte[] bytes, IntBuffer offsets) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+    }
+
+    // Every character is Latin-1 and none is the END byte.
+    public static boolean packable(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c == END || c > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return offsets.limit() - 1;
+    }
+
+    public int offset(int id) {
+        return offsets.get(id);
+    }
+
+    public int length(int id) {
+        return offsets.get(id + 1) - offsets.get(id) - 1;
+    }
+
+    // Shared like bytes(), must not be modified.
+    public IntBuffer offsets() {
+        return offsets.duplicate();
+    }
+
+    // Shared with the indexes built on top of this storage, must not be modified.
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    public String word(int id) {
+        return new String(bytes, offsets.get(id), length(id), StandardCharsets.ISO_8859_1);
+    }
+
+    // Compares the words like String.compareTo, without creating them.
+    public int compare(int id, int otherId) {
+        int i = offsets.get(id);
+        int j = offsets.get(otherId);
+        while (true) {
+            int c = bytes[i++] & 0xFF;
+            int other = bytes[j++] & 0xFF;
+            if (c != other || c == END) {
+                return c - other;
+            }
+        }
+    }
+
+    // Id of the word whose bytes (or END terminator) contain the given position.
+    public int wordAt(int position) {
+        int low = 0;
+        int high = size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (offsets.get(middle) <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    // Offsets served from a mapped file are off-heap.
+    public long sizeInBytes() {
+        return 32 + bytes.length + (offsets.isDirect() ? 0 : offsets.capacity() * 4L);
+    }
+}
@@ -0,0 +1,308 @@
+package com.wordalytica.wordset.storage;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.GZIPInputStream;
+
+// Reads a word list, one word per line, straight into PackedWords. A plain file is memory mapped
+// and split into chunks at line breaks, every chunk is trimmed and ASCII-lowercased byte by byte
+// on its own ForkJoin task, then the chunks are de-duplicated into one PackedWords in file order.
+// No String is created, except for the rare line with non-ASCII bytes, which is decoded as UTF-8
+// and lowercased like before. A decoded word with characters beyond Latin-1 cannot be packed and
+// is kept as a String. Blank lines are the empty word, as they always were. Gzip and zstd
+// compressed lists are recognized by their magic bytes and decompressed into memory first, zstd
+// needs zstd-jni (com.github.luben.zstd) on the classpath.
+public final class WordLoader {
+    static final int CHUNK_SIZE = 1 << 18;
+    private static final int GZIP_MAGIC = 0x1F8B;
+    private static final int ZSTD_MAGIC = 0xFD2FB528;
+    private static final String ZSTD_STREAM = "com.github.luben.zstd.ZstdInputStream";
+
+    private WordLoader() {
+    }
+
+    public static LoadedWords load(Path file) throws IOException {
+        return load(file, ForkJoinPool.commonPool());
+    }
+
+    public static LoadedWords load(Path file, ForkJoinPool pool) throws IOException {
+        long start = System.nanoTime();
+        ByteBuffer text;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Word list is too large to map: " + file);
+            }
+            text = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (isGzip(text) || isZstd(text)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                return read(in, pool);
+            }
+        }
+        return load(text, pool, start);
+    }
+
+    // For word lists that are not files, e.g. classpath resources. The stream is read to the end
+    // but not closed.
+    public static LoadedWords read(InputStream in, ForkJoinPool pool) throws IOException {
+        long start = System.nanoTime();
+        BufferedInputStream buffered = new BufferedInputStream(in, 1 << 16);
+        buffered.mark(Integer.BYTES);
+        byte[] magic = new byte[Integer.BYTES];
+        ByteBuffer head = ByteBuffer.wrap(magic, 0, buffered.readNBytes(magic, 0, magic.length));
+        buffered.reset();
+        InputStream source = buffered;
+        if (isGzip(head)) {
+            source = new GZIPInputStream(buffered, 1 << 16);
+        } else if (isZstd(head)) {
+            source = zstd(buffered);
+        }
+        return load(ByteBuffer.wrap(source.readAllBytes()), pool, start);
+    }
+
+    private static LoadedWords load(ByteBuffer text, ForkJoinPool pool, long start) {
+        int[] bounds = chunkBounds(text);
+        Chunk[] chunks = new Chunk[bounds.length - 1];
+        pool.invoke(new NormalizeTask(text, bounds, chunks, 0, chunks.length));
+        LinkedHashSet<String> unpackable = new LinkedHashSet<>();
+        for (Chunk chunk : chunks) {
+            unpackable.addAll(chunk.unpackable);
+        }
+        return new LoadedWords(deduplicate(chunks), new ArrayList<>(unpackable), text.limit(), System.nanoTime() - start);
+    }
+
+    // Chunk i covers [bounds[i], bounds[i + 1]), every bound but the last follows a '\n'.
+    private static int[] chunkBounds(ByteBuffer text) {
+        int length = text.limit();
+        int[] bounds = new int[length / CHUNK_SIZE + 2];
+        int chunks = 0;
+        int from = 0;
+        while (from < length) {
+            bounds[chunks++] = from;
+            int to = Math.min(length, from + CHUNK_SIZE);
+            while (to < length && text.get(to - 1) != '\n') {
+                to++;
+            }
+            from = to;
+        }
+        bounds[chunks] = length;
+        return Arrays.copyOf(bounds, chunks + 1);
+    }
+
+    // Keeps the first occurrence of every word, in chunk order, with an open addressing table of ids.
+    private static PackedWords deduplicate(Chunk[] chunks) {
+        int total = 0;
+        int length = 0;
+        for (Chunk chunk : chunks) {
+            total += chunk.size;
+            length += chunk.length;
+        }
+        int[] table = new int[Integer.highestOneBit(Math.max(1, total) * 2) * 2];
+        Arrays.fill(table, -1);
+        int mask = table.length - 1;
+        byte[] bytes = new byte[length];
+        int[] offsets = new int[total + 1];
+        int size = 0;
+        int offset = 0;
+        for (Chunk chunk : chunks) {
+            for (int i = 0; i < chunk.size; i++) {
+                int from = chunk.offsets[i];
+                int wordLength = chunk.offsets[i + 1] - from - 1;
+                int slot = chunk.hashes[i] & mask;
+                while (table[slot] >= 0 && !equal(bytes, offsets[table[slot]], offsets[table[slot] + 1] - 1,
+                        chunk.bytes, from, wordLength)) {
+                    slot = (slot + 1) & mask;
+                }
+                if (table[slot] < 0) {
+                    table[slot] = size;
+                    System.arraycopy(chunk.bytes, from, bytes, offset, wordLength + 1);
+                    offsets[size++] = offset;
+                    offset += wordLength + 1;
+                    offsets[size] = offset;
+                }
+            }
+        }
+        return new PackedWords(Arrays.copyOf(bytes, offset), IntBuffer.wrap(Arrays.copyOf(offsets, size + 1)));
+    }
+
+    private static boolean equal(byte[] bytes, int from, int to, byte[] other, int otherFrom, int otherLength) {
+        if (to - from != otherLength) {
+            return false;
+        }
+        for (int i = 0; i < otherLength; i++) {
+            if (bytes[from + i] != other[otherFrom + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isGzip(ByteBuffer text) {
+        return text.limit() >= 2 && (text.getShort(0) & 0xFFFF) == GZIP_MAGIC;
+    }
+
+    // Zstd frames start with their magic number in little endian.
+    private static boolean isZstd(ByteBuffer text) {
+        return text.limit() >= 4 && Integer.reverseBytes(text.getInt(0)) == ZSTD_MAGIC;
+    }
+
+    private static InputStream zstd(InputStream in) throws IOException {
+        try {
+            return (InputStream) Class.forName(ZSTD_STREAM).getConstructor(InputStream.class).newInstance(in);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Reading a zstd compressed word list needs " + ZSTD_STREAM + " on the classpath", e);
+        }
+    }
+
+    // The normalized words of one chunk in PackedWords layout, with a hash of every word.
+    private static class Chunk {
+        final byte[] bytes;
+        int length;
+        int[] offsets = new int[64];
+        int[] hashes = new int[64];
+        int size;
+        final List<String> unpackable = new ArrayList<>(0);
+
+        Chunk(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        // Decoded words are copied in, in place normalization leaves room for them as they are
+        // never longer than their line.
+        void add(byte[] word, int from, int to) {
+            System.arraycopy(word, from, bytes, length, to - from);
+            end(hash(length, length + to - from), to - from);
+        }
+
+        // The word's bytes are already in place at the end of bytes.
+        void end(int hash, int wordLength) {
+            if (size + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                hashes = Arrays.copyOf(hashes, hashes.length * 2);
+            }
+            offsets[size] = length;
+            hashes[size++] = hash;
+            length += wordLength;
+            bytes[length++] = PackedWords.END;
+            offsets[size] = length;
+        }
+
+        int hash(int from, int to) {
+            int hash = 0;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    private static class NormalizeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer text;
+        private final int[] bounds;
+        private final Chunk[] chunks;
+        private final int fromChunk;
+        private final int toChunk;
+
+        NormalizeTask(ByteBuffer text, int[] bounds, Chunk[] chunks, int fromChunk, int toChunk) {
+            this.text = text;
+            this.bounds = bounds;
+            this.chunks = chunks;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                invokeAll(new NormalizeTask(text, bounds, chunks, fromChunk, middle),
+                        new NormalizeTask(text, bounds, chunks, middle, toChunk));
+                return;
+            }
+            for (int c = fromChunk; c < toChunk; c++) {
+                chunks[c] = normalize(bounds[c], bounds[c + 1]);
+            }
+        }
+
+        // Like String.trim() and toLowerCase() per line. The chunk is copied out of the text once and
+        // normalized in place, a word never takes more bytes than its line, so writes stay behind reads.
+        // One byte more is needed when the text does not end with a line break, the last word then
+        // has no '\n' for its END to take the place of.
+        private Chunk normalize(int from, int to) {
+            Chunk chunk = new Chunk(to - from + 1);
+            byte[] bytes = chunk.bytes;
+            text.duplicate().position(from).get(bytes, 0, to - from);
+            int line = 0;
+            while (line < to - from) {
+                int end = line;
+                while (end < to - from && bytes[end] != '\n') {
+                    end++;
+                }
+                int first = line;
+                int last = end;
+                while (first < last && (bytes[first] & 0xFF) <= ' ') {
+                    first++;
+                }
+                while (last > first && (bytes[last - 1] & 0xFF) <= ' ') {
+                    last--;
+                }
+                add(chunk, first, last);
+                line = end + 1;
+            }
+            return chunk;
+        }
+
+        private void add(Chunk chunk, int first, int last) {
+            byte[] bytes = chunk.bytes;
+            int high = 0;
+            for (int i = first; i < last; i++) {
+                high |= bytes[i];
+            }
+            if (high < 0) {
+                addDecoded(chunk, first, last);
+                return;
+            }
+            int offset = chunk.length;
+            int hash = 0;
+            for (int i = first; i < last; i++) {
+                int b = bytes[i];
+                if (b >= 'A' && b <= 'Z') {
+                    b |= 0x20;
+                }
+                bytes[offset++] = (byte) b;
+                hash = 31 * hash + b;
+            }
+            chunk.end(hash ^ (hash >>> 16), last - first);
+        }
+
+        private void addDecoded(Chunk chunk, int first, int last) {
+            String word = new String(chunk.bytes, first, last - first, StandardCharsets.UTF_8).toLowerCase().trim();
+            byte[] latin = new byte[word.length()];
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (c == PackedWords.END || c > 0xFF) {
+                    chunk.unpackable.add(word);
+                    return;
+                }
+                latin[i] = (byte) c;
+            }
+            chunk.add(latin, 0, latin.length);
+        }
+    }
+}
@@ -18,6 +18,19 @@ public class WordSetNoop implements WordSet<WordSetNoop> {
         return 0;
     }
 
+    @Override
+    public String explain() {
+        return "no words";
+    }
+
+    @Override
+    public WordSetNoop limit(int maxWords) {
+        if (maxWords < 0) {
+            throw new IllegalArgumentException("maxWords must not be negative: " + maxWords);
+        }
+        return this;
+    }
+
     @Override
     public WordSetNoop longerThan(int minLength) {
         return this;
@@ -62,4 +75,29 @@ public class WordSetNoop implements WordSet<WordSetNoop> {
     public WordSetNoop withoutCharAt(char c, int position) {
         return this;
     }
+
+    @Override
+    public WordSetNoop anagramOf(String value) {
+        return this;
+    }
+
+    @Override
+    public WordSetNoop formableFrom(String tiles, int blanks) {
+        return this;
+    }
+
+    @Override
+    public WordSetNoop matchingRegex(String regex) {
+        return this;
+    }
+
+    @Override
+    public WordSetNoop matchingGlob(String glob) {
+        return this;
+    }
+
+    @Override
+    public WordSetNoop withinEditDistance(String word, int maxEdits, boolean transpositions) {
+        return this;
+    }
 }
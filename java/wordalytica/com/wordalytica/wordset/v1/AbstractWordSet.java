@@ -1,81 +1,150 @@
 package com.wordalytica.wordset.v1;
 
+import com.wordalytica.wordset.core.Batch;
 import com.wordalytica.wordset.core.WordSet;
-import com.wordalytica.wordset.predicate.Predicate;
+import com.wordalytica.wordset.predicate.BatchPredicate;
+import com.wordalytica.wordset.predicate.CountCache;
+import com.wordalytica.wordset.predicate.PlannedPredicate;
 import com.wordalytica.wordset.predicate.PredicateBuilder;
+import com.wordalytica.wordset.predicate.QueryPlanner;
+import com.wordalytica.wordset.predicate.ScanBatch;
+import com.wordalytica.wordset.predicate.WordStatistics;
+
+import java.util.List;
 
 public abstract class AbstractWordSet<T extends WordSet<T>> implements WordSet<T> {
-    private PredicateBuilder predicateBuilder;
+    private final PredicateBuilder predicateBuilder;
+    private final int limit;
+    // Planned on first use and kept, a view never changes. Racing threads at most plan twice, the
+    // plan is immutable and safely published through its final fields.
+    private PlannedPredicate planned;
 
     public AbstractWordSet() {
-        this.predicateBuilder = new PredicateBuilder();
+        this(new PredicateBuilder(), Integer.MAX_VALUE);
     }
 
-    protected Predicate predicate() {
-        return predicate(false);
+    protected AbstractWordSet(PredicateBuilder predicateBuilder, int limit) {
+        this.predicateBuilder = predicateBuilder;
+        this.limit = limit;
     }
 
-    protected Predicate predicate(boolean reset) {
-        Predicate predicate = this.predicateBuilder.build();
-        PredicateBuilder builder = this.predicateBuilder;
-        if(reset) {
-            builder = new PredicateBuilder();
+    protected PlannedPredicate predicate() {
+        PlannedPredicate planned = this.planned;
+        if (planned == null) {
+            planned = QueryPlanner.plan(this.predicateBuilder.build(), statistics());
+            this.planned = planned;
         }
-        this.predicateBuilder = builder;
-        return predicate;
+        return planned;
+    }
+
+    protected int limit() {
+        return this.limit;
     }
 
+    @Override
+    public String explain() {
+        return predicate().explain();
+    }
+
+    // All queries of the batch are answered by one scan over this set's words.
+    @Override
+    public Batch<T> batch() {
+        return new ScanBatch<>(derive(this.predicateBuilder, this.limit),
+                query -> ((AbstractWordSet<?>) query).predicate(),
+                query -> ((AbstractWordSet<?>) query).limit(),
+                query -> ((AbstractWordSet<?>) query).knownCount(),
+                this::scan);
+    }
+
+    // One pass over every word for a batch of queries derived from this set, it may stop as soon
+    // as scan.isDone().
+    protected abstract BatchPredicate.Scan scan(BatchPredicate batch, List<T> queries);
+
+    // The exact count of this view when it is known without scanning, at most limit().
+    protected int knownCount() {
+        return CountCache.UNKNOWN;
+    }
+
+    @Override
+    public T limit(int maxWords) {
+        if (maxWords < 0) {
+            throw new IllegalArgumentException("maxWords must not be negative: " + maxWords);
+        }
+        return derive(this.predicateBuilder, Math.min(this.limit, maxWords));
+    }
+
+    // A view over the same words, filtered by the given predicates and limit instead of this set's.
+    protected abstract T derive(PredicateBuilder predicateBuilder, int limit);
+
+    protected abstract WordStatistics statistics();
+
     @Override
     public T longerThan(int minLength) {
-        this.predicateBuilder.longerThan(minLength);
-        return (T)this;
+        return derive(this.predicateBuilder.longerThan(minLength), this.limit);
     }
 
     @Override
     public T containing(String value) {
-        this.predicateBuilder.containing(value);
-        return (T)this;
+        return derive(this.predicateBuilder.containing(value), this.limit);
     }
 
     @Override
     public T endingWith(String value) {
-        this.predicateBuilder.endingWith(value);
-        return (T)this;
+        return derive(this.predicateBuilder.endingWith(value), this.limit);
     }
 
     @Override
     public T startingWith(String value) {
-        this.predicateBuilder.startingWith(value);
-        return (T)this;
+        return derive(this.predicateBuilder.startingWith(value), this.limit);
     }
 
     @Override
     public T notEndingWith(String value) {
-        this.predicateBuilder.notEndingWith(value);
-        return (T)this;
+        return derive(this.predicateBuilder.notEndingWith(value), this.limit);
     }
 
     @Override
     public T notContaining(String value) {
-        this.predicateBuilder.notContaining(value);
-        return (T)this;
+        return derive(this.predicateBuilder.notContaining(value), this.limit);
     }
 
     @Override
     public T matching(String placeHolded) {
-        this.predicateBuilder.matching(placeHolded);
-        return (T)this;
+        return derive(this.predicateBuilder.matching(placeHolded), this.limit);
     }
 
     @Override
     public T withCharAt(char c, int position) {
-        this.predicateBuilder.withCharAt(c, position);
-        return (T)this;
+        return derive(this.predicateBuilder.withCharAt(c, position), this.limit);
     }
 
     @Override
     public T withoutCharAt(char c, int position) {
-        this.predicateBuilder.withoutCharAt(c, position);
-        return (T)this;
+        return derive(this.predicateBuilder.withoutCharAt(c, position), this.limit);
+    }
+
+    @Override
+    public T anagramOf(String value) {
+        return derive(this.predicateBuilder.anagramOf(value), this.limit);
+    }
+
+    @Override
+    public T formableFrom(String tiles, int blanks) {
+        return derive(this.predicateBuilder.formableFrom(tiles, blanks), this.limit);
+    }
+
+    @Override
+    public T matchingRegex(String regex) {
+        return derive(this.predicateBuilder.matchingRegex(regex), this.limit);
+    }
+
+    @Override
+    public T matchingGlob(String glob) {
+        return derive(this.predicateBuilder.matchingGlob(glob), this.limit);
+    }
+
+    @Override
+    public T withinEditDistance(String word, int maxEdits, boolean transpositions) {
+        return derive(this.predicateBuilder.withinEditDistance(word, maxEdits, transpositions), this.limit);
     }
 }
@@ -1,33 +1,97 @@
-package com.wordalytica.wordset.v1;
-
-import com.wordalytica.wordset.predicate.Predicate;
-
-import java.util.HashSet;
-import java.util.Iterator;
-
-public class WordSetV1 extends AbstractWordSet {
-    private HashSet<String> words;
-
-    public WordSetV1(Iterator<String> words) {
-        this.words = new HashSet<>();
-        words.forEachRemaining(this.words::add);
-    }
-
-    @Override
-    public Iterator<String> iterator() {
-        return getFilteredWords().iterator();
-    }
-
-    @Override
-    public int count() {
-        return getFilteredWords().size();
-    }
-
-    private HashSet<String> getFilteredWords() {
-        HashSet<String> filteredWords = new HashSet<>(words);
-        Predicate predicate = this.predicate(true);
-        filteredWords.removeIf((s) -> !predicate.matches(s));
-        return filteredWords;
-    }
-}
-
+package com.wordalytica.wordset.v1;
+
+import com.wordalytica.wordset.metrics.Footprint;
+import com.wordalytica.wordset.metrics.Probe;
+import com.wordalytica.wordset.metrics.QueryMetrics;
+import com.wordalytica.wordset.predicate.BatchPredicate;
+import com.wordalytica.wordset.predicate.CountCache;
+import com.wordalytica.wordset.predicate.MatchingIterator;
+import com.wordalytica.wordset.predicate.PlannedPredicate;
+import com.wordalytica.wordset.predicate.PredicateBuilder;
+import com.wordalytica.wordset.predicate.WordStatistics;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+// The reference engine: every word is a String in a HashSet and each query scans all of them. It
+// stays unpacked on purpose, the engines that pack their words are checked and measured against it.
+// count() allocates only the HashSet's iterator (40 bytes), never anything per word.
+public class WordSetV1 extends AbstractWordSet<WordSetV1> {
+    private final HashSet<String> words;
+    private final WordStatistics statistics;
+    private final CountCache counts;
+
+    public WordSetV1(Iterator<String> words) {
+        this.words = new HashSet<>();
+        words.forEachRemaining(this.words::add);
+        this.statistics = WordStatistics.of(this.words.iterator());
+        this.counts = CountCache.of(this.words.iterator());
+        QueryMetrics.loaded("V1", this.words.size(), Footprint.hashSet(this.words));
+    }
+
+    private WordSetV1(WordSetV1 source, PredicateBuilder predicateBuilder, int limit) {
+        super(predicateBuilder, limit);
+        this.words = source.words;
+        this.statistics = source.statistics;
+        this.counts = source.counts;
+    }
+
+    @Override
+    protected WordSetV1 derive(PredicateBuilder predicateBuilder, int limit) {
+        return new WordSetV1(this, predicateBuilder, limit);
+    }
+
+    @Override
+    protected WordStatistics statistics() {
+        return this.statistics;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        PlannedPredicate predicate = this.predicate();
+        Probe probe = QueryMetrics.start("V1", "iterator", predicate, words.size());
+        return new MatchingIterator(words.iterator(), predicate, this.limit(), probe);
+    }
+
+    @Override
+    protected int knownCount() {
+        int cached = counts.count(this.predicate());
+        return cached == CountCache.UNKNOWN ? cached : Math.min(cached, this.limit());
+    }
+
+    @Override
+    protected BatchPredicate.Scan scan(BatchPredicate batch, List<WordSetV1> queries) {
+        BatchPredicate.Scan scan = batch.scan();
+        for (Iterator<String> iterator = words.iterator(); iterator.hasNext() && !scan.isDone(); ) {
+            scan.offer(iterator.next());
+        }
+        return scan;
+    }
+
+    @Override
+    public int count() {
+        PlannedPredicate predicate = this.predicate();
+        int limit = this.limit();
+        Probe probe = QueryMetrics.start("V1", "count", predicate, words.size());
+        int cached = counts.count(predicate);
+        if (cached != CountCache.UNKNOWN) {
+            probe.end(0, Math.min(cached, limit));
+            return Math.min(cached, limit);
+        }
+        int count = 0;
+        int scanned = 0;
+        for (String word : words) {
+            if (count == limit) {
+                break;
+            }
+            scanned++;
+            if (predicate.matches(word)) {
+                count++;
+            }
+        }
+        probe.end(scanned, count);
+        return count;
+    }
+}
+
@@ -0,0 +1,123 @@
+package com.wordalytica.wordset.v2;
+
+import com.wordalytica.wordset.cache.ClockCache;
+import com.wordalytica.wordset.metrics.Probe;
+import com.wordalytica.wordset.metrics.QueryMetrics;
+import com.wordalytica.wordset.predicate.ContainsPredicate;
+import com.wordalytica.wordset.predicate.WordStatistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+// Lazily built subsets of the words, each holding the ids of the words that contain every gram (a
+// letter or a bigram) of its key, in ascending order. Only combinations that queries actually
+// narrow on are built, each from the subset for its rarest grams minus the last one, so deeper
+// narrowing costs memory per distinct query instead of 26^depth. Lookups take no lock; once the
+// estimated size of the subsets exceeds the byte budget, those not read since the clock hand last
+// passed them are evicted (see ClockCache).
+class SubsetCache {
+    private static final long ENTRY_OVERHEAD = 64;
+
+    private final WordStore words;
+    private final WordStatistics statistics;
+    private final int maxDepth;
+    private final ClockCache<int[]> subsets;
+
+    SubsetCache(WordStore words, WordStatistics statistics, long maxBytes, int maxDepth) {
+        this.words = words;
+        this.statistics = statistics;
+        this.maxDepth = maxDepth;
+        // Every subset weighs more than a byte, a budget of zero or less still caches nothing.
+        this.subsets = new ClockCache<>(Math.max(1, maxBytes));
+    }
+
+    // Ids of the smallest known set of words that can still contain a word with all of the given
+    // grams, null when that is every word.
+    int[] candidates(Collection<String> grams) {
+        return candidates(narrowing(grams));
+    }
+
+    // Looking up a narrowing computed once, e.g. per query view, allocates nothing on a hit.
+    int[] candidates(Narrowing narrowing) {
+        return narrowing.grams.isEmpty() ? null : subset(narrowing.grams, narrowing.key);
+    }
+
+    Narrowing narrowing(Collection<String> grams) {
+        List<String> rarest = rarest(grams);
+        return new Narrowing(rarest, String.join(",", rarest));
+    }
+
+    // Grams with the same key have the same candidates.
+    String key(Collection<String> grams) {
+        return narrowing(grams).key;
+    }
+
+    private List<String> rarest(Collection<String> grams) {
+        if (grams.isEmpty() || maxDepth == 0) {
+            return Collections.emptyList();
+        }
+        List<String> rarest = new ArrayList<>(grams);
+        rarest.sort(Comparator.comparingDouble(this::selectivity).thenComparing(Comparator.naturalOrder()));
+        return rarest.subList(0, Math.min(maxDepth, rarest.size()));
+    }
+
+    long bytes() {
+        return subsets.weight();
+    }
+
+    private int[] subset(List<String> grams, String key) {
+        int[] subset = subsets.get(key);
+        if (subset != null) {
+            QueryMetrics.cacheHit("SubsetCache");
+            return subset;
+        }
+        QueryMetrics.cacheMiss("SubsetCache");
+        ContainsPredicate gram = new ContainsPredicate(grams.get(grams.size() - 1));
+        List<String> parent = grams.subList(0, grams.size() - 1);
+        int[] source = parent.isEmpty() ? null : subset(parent, String.join(",", parent));
+        int size = source == null ? words.size() : source.length;
+        // Building a subset is measured on its own, apart from the queries scanning it.
+        Probe probe = QueryMetrics.start("V2", "subset", key, words.size());
+        subset = new int[size];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            int id = source == null ? i : source[i];
+            if (words.matches(id, gram)) {
+                subset[length++] = id;
+            }
+        }
+        subset = Arrays.copyOf(subset, length);
+        probe.end(size, subset.length);
+        subsets.put(key, subset, sizeOf(key, subset));
+        return subset;
+    }
+
+    // The words themselves belong to the set, a subset only pays for its array of ids.
+    private static long sizeOf(String key, int[] subset) {
+        return ENTRY_OVERHEAD + key.length() * 2L + subset.length * 4L;
+    }
+
+    // The rarest grams a query narrows on, in order, and the key of their subset. None for all words.
+    static final class Narrowing {
+        final List<String> grams;
+        final String key;
+
+        private Narrowing(List<String> grams, String key) {
+            this.grams = grams;
+            this.key = key;
+        }
+    }
+
+    // Estimated fraction of the words containing gram, letters are treated as independent.
+    private double selectivity(String gram) {
+        double selectivity = statistics.containing(gram.charAt(0));
+        for (int i = 1; i < gram.length(); i++) {
+            selectivity *= statistics.frequency(gram.charAt(i));
+        }
+        return selectivity;
+    }
+}
@@ -1,39 +1,73 @@
 package com.wordalytica.wordset.v2;
 
+import com.wordalytica.wordset.core.Batch;
 import com.wordalytica.wordset.core.WordSet;
-import com.wordalytica.wordset.predicate.Predicate;
+import com.wordalytica.wordset.metrics.Probe;
+import com.wordalytica.wordset.metrics.QueryMetrics;
+import com.wordalytica.wordset.predicate.BatchPredicate;
+import com.wordalytica.wordset.predicate.CountCache;
+import com.wordalytica.wordset.predicate.PlannedPredicate;
 import com.wordalytica.wordset.predicate.PredicateBuilder;
+import com.wordalytica.wordset.predicate.QueryPlanner;
+import com.wordalytica.wordset.predicate.ScanBatch;
+import com.wordalytica.wordset.predicate.WordStatistics;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
 
+// Scans the words that can still match, narrowed by a cache of subsets for the grams a query needs.
+// The words are packed (see WordStore) and the subsets hold word ids, so a query only creates
+// Strings for the words it returns.
 public class WordSetV2 implements WordSet<WordSetV2> {
-    private final Integer CACHE_DEPTH = 1; // You better have a lot of memory to crank this value
-    private HashSet<String> allWords;
-    private PredicateBuilder predicateBuilder;
-    private HashMap<String, WordSetV2> cache = new HashMap<>();
-    private String charactersUsed = "";
+    private static final long DEFAULT_CACHE_BYTES = 32L << 20;
+    private static final int DEFAULT_CACHE_DEPTH = 2;
+
+    private final WordStore allWords;
+    private final PredicateBuilder predicateBuilder;
+    private final SubsetCache cache;
+    // Letters and bigrams every matching word must contain, the cache narrows on the rarest of them.
+    private final TreeSet<String> gramsUsed;
+    private final WordStatistics statistics;
+    private final CountCache counts;
+    private final int limit;
+    // Computed on first use and kept, a view never changes. Racing threads at most compute them
+    // twice, both are immutable and safely published through their final fields.
+    private PlannedPredicate planned;
+    private SubsetCache.Narrowing narrowing;
+
     public WordSetV2(Iterator<String> words) {
-        this(words, 0);
+        this(words, DEFAULT_CACHE_BYTES, DEFAULT_CACHE_DEPTH);
     }
 
-    public WordSetV2(Iterator<String> words, int depth) {
-        this.allWords = new HashSet<>();
+    // Subsets are built on first use for at most cacheDepth grams and kept within cacheBytes.
+    public WordSetV2(Iterator<String> words, long cacheBytes, int cacheDepth) {
+        LinkedHashSet<String> unique = new LinkedHashSet<>();
+        words.forEachRemaining(unique::add);
+        this.allWords = new WordStore(unique);
         this.predicateBuilder = new PredicateBuilder();
-        words.forEachRemaining(this.allWords::add);
-        if(depth < CACHE_DEPTH) {
-            populateCache(depth);
-        }
+        this.gramsUsed = new TreeSet<>();
+        this.limit = Integer.MAX_VALUE;
+        this.statistics = WordStatistics.of(unique.iterator());
+        this.counts = CountCache.of(unique.iterator());
+        this.cache = new SubsetCache(this.allWords, this.statistics, cacheBytes, cacheDepth);
+        QueryMetrics.loaded("V2", this.allWords.size(), this.allWords.sizeInBytes());
     }
 
-    private void populateCache(Integer currentDepth) {
-        char[] alphabet = "abcdefghijklmnopqrstuvwxyz".toCharArray();
-        for (char c : alphabet) {
-            cache.put(
-                    String.valueOf(c),
-                    new WordSetV2(this.containing(String.valueOf(c)).iterator(false), currentDepth + 1));
-        }
+    // Views share the words and the cache, the words are never modified once the root set is built.
+    private WordSetV2(WordSetV2 source, PredicateBuilder predicateBuilder, TreeSet<String> gramsUsed, int limit) {
+        this.allWords = source.allWords;
+        this.cache = source.cache;
+        this.statistics = source.statistics;
+        this.counts = source.counts;
+        this.predicateBuilder = predicateBuilder;
+        this.gramsUsed = gramsUsed;
+        this.limit = limit;
     }
 
     @Override
@@ -42,118 +76,238 @@ public class WordSetV2 implements WordSet<WordSetV2> {
     }
 
     public Iterator<String> iterator(Boolean useCache) {
-        return getFilteredWords(useCache).iterator();
+        PlannedPredicate predicate = this.predicate();
+        Probe probe = QueryMetrics.start("V2", "iterator", predicate, allWords.size());
+        return new MatchIterator(getCandidateWords(useCache), predicate, this.limit, probe);
     }
 
     @Override
     public int count() {
-        return getFilteredWords(true).size();
+        PlannedPredicate predicate = this.predicate();
+        Probe probe = QueryMetrics.start("V2", "count", predicate, allWords.size());
+        int cached = counts.count(predicate);
+        if (cached != CountCache.UNKNOWN) {
+            probe.end(0, Math.min(cached, this.limit));
+            return Math.min(cached, this.limit);
+        }
+        int[] ids = getCandidateWords(true);
+        int size = ids == null ? allWords.size() : ids.length;
+        int count = 0;
+        int scanned = 0;
+        for (int i = 0; i < size && count < this.limit; i++) {
+            scanned++;
+            if (allWords.matches(ids == null ? i : ids[i], predicate)) {
+                count++;
+            }
+        }
+        probe.end(scanned, count);
+        return count;
+    }
+
+    @Override
+    public WordSetV2 limit(int maxWords) {
+        if (maxWords < 0) {
+            throw new IllegalArgumentException("maxWords must not be negative: " + maxWords);
+        }
+        return new WordSetV2(this, this.predicateBuilder, this.gramsUsed, Math.min(this.limit, maxWords));
     }
 
     @Override
     public WordSetV2 longerThan(int minLength) {
-        this.predicateBuilder.longerThan(minLength);
-        return this;
+        return new WordSetV2(this, this.predicateBuilder.longerThan(minLength), this.gramsUsed, this.limit);
     }
 
     @Override
     public WordSetV2 containing(String value) {
-        this.predicateBuilder.containing(value);
-        this.charactersUsed += value;
-        return this;
+        return new WordSetV2(this, this.predicateBuilder.containing(value), withGrams(value), this.limit);
     }
 
     @Override
     public WordSetV2 endingWith(String value) {
-        this.predicateBuilder.endingWith(value);
-        this.charactersUsed += value;
-        return this;
+        return new WordSetV2(this, this.predicateBuilder.endingWith(value), withGrams(value), this.limit);
     }
 
     @Override
     public WordSetV2 startingWith(String value) {
-        this.predicateBuilder.startingWith(value);
-        this.charactersUsed += value;
-        return this;
+        return new WordSetV2(this, this.predicateBuilder.startingWith(value), withGrams(value), this.limit);
     }
 
     @Override
     public WordSetV2 notEndingWith(String value) {
-        this.predicateBuilder.notEndingWith(value);
-        return this;
+        return new WordSetV2(this, this.predicateBuilder.notEndingWith(value), this.gramsUsed, this.limit);
     }
 
     @Override
     public WordSetV2 notContaining(String value) {
-        this.predicateBuilder.notContaining(value);
-        return this;
+        return new WordSetV2(this, this.predicateBuilder.notContaining(value), this.gramsUsed, this.limit);
     }
 
     @Override
     public WordSetV2 matching(String placeHolded) {
-        this.predicateBuilder.matching(placeHolded);
-        this.charactersUsed += placeHolded;
-        return this;
+        return new WordSetV2(this, this.predicateBuilder.matching(placeHolded), withGrams(placeHolded), this.limit);
     }
 
     @Override
     public WordSetV2 withCharAt(char c, int position) {
-        this.predicateBuilder.withCharAt(c, position);
-        return this;
+        return new WordSetV2(this, this.predicateBuilder.withCharAt(c, position), withGrams(String.valueOf(c)), this.limit);
     }
 
     @Override
     public WordSetV2 withoutCharAt(char c, int position) {
-        this.predicateBuilder.withoutCharAt(c, position);
-        return this;
+        return new WordSetV2(this, this.predicateBuilder.withoutCharAt(c, position), this.gramsUsed, this.limit);
     }
 
-    protected Predicate predicate(boolean reset) {
-        Predicate predicate = this.predicateBuilder.build();
-        PredicateBuilder builder = this.predicateBuilder;
-        if(reset) {
-            builder = new PredicateBuilder();
-            this.charactersUsed = "";
+    // Every letter of value is required, but not next to each other, so only single letters narrow.
+    @Override
+    public WordSetV2 anagramOf(String value) {
+        TreeSet<String> grams = new TreeSet<>(this.gramsUsed);
+        for (char c : value.toCharArray()) {
+            grams.add(String.valueOf(c));
         }
-        this.predicateBuilder = builder;
-        return predicate;
+        return new WordSetV2(this, this.predicateBuilder.anagramOf(value), grams, this.limit);
     }
 
-    private HashSet<String> getFilteredWords(Boolean useCache) {
-        HashSet<String> filteredWords;
-        if(!useCache) {
-            filteredWords = new HashSet<>(this.allWords);
+    @Override
+    public WordSetV2 formableFrom(String tiles, int blanks) {
+        return new WordSetV2(this, this.predicateBuilder.formableFrom(tiles, blanks), this.gramsUsed, this.limit);
+    }
+
+    @Override
+    public WordSetV2 matchingRegex(String regex) {
+        return new WordSetV2(this, this.predicateBuilder.matchingRegex(regex), this.gramsUsed, this.limit);
+    }
+
+    @Override
+    public WordSetV2 matchingGlob(String glob) {
+        return new WordSetV2(this, this.predicateBuilder.matchingGlob(glob), this.gramsUsed, this.limit);
+    }
+
+    @Override
+    public WordSetV2 withinEditDistance(String word, int maxEdits, boolean transpositions) {
+        return new WordSetV2(this, this.predicateBuilder.withinEditDistance(word, maxEdits, transpositions), this.gramsUsed, this.limit);
+    }
+
+    // Queries that would scan the same cached subset share one pass over it.
+    @Override
+    public Batch<WordSetV2> batch() {
+        return new ScanBatch<>(new WordSetV2(this, this.predicateBuilder, this.gramsUsed, this.limit),
+                WordSetV2::predicate,
+                query -> query.limit,
+                WordSetV2::knownCount,
+                this::scan);
+    }
+
+    private int knownCount() {
+        int cached = counts.count(this.predicate());
+        return cached == CountCache.UNKNOWN ? cached : Math.min(cached, this.limit);
+    }
+
+    private BatchPredicate.Scan scan(BatchPredicate batch, List<WordSetV2> queries) {
+        Map<String, List<Integer>> bySubset = new LinkedHashMap<>();
+        for (int q = 0; q < queries.size(); q++) {
+            bySubset.computeIfAbsent(cache.key(queries.get(q).gramsUsed), key -> new ArrayList<>()).add(q);
         }
-        else {
-            filteredWords = new HashSet<>(findReducedWordList(this.cache, this.charactersUsed));
+        BatchPredicate.Scan scan = batch.scan();
+        for (List<Integer> group : bySubset.values()) {
+            int[] only = group.stream().mapToInt(Integer::intValue).toArray();
+            int[] ids = cache.candidates(queries.get(only[0]).gramsUsed);
+            int size = ids == null ? allWords.size() : ids.length;
+            for (int i = 0; i < size && !scan.isDone(); i++) {
+                allWords.offer(scan, ids == null ? i : ids[i], only);
+            }
         }
-        Predicate predicate = this.predicate(true);
-        filteredWords.removeIf((s) -> !predicate.matches(s));
-        return filteredWords;
+        return scan;
     }
 
-    private HashSet<String> findReducedWordList(HashMap<String, WordSetV2> cache, String charactersUsed) {
-        HashSet<Character> charSet = new HashSet<Character>();
-        for (char c : charactersUsed.toCharArray()) {
-            charSet.add(c);
+    protected PlannedPredicate predicate() {
+        PlannedPredicate planned = this.planned;
+        if (planned == null) {
+            planned = QueryPlanner.plan(this.predicateBuilder.build(), this.statistics);
+            this.planned = planned;
         }
-        // Remove placeholded values
-        charSet.remove('_');
-        charSet.remove('?');
+        return planned;
+    }
 
-        return findReducedWordList(cache, charSet, 0);
+    @Override
+    public String explain() {
+        return predicate().explain();
     }
 
-    private HashSet<String> findReducedWordList(HashMap<String, WordSetV2> cache, HashSet<Character> charSet, int depth) {
-        if(charSet.size() == 0 || depth >= this.CACHE_DEPTH) {
-            return this.allWords;
+    // Ids of the words to scan, null for every word. The cached subsets are only read, matches are
+    // filtered from them lazily instead of copied first.
+    private int[] getCandidateWords(Boolean useCache) {
+        if(!useCache) {
+            return null;
         }
+        SubsetCache.Narrowing narrowing = this.narrowing;
+        if (narrowing == null) {
+            narrowing = cache.narrowing(this.gramsUsed);
+            this.narrowing = narrowing;
+        }
+        return this.cache.candidates(narrowing);
+    }
 
-        Character nextChar = charSet.iterator().next();
-        charSet.remove(nextChar);
-
-        WordSetV2 cacheValue = cache.get(String.valueOf(nextChar));
-        return cacheValue.findReducedWordList(cacheValue.cache, charSet, depth + 1);
+    // Runs of placeholders split a matching() pattern, every other value is one run.
+    private TreeSet<String> withGrams(String value) {
+        TreeSet<String> grams = new TreeSet<>(this.gramsUsed);
+        for (String run : value.split("[_?]+")) {
+            for (int i = 0; i < run.length(); i++) {
+                grams.add(run.substring(i, i + 1));
+                if (i + 1 < run.length()) {
+                    grams.add(run.substring(i, i + 2));
+                }
+            }
+        }
+        return grams;
     }
-}
 
+    // Like MatchingIterator, but over word ids, so only the matches become Strings.
+    private class MatchIterator implements Iterator<String> {
+        private final int[] ids;
+        private final int size;
+        private final PlannedPredicate predicate;
+        private final Probe probe;
+        private int remaining;
+        private int next;
+        private int matched;
+        private boolean found;
+        private boolean ended;
+
+        MatchIterator(int[] ids, PlannedPredicate predicate, int limit, Probe probe) {
+            this.ids = ids;
+            this.size = ids == null ? allWords.size() : ids.length;
+            this.predicate = predicate;
+            this.remaining = limit;
+            this.probe = probe;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!found && remaining > 0 && next < size) {
+                if (allWords.matches(ids == null ? next : ids[next], predicate)) {
+                    found = true;
+                    matched++;
+                } else {
+                    next++;
+                }
+            }
+            if (!found && !ended) {
+                ended = true;
+                probe.end(next, matched);
+            }
+            return found;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            found = false;
+            remaining--;
+            int id = ids == null ? next : ids[next];
+            next++;
+            return allWords.word(id);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.wordalytica.wordset.v2;
+
+import com.wordalytica.wordset.metrics.Footprint;
+import com.wordalytica.wordset.predicate.BatchPredicate;
+import com.wordalytica.wordset.predicate.Predicate;
+import com.wordalytica.wordset.storage.PackedWords;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// The words of a V2 set. Latin-1 words are packed into one byte[] and matched in place, the few
+// that are not (see PackedWords.packable) are kept as Strings. Ids number the packed words first,
+// in the order given, then the others.
+final class WordStore {
+    private final PackedWords packed;
+    private final String[] others;
+
+    WordStore(Collection<String> words) {
+        List<String> packable = new ArrayList<>(words.size());
+        List<String> others = new ArrayList<>(0);
+        for (String word : words) {
+            (PackedWords.packable(word) ? packable : others).add(word);
+        }
+        this.packed = new PackedWords(packable.toArray(new String[0]));
+        this.others = others.toArray(new String[0]);
+    }
+
+    int size() {
+        return packed.size() + others.length;
+    }
+
+    boolean matches(int id, Predicate predicate) {
+        if (id < packed.size()) {
+            return predicate.matches(packed.bytes(), packed.offset(id), packed.length(id));
+        }
+        return predicate.matches(others[id - packed.size()]);
+    }
+
+    String word(int id) {
+        return id < packed.size() ? packed.word(id) : others[id - packed.size()];
+    }
+
+    void offer(BatchPredicate.Scan scan, int id, int[] only) {
+        if (id < packed.size()) {
+            scan.offer(packed.bytes(), packed.offset(id), packed.length(id), only);
+        } else {
+            scan.offer(others[id - packed.size()], only);
+        }
+    }
+
+    long sizeInBytes() {
+        long bytes = packed.sizeInBytes() + Footprint.ints(others.length);
+        for (String other : others) {
+            bytes += Footprint.string(other);
+        }
+        return bytes;
+    }
+}
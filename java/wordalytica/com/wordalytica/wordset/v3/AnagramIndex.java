@@ -0,0 +1,178 @@
+package com.wordalytica.wordset.v3;
+
+import com.wordalytica.wordset.storage.PackedWords;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Every word's signature, its letters in sorted order, kept sorted alongside the word's id. Anagrams
+// share a signature and so form one contiguous run, found by binary search. The words formable
+// from a set of tiles are the union of the runs of all sub-multisets of the tiles, which are few
+// for a rack of tiles, so no word has to be looked at that isn't formable. The signatures are
+// packed like PackedWords, all three buffers are views of the mapping when read from a WordIndexFile.
+class AnagramIndex {
+    private static final int END = PackedWords.END;
+
+    private final ByteBuffer signatures;
+    private final IntBuffer offsets;
+    private final IntBuffer ids;
+
+    AnagramIndex(PackedWords words) {
+        String[] signatures = new String[words.size()];
+        Integer[] order = new Integer[words.size()];
+        for (int id = 0; id < words.size(); id++) {
+            signatures[id] = signature(words.word(id));
+            order[id] = id;
+        }
+        Arrays.sort(order, Comparator.comparing(id -> signatures[id]));
+        String[] sorted = new String[order.length];
+        int[] ids = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = signatures[order[i]];
+            ids[i] = order[i];
+        }
+        PackedWords packed = new PackedWords(sorted);
+        int[] offsets = new int[ids.length + 1];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = i < ids.length ? packed.offset(i) : packed.bytes().length;
+        }
+        this.signatures = ByteBuffer.wrap(packed.bytes());
+        this.offsets = IntBuffer.wrap(offsets);
+        this.ids = IntBuffer.wrap(ids);
+    }
+
+    private AnagramIndex(ByteBuffer signatures, IntBuffer offsets, IntBuffer ids) {
+        this.signatures = signatures;
+        this.offsets = offsets;
+        this.ids = ids;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(ids.limit());
+        out.writeInt(signatures.limit());
+        WordIndexFile.write(out, signatures);
+        WordIndexFile.write(out, offsets);
+        WordIndexFile.write(out, ids);
+    }
+
+    static AnagramIndex read(ByteBuffer in) {
+        int size = in.getInt();
+        ByteBuffer signatures = WordIndexFile.bytes(in, in.getInt());
+        IntBuffer offsets = WordIndexFile.ints(in, size + 1);
+        return new AnagramIndex(signatures, offsets, WordIndexFile.ints(in, size));
+    }
+
+    Bitmap anagramsOf(String value) {
+        char[] signature = value.toCharArray();
+        Arrays.sort(signature);
+        int from = bound(signature, signature.length, false);
+        int to = bound(signature, signature.length, true);
+        int[] anagrams = new int[to - from];
+        for (int i = from; i < to; i++) {
+            anagrams[i - from] = ids.get(i);
+        }
+        return Bitmap.of(anagrams);
+    }
+
+    // Number of distinct sub-multisets of tiles, each is one signature to look up.
+    static long subBags(String tiles) {
+        char[] sorted = tiles.toCharArray();
+        Arrays.sort(sorted);
+        long bags = 1;
+        for (int i = 0, run = 1; i < sorted.length; i++, run++) {
+            if (i + 1 == sorted.length || sorted[i + 1] != sorted[i]) {
+                bags *= run + 1;
+                run = 0;
+            }
+        }
+        return bags;
+    }
+
+    Bitmap formableFrom(String tiles) {
+        char[] sorted = tiles.toCharArray();
+        Arrays.sort(sorted);
+        IntList matches = new IntList();
+        collect(sorted, 0, new char[sorted.length], 0, matches);
+        return Bitmap.of(matches.toArray());
+    }
+
+    long sizeInBytes() {
+        return 48 + WordIndexFile.heapBytes(signatures, 1) + WordIndexFile.heapBytes(offsets, Integer.BYTES)
+                + WordIndexFile.heapBytes(ids, Integer.BYTES);
+    }
+
+    // Chooses how many copies (0..run) of the tile at from go into the signature, then moves past the run.
+    private void collect(char[] tiles, int from, char[] signature, int length, IntList matches) {
+        if (from == tiles.length) {
+            int start = bound(signature, length, false);
+            int end = bound(signature, length, true);
+            for (int i = start; i < end; i++) {
+                matches.add(ids.get(i));
+            }
+            return;
+        }
+        int next = from;
+        while (next < tiles.length && tiles[next] == tiles[from]) {
+            next++;
+        }
+        for (int copies = 0; copies <= next - from; copies++) {
+            for (int i = 0; i < copies; i++) {
+                signature[length + i] = tiles[from];
+            }
+            collect(tiles, next, signature, length + copies, matches);
+        }
+    }
+
+    // First entry whose signature compares greater than (upper) or not less than (!upper) signature.
+    private int bound(char[] signature, int length, boolean upper) {
+        int low = 0;
+        int high = ids.limit();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(signatures, offsets.get(middle), signature, length);
+            if (comparison < 0 || (upper && comparison == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // The END terminator sorts before every letter, like the end of a shorter String.
+    private static int compare(ByteBuffer bytes, int offset, char[] signature, int length) {
+        for (int i = 0; ; i++) {
+            int c = bytes.get(offset + i) & 0xFF;
+            int other = i < length ? signature[i] : END;
+            if (c != other || c == END) {
+                return c - other;
+            }
+        }
+    }
+
+    private static String signature(String word) {
+        char[] chars = word.toCharArray();
+        Arrays.sort(chars);
+        return new String(chars);
+    }
+
+    private static class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
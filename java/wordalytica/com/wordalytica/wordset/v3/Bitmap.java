@@ -0,0 +1,607 @@
+package com.wordalytica.wordset.v3;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+// Immutable compressed set of word ids. Ids are split into a 16 bit key and a 16 bit low part,
+// every key owns either a sorted CharBuffer of low parts (sparse) or a 65536 bit LongBuffer (dense),
+// whichever is smaller. Containers built in memory wrap arrays, those of a mapped WordIndexFile are
+// views of the mapping. They are only read with absolute gets and never mutated once built, so
+// results and threads share them freely.
+public final class Bitmap {
+    static final int ARRAY_LIMIT = 4096;
+    private static final int BITSET_WORDS = 1024;
+
+    public static final Bitmap EMPTY = new Bitmap(new char[0], new Buffer[0], 0);
+
+    private final char[] keys;
+    private final Buffer[] containers;
+    private final int cardinality;
+
+    private Bitmap(char[] keys, Buffer[] containers, int size) {
+        this(keys, containers, size, cardinality(containers, size));
+    }
+
+    // Takes the first size keys and containers.
+    private Bitmap(char[] keys, Buffer[] containers, int size, int cardinality) {
+        this.keys = size == keys.length ? keys : Arrays.copyOf(keys, size);
+        this.containers = size == containers.length ? containers : Arrays.copyOf(containers, size);
+        this.cardinality = cardinality;
+    }
+
+    // [from, to)
+    public static Bitmap range(int from, int to) {
+        if (from >= to) {
+            return EMPTY;
+        }
+        int firstKey = from >>> 16;
+        int lastKey = (to - 1) >>> 16;
+        char[] keys = new char[lastKey - firstKey + 1];
+        Buffer[] containers = new Buffer[keys.length];
+        for (int key = firstKey; key <= lastKey; key++) {
+            int low = key == firstKey ? from & 0xFFFF : 0;
+            int high = key == lastKey ? ((to - 1) & 0xFFFF) + 1 : 1 << 16;
+            keys[key - firstKey] = (char) key;
+            if (high - low <= ARRAY_LIMIT) {
+                char[] array = new char[high - low];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = (char) (low + i);
+                }
+                containers[key - firstKey] = CharBuffer.wrap(array);
+            } else {
+                long[] bits = new long[BITSET_WORDS];
+                for (int i = low; i < high; i++) {
+                    bits[i >>> 6] |= 1L << i;
+                }
+                containers[key - firstKey] = LongBuffer.wrap(bits);
+            }
+        }
+        return new Bitmap(keys, containers, keys.length);
+    }
+
+    public static Bitmap of(int[] ids) {
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        Builder builder = new Builder();
+        for (int id : sorted) {
+            builder.add(id);
+        }
+        return builder.build();
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public boolean contains(int id) {
+        int index = Arrays.binarySearch(keys, (char) (id >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        return containerContains(containers[index], (char) id);
+    }
+
+    // Whether any id in [from, to) is in the set.
+    public boolean intersects(int from, int to) {
+        if (from >= to) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, (char) (from >>> 16));
+        for (index = index < 0 ? -index - 1 : index; index < keys.length && keys[index] <= (to - 1) >>> 16; index++) {
+            int base = keys[index] << 16;
+            if (containerIntersects(containers[index], Math.max(from - base, 0), Math.min(to - base, 1 << 16))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Bitmap and(Bitmap other) {
+        int size = Math.min(keys.length, other.keys.length);
+        char[] outKeys = new char[size];
+        Buffer[] outContainers = new Buffer[size];
+        int out = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Buffer container = and(containers[i], other.containers[j]);
+                if (container != null) {
+                    outKeys[out] = keys[i];
+                    outContainers[out++] = container;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new Bitmap(outKeys, outContainers, out);
+    }
+
+    public Bitmap andNot(Bitmap other) {
+        char[] outKeys = new char[keys.length];
+        Buffer[] outContainers = new Buffer[keys.length];
+        int out = 0;
+        int j = 0;
+        for (int i = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Buffer container = containers[i];
+            if (j < other.keys.length && other.keys[j] == keys[i]) {
+                container = andNot(container, other.containers[j]);
+            }
+            if (container != null) {
+                outKeys[out] = keys[i];
+                outContainers[out++] = container;
+            }
+        }
+        return new Bitmap(outKeys, outContainers, out);
+    }
+
+    public Bitmap or(Bitmap other) {
+        char[] outKeys = new char[keys.length + other.keys.length];
+        Buffer[] outContainers = new Buffer[outKeys.length];
+        int out = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j >= other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                outKeys[out] = keys[i];
+                outContainers[out++] = containers[i++];
+            } else if (i >= keys.length || other.keys[j] < keys[i]) {
+                outKeys[out] = other.keys[j];
+                outContainers[out++] = other.containers[j++];
+            } else {
+                outKeys[out] = keys[i];
+                outContainers[out++] = or(containers[i++], other.containers[j++]);
+            }
+        }
+        return new Bitmap(outKeys, outContainers, out);
+    }
+
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            int base = keys[i] << 16;
+            Buffer container = containers[i];
+            if (container instanceof CharBuffer) {
+                CharBuffer array = (CharBuffer) container;
+                for (int j = 0; j < array.limit(); j++) {
+                    consumer.accept(base | array.get(j));
+                }
+            } else {
+                LongBuffer bits = (LongBuffer) container;
+                for (int w = 0; w < BITSET_WORDS; w++) {
+                    long word = bits.get(w);
+                    while (word != 0) {
+                        consumer.accept(base | (w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    public PrimitiveIterator.OfInt iterator() {
+        return new BitmapIterator();
+    }
+
+    // The cardinality is written too, so reading never has to count the bits of a mapped container.
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(keys.length);
+        out.writeInt(cardinality);
+        for (int i = 0; i < keys.length; i++) {
+            out.writeChar(keys[i]);
+            if (containers[i] instanceof CharBuffer) {
+                out.writeInt(containers[i].limit());
+                WordIndexFile.write(out, (CharBuffer) containers[i]);
+            } else {
+                out.writeInt(-1);
+                WordIndexFile.write(out, (LongBuffer) containers[i]);
+            }
+        }
+    }
+
+    static Bitmap read(ByteBuffer in) {
+        int size = in.getInt();
+        int cardinality = in.getInt();
+        char[] keys = new char[size];
+        Buffer[] containers = new Buffer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = in.getChar();
+            int length = in.getInt();
+            containers[i] = length < 0 ? WordIndexFile.longs(in, BITSET_WORDS) : WordIndexFile.chars(in, length);
+        }
+        return new Bitmap(keys, containers, size, cardinality);
+    }
+
+    public long sizeInBytes() {
+        long bytes = 16 + keys.length * 2L + containers.length * 8L;
+        for (Buffer container : containers) {
+            bytes += 48 + WordIndexFile.heapBytes(container, container instanceof CharBuffer ? Character.BYTES : Long.BYTES);
+        }
+        return bytes;
+    }
+
+    private static int cardinality(Buffer[] containers, int size) {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containerSize(containers[i]);
+        }
+        return cardinality;
+    }
+
+    private static int containerSize(Buffer container) {
+        if (container instanceof CharBuffer) {
+            return container.limit();
+        }
+        LongBuffer bits = (LongBuffer) container;
+        int size = 0;
+        for (int w = 0; w < BITSET_WORDS; w++) {
+            size += Long.bitCount(bits.get(w));
+        }
+        return size;
+    }
+
+    private static boolean containerContains(Buffer container, char low) {
+        if (container instanceof CharBuffer) {
+            return search((CharBuffer) container, low) >= 0;
+        }
+        return (((LongBuffer) container).get(low >>> 6) & (1L << low)) != 0;
+    }
+
+    // [from, to) of the low parts.
+    private static boolean containerIntersects(Buffer container, int from, int to) {
+        if (container instanceof CharBuffer) {
+            CharBuffer array = (CharBuffer) container;
+            int index = search(array, (char) from);
+            index = index < 0 ? -index - 1 : index;
+            return index < array.limit() && array.get(index) < to;
+        }
+        LongBuffer bits = (LongBuffer) container;
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        for (int w = first; w <= last; w++) {
+            long word = bits.get(w);
+            if (w == first) {
+                word &= -1L << from;
+            }
+            if (w == last) {
+                word &= -1L >>> (63 - ((to - 1) & 63));
+            }
+            if (word != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Buffer and(Buffer a, Buffer b) {
+        if (a instanceof CharBuffer && b instanceof CharBuffer) {
+            CharBuffer left = (CharBuffer) a;
+            CharBuffer right = (CharBuffer) b;
+            char[] out = new char[Math.min(left.limit(), right.limit())];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < left.limit() && j < right.limit()) {
+                char l = left.get(i);
+                char r = right.get(j);
+                if (l < r) {
+                    i++;
+                } else if (l > r) {
+                    j++;
+                } else {
+                    out[size++] = l;
+                    i++;
+                    j++;
+                }
+            }
+            return trim(out, size);
+        }
+        if (a instanceof LongBuffer && b instanceof LongBuffer) {
+            LongBuffer left = (LongBuffer) a;
+            LongBuffer right = (LongBuffer) b;
+            long[] out = new long[BITSET_WORDS];
+            for (int w = 0; w < BITSET_WORDS; w++) {
+                out[w] = left.get(w) & right.get(w);
+            }
+            return normalize(out);
+        }
+        CharBuffer array = (CharBuffer) (a instanceof CharBuffer ? a : b);
+        LongBuffer bits = (LongBuffer) (a instanceof CharBuffer ? b : a);
+        char[] out = new char[array.limit()];
+        int size = 0;
+        for (int i = 0; i < array.limit(); i++) {
+            char low = array.get(i);
+            if ((bits.get(low >>> 6) & (1L << low)) != 0) {
+                out[size++] = low;
+            }
+        }
+        return trim(out, size);
+    }
+
+    private static Buffer andNot(Buffer a, Buffer b) {
+        if (a instanceof CharBuffer) {
+            CharBuffer left = (CharBuffer) a;
+            char[] out = new char[left.limit()];
+            int size = 0;
+            if (b instanceof CharBuffer) {
+                CharBuffer right = (CharBuffer) b;
+                int j = 0;
+                for (int i = 0; i < left.limit(); i++) {
+                    char low = left.get(i);
+                    while (j < right.limit() && right.get(j) < low) {
+                        j++;
+                    }
+                    if (j >= right.limit() || right.get(j) != low) {
+                        out[size++] = low;
+                    }
+                }
+            } else {
+                LongBuffer bits = (LongBuffer) b;
+                for (int i = 0; i < left.limit(); i++) {
+                    char low = left.get(i);
+                    if ((bits.get(low >>> 6) & (1L << low)) == 0) {
+                        out[size++] = low;
+                    }
+                }
+            }
+            return trim(out, size);
+        }
+        long[] out = toBits(a);
+        if (b instanceof CharBuffer) {
+            CharBuffer right = (CharBuffer) b;
+            for (int i = 0; i < right.limit(); i++) {
+                char low = right.get(i);
+                out[low >>> 6] &= ~(1L << low);
+            }
+        } else {
+            LongBuffer right = (LongBuffer) b;
+            for (int w = 0; w < BITSET_WORDS; w++) {
+                out[w] &= ~right.get(w);
+            }
+        }
+        return normalize(out);
+    }
+
+    private static Buffer or(Buffer a, Buffer b) {
+        if (a instanceof CharBuffer && b instanceof CharBuffer) {
+            CharBuffer left = (CharBuffer) a;
+            CharBuffer right = (CharBuffer) b;
+            if (left.limit() + right.limit() <= ARRAY_LIMIT) {
+                char[] out = new char[left.limit() + right.limit()];
+                int size = 0;
+                int i = 0;
+                int j = 0;
+                while (i < left.limit() || j < right.limit()) {
+                    if (j >= right.limit() || (i < left.limit() && left.get(i) < right.get(j))) {
+                        out[size++] = left.get(i++);
+                    } else if (i >= left.limit() || right.get(j) < left.get(i)) {
+                        out[size++] = right.get(j++);
+                    } else {
+                        out[size++] = left.get(i++);
+                        j++;
+                    }
+                }
+                return trim(out, size);
+            }
+        }
+        long[] out = toBits(a);
+        if (b instanceof CharBuffer) {
+            CharBuffer right = (CharBuffer) b;
+            for (int i = 0; i < right.limit(); i++) {
+                char low = right.get(i);
+                out[low >>> 6] |= 1L << low;
+            }
+        } else {
+            LongBuffer right = (LongBuffer) b;
+            for (int w = 0; w < BITSET_WORDS; w++) {
+                out[w] |= right.get(w);
+            }
+        }
+        return normalize(out);
+    }
+
+    // A copy, containers are never modified in place.
+    private static long[] toBits(Buffer container) {
+        long[] bits = new long[BITSET_WORDS];
+        if (container instanceof LongBuffer) {
+            ((LongBuffer) container).duplicate().get(bits);
+            return bits;
+        }
+        CharBuffer array = (CharBuffer) container;
+        for (int i = 0; i < array.limit(); i++) {
+            char low = array.get(i);
+            bits[low >>> 6] |= 1L << low;
+        }
+        return bits;
+    }
+
+    // Like Arrays.binarySearch over the low parts.
+    private static int search(CharBuffer array, char low) {
+        int from = 0;
+        int to = array.limit() - 1;
+        while (from <= to) {
+            int middle = (from + to) >>> 1;
+            char value = array.get(middle);
+            if (value < low) {
+                from = middle + 1;
+            } else if (value > low) {
+                to = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(from + 1);
+    }
+
+    private static Buffer trim(char[] array, int size) {
+        if (size == 0) {
+            return null;
+        }
+        return CharBuffer.wrap(size == array.length ? array : Arrays.copyOf(array, size));
+    }
+
+    private static Buffer normalize(long[] bits) {
+        int size = 0;
+        for (long word : bits) {
+            size += Long.bitCount(word);
+        }
+        if (size == 0) {
+            return null;
+        }
+        if (size > ARRAY_LIMIT) {
+            return LongBuffer.wrap(bits);
+        }
+        char[] array = new char[size];
+        int out = 0;
+        for (int w = 0; w < BITSET_WORDS; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                array[out++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return CharBuffer.wrap(array);
+    }
+
+    // Ids must be added in ascending order; repeated ids are ignored.
+    public static final class Builder {
+        private char[] keys = new char[4];
+        private Buffer[] containers = new Buffer[4];
+        private int size;
+        private int currentKey = -1;
+        private char[] array = new char[16];
+        private int arraySize;
+        private long[] bits;
+        private int last = -1;
+
+        public Builder add(int id) {
+            if (id < last) {
+                throw new IllegalArgumentException("Ids must be added in ascending order: " + id + " after " + last);
+            }
+            if (id == last) {
+                return this;
+            }
+            last = id;
+            int key = id >>> 16;
+            if (key != currentKey) {
+                flush();
+                currentKey = key;
+            }
+            char low = (char) id;
+            if (bits != null) {
+                bits[low >>> 6] |= 1L << low;
+            } else if (arraySize == ARRAY_LIMIT) {
+                bits = toBits(CharBuffer.wrap(array, 0, arraySize));
+                bits[low >>> 6] |= 1L << low;
+            } else {
+                if (arraySize == array.length) {
+                    array = Arrays.copyOf(array, Math.min(ARRAY_LIMIT, array.length * 2));
+                }
+                array[arraySize++] = low;
+            }
+            return this;
+        }
+
+        public Bitmap build() {
+            flush();
+            currentKey = -1;
+            return new Bitmap(keys, containers, size);
+        }
+
+        private void flush() {
+            if (currentKey < 0 || (bits == null && arraySize == 0)) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+            }
+            keys[size] = (char) currentKey;
+            containers[size++] = bits != null ? LongBuffer.wrap(bits) : CharBuffer.wrap(Arrays.copyOf(array, arraySize));
+            bits = null;
+            arraySize = 0;
+        }
+    }
+
+    private final class BitmapIterator implements PrimitiveIterator.OfInt {
+        private int containerIndex = -1;
+        private int base;
+        private CharBuffer array;
+        private LongBuffer bits;
+        private int position;
+        private long word;
+        private int next = -1;
+
+        BitmapIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+            int current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            while (true) {
+                if (array != null && position < array.limit()) {
+                    next = base | array.get(position++);
+                    return;
+                }
+                if (bits != null) {
+                    while (word == 0 && position < BITSET_WORDS - 1) {
+                        word = bits.get(++position);
+                    }
+                    if (word != 0) {
+                        next = base | (position << 6) | Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                        return;
+                    }
+                }
+                if (++containerIndex >= keys.length) {
+                    next = -1;
+                    return;
+                }
+                base = keys[containerIndex] << 16;
+                Buffer container = containers[containerIndex];
+                if (container instanceof CharBuffer) {
+                    array = (CharBuffer) container;
+                    bits = null;
+                    position = 0;
+                } else {
+                    array = null;
+                    bits = (LongBuffer) container;
+                    position = 0;
+                    word = bits.get(0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.wordalytica.wordset.v3;
+
+import com.wordalytica.wordset.automaton.Automaton;
+import com.wordalytica.wordset.automaton.LevenshteinAutomaton;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+
+// Minimized directed acyclic word graph built incrementally from sorted input (Daciuk et al.).
+// Every node knows how many words it accepts, so the words sharing a prefix map to one contiguous
+// range of ordinals, found in time proportional to the prefix length. The arrays are buffers, they
+// wrap arrays when built and are views of the mapping when read from a WordIndexFile.
+class Dawg {
+    private final IntBuffer edgeStart;
+    private final CharBuffer labels;
+    private final IntBuffer targets;
+    private final IntBuffer counts;
+    // One byte per node, non-zero when a word ends there.
+    private final ByteBuffer terminal;
+
+    // Words must be given in ascending order, repeated words are ignored.
+    Dawg(Iterator<String> sortedWords) {
+        Builder builder = new Builder();
+        sortedWords.forEachRemaining(builder::add);
+        Node root = builder.finish();
+
+        ArrayList<Node> nodes = new ArrayList<>();
+        number(root, nodes);
+        int edges = 0;
+        for (Node node : nodes) {
+            edges += node.size;
+        }
+        int[] edgeStart = new int[nodes.size() + 1];
+        char[] labels = new char[edges];
+        int[] targets = new int[edges];
+        int[] counts = new int[nodes.size()];
+        byte[] terminal = new byte[nodes.size()];
+        int edge = 0;
+        for (int n = 0; n < nodes.size(); n++) {
+            Node node = nodes.get(n);
+            edgeStart[n] = edge;
+            terminal[n] = (byte) (node.terminal ? 1 : 0);
+            counts[n] = count(node);
+            for (int i = 0; i < node.size; i++) {
+                labels[edge] = node.labels[i];
+                targets[edge++] = node.targets[i].number;
+            }
+        }
+        edgeStart[nodes.size()] = edge;
+        this.edgeStart = IntBuffer.wrap(edgeStart);
+        this.labels = CharBuffer.wrap(labels);
+        this.targets = IntBuffer.wrap(targets);
+        this.counts = IntBuffer.wrap(counts);
+        this.terminal = ByteBuffer.wrap(terminal);
+    }
+
+    private Dawg(IntBuffer edgeStart, CharBuffer labels, IntBuffer targets, IntBuffer counts, ByteBuffer terminal) {
+        this.edgeStart = edgeStart;
+        this.labels = labels;
+        this.targets = targets;
+        this.counts = counts;
+        this.terminal = terminal;
+    }
+
+    int size() {
+        return counts.get(0);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(counts.limit());
+        out.writeInt(labels.limit());
+        WordIndexFile.write(out, edgeStart);
+        WordIndexFile.write(out, labels);
+        WordIndexFile.write(out, targets);
+        WordIndexFile.write(out, counts);
+        WordIndexFile.write(out, terminal);
+    }
+
+    static Dawg read(ByteBuffer in) {
+        int nodes = in.getInt();
+        int edges = in.getInt();
+        IntBuffer edgeStart = WordIndexFile.ints(in, nodes + 1);
+        CharBuffer labels = WordIndexFile.chars(in, edges);
+        IntBuffer targets = WordIndexFile.ints(in, edges);
+        IntBuffer counts = WordIndexFile.ints(in, nodes);
+        ByteBuffer terminal = WordIndexFile.bytes(in, nodes);
+        return new Dawg(edgeStart, labels, targets, counts, terminal);
+    }
+
+    // Ordinals [from, to) of the words starting with prefix, from == to when there are none.
+    int[] range(String prefix) {
+        int node = 0;
+        int ordinal = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (terminal.get(node) != 0) {
+                ordinal++;
+            }
+            int next = -1;
+            for (int e = edgeStart.get(node); e < edgeStart.get(node + 1); e++) {
+                if (labels.get(e) == c) {
+                    next = targets.get(e);
+                    break;
+                }
+                ordinal += counts.get(targets.get(e));
+            }
+            if (next < 0) {
+                return new int[]{0, 0};
+            }
+            node = next;
+        }
+        return new int[]{ordinal, ordinal + counts.get(node)};
+    }
+
+    // Ordinals of the words the automaton accepts. The graph is walked like a trie, but only along
+    // edges the automaton can follow, so a branch is left as soon as no word in it can match.
+    Bitmap accepted(Automaton automaton) {
+        Bitmap.Builder accepted = new Bitmap.Builder();
+        if (automaton.start() != Automaton.DEAD) {
+            accept(0, automaton.start(), 0, automaton, accepted);
+        }
+        return accepted.build();
+    }
+
+    private void accept(int node, int state, int ordinal, Automaton automaton, Bitmap.Builder accepted) {
+        if (automaton.acceptsAll(state)) {
+            for (int i = 0; i < counts.get(node); i++) {
+                accepted.add(ordinal + i);
+            }
+            return;
+        }
+        if (terminal.get(node) != 0) {
+            if (automaton.accepts(state)) {
+                accepted.add(ordinal);
+            }
+            ordinal++;
+        }
+        for (int e = edgeStart.get(node); e < edgeStart.get(node + 1); e++) {
+            int next = automaton.step(state, labels.get(e));
+            if (next != Automaton.DEAD) {
+                accept(targets.get(e), next, ordinal, automaton, accepted);
+            }
+            ordinal += counts.get(targets.get(e));
+        }
+    }
+
+    // Words in a subtree have consecutive ordinals, so a branch without any of the candidates is
+    // skipped as a whole. candidates is null when every word is one.
+    Bitmap withinEditDistance(LevenshteinAutomaton automaton, Bitmap candidates, int maxLength) {
+        Bitmap.Builder accepted = new Bitmap.Builder();
+        int[][] rows = new int[Math.min(automaton.maxLength(), maxLength) + 1][];
+        rows[0] = automaton.start();
+        for (int depth = 1; depth < rows.length; depth++) {
+            rows[depth] = new int[automaton.rowLength()];
+        }
+        near(0, 0, 0, 0, automaton, rows, candidates, accepted);
+        return accepted.build();
+    }
+
+    private void near(int node, int depth, int previous, int ordinal, LevenshteinAutomaton automaton,
+                      int[][] rows, Bitmap candidates, Bitmap.Builder accepted) {
+        if (candidates != null && !candidates.intersects(ordinal, ordinal + counts.get(node))) {
+            return;
+        }
+        if (terminal.get(node) != 0) {
+            if (automaton.accepts(rows[depth]) && (candidates == null || candidates.contains(ordinal))) {
+                accepted.add(ordinal);
+            }
+            ordinal++;
+        }
+        if (depth + 1 == rows.length) {
+            return;
+        }
+        for (int e = edgeStart.get(node); e < edgeStart.get(node + 1); e++) {
+            int[] before = depth == 0 ? null : rows[depth - 1];
+            char label = labels.get(e);
+            if (automaton.step(rows[depth], before, previous, label, rows[depth + 1]) <= automaton.maxEdits()) {
+                near(targets.get(e), depth + 1, label, ordinal, automaton, rows, candidates, accepted);
+            }
+            ordinal += counts.get(targets.get(e));
+        }
+    }
+
+    long sizeInBytes() {
+        return 96 + WordIndexFile.heapBytes(edgeStart, Integer.BYTES) + WordIndexFile.heapBytes(labels, Character.BYTES)
+                + WordIndexFile.heapBytes(targets, Integer.BYTES) + WordIndexFile.heapBytes(counts, Integer.BYTES)
+                + WordIndexFile.heapBytes(terminal, 1);
+    }
+
+    private static int count(Node node) {
+        if (node.count < 0) {
+            int count = node.terminal ? 1 : 0;
+            for (int i = 0; i < node.size; i++) {
+                count += count(node.targets[i]);
+            }
+            node.count = count;
+        }
+        return node.count;
+    }
+
+    private static void number(Node node, ArrayList<Node> nodes) {
+        node.number = nodes.size();
+        nodes.add(node);
+        for (int i = 0; i < node.size; i++) {
+            if (node.targets[i].number < 0) {
+                number(node.targets[i], nodes);
+            }
+        }
+    }
+
+    private static class Builder {
+        private final HashMap<Node, Node> register = new HashMap<>();
+        private final Node root = new Node();
+        private String previous = "";
+
+        void add(String word) {
+            int compare = word.compareTo(previous);
+            if (compare == 0 && root.size > 0) {
+                return;
+            }
+            if (compare < 0) {
+                throw new IllegalArgumentException("Words must be sorted: " + word + " after " + previous);
+            }
+            int common = 0;
+            Node node = root;
+            while (common < word.length() && common < previous.length()
+                    && word.charAt(common) == previous.charAt(common)) {
+                node = node.last();
+                common++;
+            }
+            if (node.size > 0) {
+                replaceOrRegister(node);
+            }
+            for (int i = common; i < word.length(); i++) {
+                Node child = new Node();
+                node.add(word.charAt(i), child);
+                node = child;
+            }
+            node.terminal = true;
+            previous = word;
+        }
+
+        Node finish() {
+            if (root.size > 0) {
+                replaceOrRegister(root);
+            }
+            return root;
+        }
+
+        private void replaceOrRegister(Node node) {
+            Node child = node.last();
+            if (child.size > 0) {
+                replaceOrRegister(child);
+            }
+            child.frozen = true;
+            Node registered = register.get(child);
+            if (registered != null) {
+                node.targets[node.size - 1] = registered;
+            } else {
+                register.put(child, child);
+            }
+        }
+    }
+
+    // Mutable while on the path of the most recently added word, hashed by its outgoing edges once
+    // frozen. Targets of a frozen node are frozen themselves, so identity comparison suffices.
+    private static class Node {
+        private boolean terminal;
+        private boolean frozen;
+        private char[] labels = new char[2];
+        private Node[] targets = new Node[2];
+        private int size;
+        private int count = -1;
+        private int number = -1;
+
+        Node last() {
+            return targets[size - 1];
+        }
+
+        void add(char label, Node target) {
+            if (size == labels.length) {
+                labels = Arrays.copyOf(labels, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+            }
+            labels[size] = label;
+            targets[size++] = target;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Node)) {
+                return false;
+            }
+            Node node = (Node) other;
+            if (!frozen || !node.frozen) {
+                return this == node;
+            }
+            if (terminal != node.terminal || size != node.size) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (labels[i] != node.labels[i] || targets[i] != node.targets[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = terminal ? 1 : 0;
+            for (int i = 0; i < size; i++) {
+                hash = 31 * (31 * hash + labels[i]) + System.identityHashCode(targets[i]);
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.wordalytica.wordset.v3;
+
+import com.wordalytica.wordset.storage.PackedWords;
+
+import java.nio.IntBuffer;
+
+// Generalized suffix array over all words. The packed storage already lays every word out in id
+// order, terminated by END, so the suffixes sharing a prefix form one contiguous range of the
+// array and memory stays linear in the total number of characters. The sorted suffixes are read
+// through an IntBuffer so a prebuilt index can serve them straight from a memory mapped file.
+class SubstringIndex {
+    private static final int END = PackedWords.END;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final PackedWords words;
+    private final byte[] text;
+    private final IntBuffer suffixes;
+
+    SubstringIndex(PackedWords words) {
+        this.words = words;
+        this.text = words.bytes();
+        int positions = 0;
+        for (int id = 0; id < words.size(); id++) {
+            positions += words.length(id);
+        }
+        int[] suffixes = new int[positions];
+        int suffix = 0;
+        for (int id = 0; id < words.size(); id++) {
+            for (int i = 0; i < words.length(id); i++) {
+                suffixes[suffix++] = words.offset(id) + i;
+            }
+        }
+        new Sorter(text, suffixes).sort(0, suffixes.length, 0);
+        this.suffixes = IntBuffer.wrap(suffixes);
+    }
+
+    SubstringIndex(PackedWords words, IntBuffer suffixes) {
+        this.words = words;
+        this.text = words.bytes();
+        this.suffixes = suffixes;
+    }
+
+    IntBuffer suffixes() {
+        return suffixes.duplicate();
+    }
+
+    // Ids of every word that contains value, value must not be empty.
+    Bitmap containing(String value) {
+        int from = bound(value, false);
+        int to = bound(value, true);
+        int[] ids = new int[to - from];
+        for (int i = from; i < to; i++) {
+            ids[i - from] = words.wordAt(suffixes.get(i));
+        }
+        return Bitmap.of(ids);
+    }
+
+    // The packed text belongs to the word storage and is accounted there, mapped suffixes are off-heap.
+    long sizeInBytes() {
+        return 32 + (suffixes.isDirect() ? 0 : suffixes.capacity() * 4L);
+    }
+
+    // First suffix that compares greater than (upper) or not less than (!upper) value as a prefix.
+    private int bound(String value, boolean upper) {
+        int low = 0;
+        int high = suffixes.limit();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = comparePrefix(suffixes.get(middle), value);
+            if (comparison < 0 || (upper && comparison == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int comparePrefix(int suffix, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            int c = text[suffix + i] & 0xFF;
+            if (c != value.charAt(i)) {
+                return c - value.charAt(i);
+            }
+            if (c == END) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    // Three-way radix quicksort over the suffix offsets, only used while building.
+    private static class Sorter {
+        private final byte[] text;
+        private final int[] suffixes;
+
+        Sorter(byte[] text, int[] suffixes) {
+            this.text = text;
+            this.suffixes = suffixes;
+        }
+
+        // Suffixes in [from, to) already agree on their first depth chars.
+        void sort(int from, int to, int depth) {
+            while (to - from > INSERTION_SORT_THRESHOLD) {
+                int pivot = text[suffixes[(from + to) >>> 1] + depth] & 0xFF;
+                int less = from;
+                int greater = to - 1;
+                int i = from;
+                while (i <= greater) {
+                    int c = text[suffixes[i] + depth] & 0xFF;
+                    if (c < pivot) {
+                        swap(less++, i++);
+                    } else if (c > pivot) {
+                        swap(i, greater--);
+                    } else {
+                        i++;
+                    }
+                }
+                sort(from, less, depth);
+                if (pivot != END) {
+                    sort(less, greater + 1, depth + 1);
+                }
+                from = greater + 1;
+            }
+            for (int i = from + 1; i < to; i++) {
+                for (int j = i; j > from && compare(suffixes[j], suffixes[j - 1], depth) < 0; j--) {
+                    swap(j, j - 1);
+                }
+            }
+        }
+
+        private int compare(int left, int right, int depth) {
+            while (true) {
+                int a = text[left + depth] & 0xFF;
+                int b = text[right + depth] & 0xFF;
+                if (a != b || a == END) {
+                    return a - b;
+                }
+                depth++;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int suffix = suffixes[i];
+            suffixes[i] = suffixes[j];
+            suffixes[j] = suffix;
+        }
+    }
+}
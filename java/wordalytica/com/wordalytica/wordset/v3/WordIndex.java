@@ -0,0 +1,376 @@
+package com.wordalytica.wordset.v3;
+
+import com.wordalytica.wordset.automaton.Automaton;
+import com.wordalytica.wordset.automaton.LevenshteinAutomaton;
+import com.wordalytica.wordset.metrics.Footprint;
+import com.wordalytica.wordset.predicate.WordStatistics;
+import com.wordalytica.wordset.score.Scorer;
+import com.wordalytica.wordset.storage.PackedWords;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+// Read-only index over a sorted, de-duplicated word list. A word's id is its ordinal in that list.
+// Posting lists exist for every (letter, position) pair, every letter and every word length, longer
+// substrings are resolved through a suffix array, prefixes and suffixes through a pair of DAWGs,
+// anagrams and words formable from a set of tiles through an index of sorted-letter signatures.
+// Words are not kept as String objects but packed into one byte[], shared with the suffix array.
+// Read from a WordIndexFile, everything but that byte[] stays in the mapping. The rare words with
+// characters beyond Latin-1 cannot be packed (see PackedWords.packable), they are kept as Strings
+// outside every structure and take the ids after the packed words, like V2's WordStore.
+public class WordIndex {
+    private static final int ALPHABET = 26;
+
+    private final PackedWords packed;
+    private final List<String> unpackable;
+    private final Bitmap all;
+    private final Bitmap[][] charAt;
+    private final Bitmap[] byLength;
+    private final Bitmap[] byLetter;
+    private final SubstringIndex substrings;
+    private final Dawg prefixes;
+    private final Dawg suffixes;
+    private final IntBuffer bySuffix;
+    private final AnagramIndex anagrams;
+    private final WordStatistics statistics;
+    private final IntBuffer scrabbleScores;
+
+    public WordIndex(Iterator<String> source) {
+        ArrayList<String> list = new ArrayList<>();
+        source.forEachRemaining(list::add);
+        String[] sorted = list.toArray(new String[0]);
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || !sorted[i].equals(sorted[size - 1])) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        this.statistics = WordStatistics.of(Arrays.asList(sorted).subList(0, size).iterator());
+        ArrayList<String> packable = new ArrayList<>(size);
+        ArrayList<String> unpackable = new ArrayList<>(0);
+        for (int i = 0; i < size; i++) {
+            (PackedWords.packable(sorted[i]) ? packable : unpackable).add(sorted[i]);
+        }
+        String[] words = packable.toArray(new String[0]);
+        this.unpackable = Collections.unmodifiableList(unpackable);
+        this.all = Bitmap.range(0, words.length);
+
+        int maxLength = 0;
+        for (String word : words) {
+            maxLength = Math.max(maxLength, word.length());
+        }
+        Bitmap.Builder[][] charAtBuilders = new Bitmap.Builder[maxLength][ALPHABET];
+        Bitmap.Builder[] lengthBuilders = new Bitmap.Builder[maxLength + 1];
+        Bitmap.Builder[] letterBuilders = new Bitmap.Builder[ALPHABET];
+        for (int id = 0; id < words.length; id++) {
+            String word = words[id];
+            for (int position = 0; position < word.length(); position++) {
+                int letter = word.charAt(position) - 'a';
+                if (letter < 0 || letter >= ALPHABET) {
+                    continue;
+                }
+                if (charAtBuilders[position][letter] == null) {
+                    charAtBuilders[position][letter] = new Bitmap.Builder();
+                }
+                charAtBuilders[position][letter].add(id);
+                if (letterBuilders[letter] == null) {
+                    letterBuilders[letter] = new Bitmap.Builder();
+                }
+                letterBuilders[letter].add(id);
+            }
+            if (lengthBuilders[word.length()] == null) {
+                lengthBuilders[word.length()] = new Bitmap.Builder();
+            }
+            lengthBuilders[word.length()].add(id);
+        }
+        this.charAt = new Bitmap[maxLength][ALPHABET];
+        for (int position = 0; position < maxLength; position++) {
+            for (int letter = 0; letter < ALPHABET; letter++) {
+                Bitmap.Builder builder = charAtBuilders[position][letter];
+                charAt[position][letter] = builder == null ? Bitmap.EMPTY : builder.build();
+            }
+        }
+        this.byLength = new Bitmap[maxLength + 1];
+        for (int length = 0; length <= maxLength; length++) {
+            byLength[length] = lengthBuilders[length] == null ? Bitmap.EMPTY : lengthBuilders[length].build();
+        }
+        this.byLetter = new Bitmap[ALPHABET];
+        for (int letter = 0; letter < ALPHABET; letter++) {
+            byLetter[letter] = letterBuilders[letter] == null ? Bitmap.EMPTY : letterBuilders[letter].build();
+        }
+        this.packed = new PackedWords(words);
+        this.substrings = new SubstringIndex(packed);
+        this.prefixes = new Dawg(Arrays.asList(words).iterator());
+
+        String[] reversed = new String[words.length];
+        Integer[] reversedOrder = new Integer[words.length];
+        for (int id = 0; id < words.length; id++) {
+            reversed[id] = reverse(words[id]);
+            reversedOrder[id] = id;
+        }
+        Arrays.sort(reversedOrder, Comparator.comparing(id -> reversed[id]));
+        int[] bySuffix = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            bySuffix[i] = reversedOrder[i];
+        }
+        this.bySuffix = IntBuffer.wrap(bySuffix);
+        this.suffixes = new Dawg(Arrays.stream(bySuffix).mapToObj(id -> reversed[id]).iterator());
+        this.anagrams = new AnagramIndex(packed);
+        this.scrabbleScores = IntBuffer.wrap(scores(packed, Scorer.SCRABBLE));
+    }
+
+    private WordIndex(PackedWords packed, List<String> unpackable, Bitmap[][] charAt, Bitmap[] byLength,
+                      Bitmap[] byLetter, SubstringIndex substrings, Dawg prefixes, Dawg suffixes, IntBuffer bySuffix,
+                      AnagramIndex anagrams, WordStatistics statistics, IntBuffer scrabbleScores) {
+        this.packed = packed;
+        this.unpackable = unpackable;
+        this.all = Bitmap.range(0, packed.size());
+        this.charAt = charAt;
+        this.byLength = byLength;
+        this.byLetter = byLetter;
+        this.substrings = substrings;
+        this.prefixes = prefixes;
+        this.suffixes = suffixes;
+        this.bySuffix = bySuffix;
+        this.anagrams = anagrams;
+        this.statistics = statistics;
+        this.scrabbleScores = scrabbleScores;
+    }
+
+    // Layout of a WordIndexFile body.
+    void write(DataOutputStream out) throws IOException {
+        statistics.write(out);
+        out.writeInt(packed.size());
+        out.writeInt(packed.bytes().length);
+        out.write(packed.bytes());
+        WordIndexFile.write(out, packed.offsets());
+        out.writeInt(unpackable.size());
+        for (String word : unpackable) {
+            byte[] utf8 = word.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+        out.writeInt(charAt.length);
+        for (Bitmap[] position : charAt) {
+            for (Bitmap bitmap : position) {
+                bitmap.write(out);
+            }
+        }
+        for (Bitmap bitmap : byLength) {
+            bitmap.write(out);
+        }
+        for (Bitmap bitmap : byLetter) {
+            bitmap.write(out);
+        }
+        prefixes.write(out);
+        suffixes.write(out);
+        WordIndexFile.write(out, bySuffix);
+        WordIndexFile.write(out, scrabbleScores);
+        anagrams.write(out);
+        IntBuffer sorted = substrings.suffixes();
+        out.writeInt(sorted.limit());
+        WordIndexFile.write(out, sorted);
+    }
+
+    static WordIndex read(ByteBuffer in) {
+        WordStatistics statistics = WordStatistics.read(in);
+        int size = in.getInt();
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        PackedWords packed = new PackedWords(bytes, WordIndexFile.ints(in, size + 1));
+        String[] unpackable = new String[in.getInt()];
+        for (int i = 0; i < unpackable.length; i++) {
+            byte[] utf8 = new byte[in.getInt()];
+            in.get(utf8);
+            unpackable[i] = new String(utf8, StandardCharsets.UTF_8);
+        }
+        int maxLength = in.getInt();
+        Bitmap[][] charAt = new Bitmap[maxLength][ALPHABET];
+        for (int position = 0; position < maxLength; position++) {
+            for (int letter = 0; letter < ALPHABET; letter++) {
+                charAt[position][letter] = Bitmap.read(in);
+            }
+        }
+        Bitmap[] byLength = new Bitmap[maxLength + 1];
+        for (int length = 0; length <= maxLength; length++) {
+            byLength[length] = Bitmap.read(in);
+        }
+        Bitmap[] byLetter = new Bitmap[ALPHABET];
+        for (int letter = 0; letter < ALPHABET; letter++) {
+            byLetter[letter] = Bitmap.read(in);
+        }
+        Dawg prefixes = Dawg.read(in);
+        Dawg suffixes = Dawg.read(in);
+        IntBuffer bySuffix = WordIndexFile.ints(in, size);
+        IntBuffer scrabbleScores = WordIndexFile.ints(in, size);
+        AnagramIndex anagrams = AnagramIndex.read(in);
+        SubstringIndex substrings = new SubstringIndex(packed, WordIndexFile.ints(in, in.getInt()));
+        return new WordIndex(packed, Collections.unmodifiableList(Arrays.asList(unpackable)), charAt, byLength,
+                byLetter, substrings, prefixes, suffixes, bySuffix, anagrams, statistics, scrabbleScores);
+    }
+
+    // Packed and unpackable words.
+    public int size() {
+        return packed.size() + unpackable.size();
+    }
+
+    public String word(int id) {
+        return id < packed.size() ? packed.word(id) : unpackable.get(id - packed.size());
+    }
+
+    // The indexed words, ids 0 to packed().size() - 1. No posting list, DAWG or other structure holds
+    // the rest.
+    public PackedWords packed() {
+        return packed;
+    }
+
+    // Sorted, their ids follow the packed words.
+    public List<String> unpackable() {
+        return unpackable;
+    }
+
+    public WordStatistics statistics() {
+        return statistics;
+    }
+
+    public Bitmap all() {
+        return all;
+    }
+
+    public static boolean isIndexed(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    // Callers must check isIndexed(c) first, other characters have no posting list.
+    public Bitmap withCharAt(char c, int position) {
+        if (!isIndexed(c)) {
+            throw new IllegalArgumentException("Character is not indexed: " + c);
+        }
+        if (position < 0 || position >= charAt.length) {
+            return Bitmap.EMPTY;
+        }
+        return charAt[position][c - 'a'];
+    }
+
+    public Bitmap withLength(int length) {
+        if (length < 0 || length >= byLength.length) {
+            return Bitmap.EMPTY;
+        }
+        return byLength[length];
+    }
+
+    // minLength <= word.length() <= maxLength
+    public Bitmap withLengthBetween(int minLength, int maxLength) {
+        int from = Math.max(0, minLength);
+        int to = Math.min(byLength.length - 1, maxLength);
+        if (from == 0 && to == byLength.length - 1) {
+            return all;
+        }
+        Bitmap result = Bitmap.EMPTY;
+        for (int length = from; length <= to; length++) {
+            result = result.or(byLength[length]);
+        }
+        return result;
+    }
+
+    public Bitmap containing(String value) {
+        if (value.isEmpty()) {
+            return all;
+        }
+        if (value.length() == 1 && isIndexed(value.charAt(0))) {
+            return byLetter[value.charAt(0) - 'a'];
+        }
+        return substrings.containing(value);
+    }
+
+    // Ids are ordinals, so the words sharing a prefix are one contiguous range.
+    public Bitmap startingWith(String value) {
+        int[] range = prefixes.range(value);
+        return Bitmap.range(range[0], range[1]);
+    }
+
+    public Bitmap endingWith(String value) {
+        int[] range = suffixes.range(reverse(value));
+        int[] ids = new int[range[1] - range[0]];
+        for (int i = range[0]; i < range[1]; i++) {
+            ids[i - range[0]] = bySuffix.get(i);
+        }
+        return Bitmap.of(ids);
+    }
+
+    // Scrabble scores come from a column computed when the index is built or loaded.
+    public int score(int id, Scorer scorer) {
+        if (id >= packed.size()) {
+            return scorer.score(unpackable.get(id - packed.size()));
+        }
+        if (scorer == Scorer.SCRABBLE) {
+            return scrabbleScores.get(id);
+        }
+        return scorer.score(packed.bytes(), packed.offset(id), packed.length(id));
+    }
+
+    public Bitmap accepted(Automaton automaton) {
+        return prefixes.accepted(automaton);
+    }
+
+    // Only the branches of the prefix DAWG holding one of the candidates are walked, null for all words.
+    public Bitmap withinEditDistance(LevenshteinAutomaton automaton, Bitmap candidates) {
+        return prefixes.withinEditDistance(automaton, candidates, byLength.length - 1);
+    }
+
+    public Bitmap anagramsOf(String value) {
+        return anagrams.anagramsOf(value);
+    }
+
+    // Enumerates every sub-multiset of the tiles, callers should check formableSubBags(tiles) first.
+    public Bitmap formableFrom(String tiles) {
+        return anagrams.formableFrom(tiles);
+    }
+
+    public static long formableSubBags(String tiles) {
+        return AnagramIndex.subBags(tiles);
+    }
+
+    public long sizeInBytes() {
+        long bytes = packed.sizeInBytes() + all.sizeInBytes() + substrings.sizeInBytes() + prefixes.sizeInBytes()
+                + suffixes.sizeInBytes() + WordIndexFile.heapBytes(bySuffix, Integer.BYTES) + anagrams.sizeInBytes()
+                + WordIndexFile.heapBytes(scrabbleScores, Integer.BYTES) + Footprint.ints(unpackable.size());
+        for (String word : unpackable) {
+            bytes += Footprint.string(word);
+        }
+        for (Bitmap[] position : charAt) {
+            for (Bitmap bitmap : position) {
+                bytes += bitmap.sizeInBytes();
+            }
+        }
+        for (Bitmap bitmap : byLetter) {
+            bytes += bitmap.sizeInBytes();
+        }
+        for (Bitmap bitmap : byLength) {
+            bytes += bitmap.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private static int[] scores(PackedWords packed, Scorer scorer) {
+        int[] scores = new int[packed.size()];
+        for (int id = 0; id < scores.length; id++) {
+            scores[id] = scorer.score(packed.bytes(), packed.offset(id), packed.length(id));
+        }
+        return scores;
+    }
+
+    private static String reverse(String value) {
+        return new StringBuilder(value).reverse().toString();
+    }
+}
@@ -0,0 +1,138 @@
+package com.wordalytica.wordset.v3;
+
+import com.wordalytica.wordset.storage.LoadedWords;
+import com.wordalytica.wordset.storage.WordLoader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Prebuilt WordIndex on disk: a magic number and format version followed by every structure of
+// the index, written once offline and memory mapped at startup. Every array, the bitmap containers,
+// DAWGs, suffix array, anagram index and score column, is aligned to its element size and read as
+// a view of the mapping, so loading only reads the small tables locating them and processes
+// loading the same file share its page cache. The packed words are the one copy, predicates match
+// them as a byte[] in place. Words that cannot be packed follow them as UTF-8 Strings.
+public class WordIndexFile {
+    private static final int MAGIC = 0x57414C58; // "WALX"
+    static final int VERSION = 4;
+
+    private WordIndexFile() {
+    }
+
+    public static void write(WordIndex index, Path file) throws IOException {
+        try (OutputStream stream = Files.newOutputStream(file)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            index.write(out);
+            out.flush();
+        }
+    }
+
+    public static WordIndex map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a word index file: " + file);
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported word index version " + version + " in " + file
+                        + ", expected " + VERSION + ". Rebuild it with WordIndexFile.");
+            }
+            return WordIndex.read(in);
+        }
+    }
+
+    // Views of the next length values of in, which is advanced past them.
+    static ByteBuffer bytes(ByteBuffer in, int length) {
+        return view(in, 1, length);
+    }
+
+    static CharBuffer chars(ByteBuffer in, int length) {
+        return view(in, Character.BYTES, length * Character.BYTES).asCharBuffer();
+    }
+
+    static IntBuffer ints(ByteBuffer in, int length) {
+        return view(in, Integer.BYTES, length * Integer.BYTES).asIntBuffer();
+    }
+
+    static LongBuffer longs(ByteBuffer in, int length) {
+        return view(in, Long.BYTES, length * Long.BYTES).asLongBuffer();
+    }
+
+    private static ByteBuffer view(ByteBuffer in, int alignment, int bytes) {
+        in.position((in.position() + alignment - 1) / alignment * alignment);
+        ByteBuffer view = in.slice();
+        view.limit(bytes);
+        in.position(in.position() + bytes);
+        return view;
+    }
+
+    // Writes every value of the buffer, aligned like the views above expect.
+    static void write(DataOutputStream out, ByteBuffer values) throws IOException {
+        for (int i = 0; i < values.limit(); i++) {
+            out.writeByte(values.get(i));
+        }
+    }
+
+    static void write(DataOutputStream out, CharBuffer values) throws IOException {
+        align(out, Character.BYTES);
+        for (int i = 0; i < values.limit(); i++) {
+            out.writeChar(values.get(i));
+        }
+    }
+
+    static void write(DataOutputStream out, IntBuffer values) throws IOException {
+        align(out, Integer.BYTES);
+        for (int i = 0; i < values.limit(); i++) {
+            out.writeInt(values.get(i));
+        }
+    }
+
+    static void write(DataOutputStream out, LongBuffer values) throws IOException {
+        align(out, Long.BYTES);
+        for (int i = 0; i < values.limit(); i++) {
+            out.writeLong(values.get(i));
+        }
+    }
+
+    // The offsets are those in the file, which the header is written to through the same stream.
+    private static void align(DataOutputStream out, int alignment) throws IOException {
+        while (out.size() % alignment != 0) {
+            out.writeByte(0);
+        }
+    }
+
+    // Heap taken by a buffer's values, none when it is a view of a mapped file.
+    static long heapBytes(Buffer buffer, int bytesPerValue) {
+        return buffer.isDirect() ? 0 : (long) buffer.capacity() * bytesPerValue;
+    }
+
+    // Builds an index file offline: WordIndexFile <word list> <index file>
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: WordIndexFile <word list> <index file>");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        LoadedWords words = WordLoader.load(Paths.get(args[0]));
+        WordIndex index = new WordIndex(words.iterator());
+        write(index, Paths.get(args[1]));
+        System.out.printf("Loaded %s, indexed %d words into %s in %d ms%n",
+                words, index.size(), args[1], (System.nanoTime() - start) / 1_000_000);
+    }
+}
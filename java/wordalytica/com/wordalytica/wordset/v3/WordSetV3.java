@@ -0,0 +1,403 @@
+package com.wordalytica.wordset.v3;
+
+import com.wordalytica.wordset.automaton.Automaton;
+import com.wordalytica.wordset.automaton.LevenshteinAutomaton;
+import com.wordalytica.wordset.core.WordSet;
+import com.wordalytica.wordset.metrics.Probe;
+import com.wordalytica.wordset.metrics.QueryMetrics;
+import com.wordalytica.wordset.predicate.PlannedPredicate;
+import com.wordalytica.wordset.predicate.PredicateBuilder;
+import com.wordalytica.wordset.predicate.QueryPlanner;
+import com.wordalytica.wordset.score.Scorer;
+import com.wordalytica.wordset.score.TopK;
+import com.wordalytica.wordset.storage.PackedWords;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.UnaryOperator;
+
+// Positional, length, prefix, suffix and substring constraints are answered from the posting lists
+// of a WordIndex, only the remaining (residual) predicates are evaluated word by word, and only over the surviving ids.
+// The few words the index cannot pack are not in any posting list, the whole chain is checked
+// against each of them after the indexed words.
+public class WordSetV3 implements WordSet<WordSetV3> {
+    // Beyond this many sub-multisets of the tiles, filtering by length and letter counts is cheaper.
+    private static final long MAX_SUB_BAGS = 1 << 12;
+
+    private final WordIndex index;
+    private final PredicateBuilder residual;
+    private final Bitmap include;
+    private final Bitmap exclude;
+    private final LevenshteinAutomaton nearby;
+    // Every constraint of the chain, for the unpackable words. Null when the index has none.
+    private final PredicateBuilder chain;
+    private final int limit;
+    // Computed on first use and kept, a view never changes. Racing threads at most compute them
+    // twice, both are immutable and safely published through their final fields.
+    private PlannedPredicate planned;
+    private PlannedPredicate plannedChain;
+    private Bitmap candidates;
+
+    public WordSetV3(Iterator<String> words) {
+        this(new WordIndex(words));
+    }
+
+    public WordSetV3(WordIndex index) {
+        this(index, null, null, null, null, index.unpackable().isEmpty() ? null : new PredicateBuilder(),
+                Integer.MAX_VALUE);
+        QueryMetrics.loaded("V3", index.size(), index.sizeInBytes());
+    }
+
+    // Views share the read-only index, include and exclude are null when unconstrained. nearby is
+    // the first edit distance constraint, walked over the prefix DAWG once the chain is evaluated.
+    private WordSetV3(WordIndex index, PredicateBuilder residual, Bitmap include, Bitmap exclude,
+                      LevenshteinAutomaton nearby, PredicateBuilder chain, int limit) {
+        this.index = index;
+        this.residual = residual;
+        this.include = include;
+        this.exclude = exclude;
+        this.nearby = nearby;
+        this.chain = chain;
+        this.limit = limit;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        PlannedPredicate residual = residualPredicate();
+        Probe probe = QueryMetrics.start("V3", "iterator", residual == null ? "index" : residual, index.size());
+        return new MatchIterator(candidates().iterator(), residual, chainPredicate(), limit, probe);
+    }
+
+    @Override
+    public int count() {
+        PlannedPredicate residual = residualPredicate();
+        Probe probe = QueryMetrics.start("V3", "count", residual == null ? "index" : residual, index.size());
+        Bitmap candidates = candidates();
+        int count = 0;
+        int scanned = 0;
+        if (residual == null) {
+            count = Math.min(candidates.cardinality(), limit);
+        } else {
+            PackedWords packed = index.packed();
+            byte[] bytes = packed.bytes();
+            PrimitiveIterator.OfInt ids = candidates.iterator();
+            while (count < limit && ids.hasNext()) {
+                int id = ids.nextInt();
+                scanned++;
+                if (residual.matches(bytes, packed.offset(id), packed.length(id))) {
+                    count++;
+                }
+            }
+        }
+        PlannedPredicate chain = chainPredicate();
+        List<String> unpackable = index.unpackable();
+        for (int i = 0; chain != null && count < limit && i < unpackable.size(); i++) {
+            scanned++;
+            if (chain.matches(unpackable.get(i))) {
+                count++;
+            }
+        }
+        probe.end(scanned, count);
+        return count;
+    }
+
+    // Ids are alphabetical, so equal scores rank by id. Only ids enter the heap, Strings are created for the k winners.
+    @Override
+    public List<String> topK(int k, Scorer scorer) {
+        TopK top = new TopK(k, Integer::compare);
+        PlannedPredicate residual = residualPredicate();
+        PackedWords packed = index.packed();
+        byte[] bytes = packed.bytes();
+        int matched = 0;
+        PrimitiveIterator.OfInt ids = candidates().iterator();
+        while (matched < limit && ids.hasNext()) {
+            int id = ids.nextInt();
+            if (residual == null || residual.matches(bytes, packed.offset(id), packed.length(id))) {
+                matched++;
+                top.offer(id, index.score(id, scorer));
+            }
+        }
+        PlannedPredicate chain = chainPredicate();
+        List<String> unpackable = index.unpackable();
+        for (int i = 0; chain != null && matched < limit && i < unpackable.size(); i++) {
+            if (chain.matches(unpackable.get(i))) {
+                matched++;
+                top.offer(packed.size() + i, index.score(packed.size() + i, scorer));
+            }
+        }
+        List<String> words = new ArrayList<>();
+        for (int id : top.ids()) {
+            words.add(index.word(id));
+        }
+        return words;
+    }
+
+    @Override
+    public String explain() {
+        String lookup = nearby == null ? "index lookup" : "index lookup, then " + nearby + " over the prefix DAWG";
+        String candidates = "1. " + lookup + " candidates=" + candidates().cardinality() + System.lineSeparator();
+        PlannedPredicate residual = residualPredicate();
+        String plan = residual == null ? candidates
+                : candidates + "then for each candidate:" + System.lineSeparator() + residual.explain();
+        PlannedPredicate chain = chainPredicate();
+        if (chain == null) {
+            return plan;
+        }
+        return plan + "then for each of " + index.unpackable().size() + " unpackable words:" + System.lineSeparator()
+                + chain.explain();
+    }
+
+    @Override
+    public WordSetV3 limit(int maxWords) {
+        if (maxWords < 0) {
+            throw new IllegalArgumentException("maxWords must not be negative: " + maxWords);
+        }
+        return new WordSetV3(index, residual, include, exclude, nearby, chain, Math.min(limit, maxWords));
+    }
+
+    @Override
+    public WordSetV3 longerThan(int minLength) {
+        return include(index.withLengthBetween(minLength + 1, Integer.MAX_VALUE)).chained(chain -> chain.longerThan(minLength));
+    }
+
+    @Override
+    public WordSetV3 containing(String value) {
+        return include(index.containing(value)).chained(chain -> chain.containing(value));
+    }
+
+    @Override
+    public WordSetV3 endingWith(String value) {
+        return include(index.endingWith(value)).chained(chain -> chain.endingWith(value));
+    }
+
+    @Override
+    public WordSetV3 startingWith(String value) {
+        return include(index.startingWith(value)).chained(chain -> chain.startingWith(value));
+    }
+
+    @Override
+    public WordSetV3 notEndingWith(String value) {
+        return exclude(index.endingWith(value)).chained(chain -> chain.notEndingWith(value));
+    }
+
+    @Override
+    public WordSetV3 notContaining(String value) {
+        return exclude(index.containing(value)).chained(chain -> chain.notContaining(value));
+    }
+
+    @Override
+    public WordSetV3 matching(String placeHolded) {
+        WordSetV3 result = chained(chain -> chain.matching(placeHolded));
+        result = result.include(index.withLength(placeHolded.length()));
+        for (int i = 0; i < placeHolded.length(); i++) {
+            char placeholder = placeHolded.charAt(i);
+            if ('_' == placeholder || '?' == placeholder) {
+                continue;
+            }
+            if (!WordIndex.isIndexed(placeholder)) {
+                return result.withResidual(residual().matching(placeHolded));
+            }
+            result = result.include(index.withCharAt(placeholder, i));
+        }
+        return result;
+    }
+
+    @Override
+    public WordSetV3 withCharAt(char c, int position) {
+        WordSetV3 chained = chained(chain -> chain.withCharAt(c, position));
+        if (WordIndex.isIndexed(c)) {
+            return chained.include(index.withCharAt(c, position));
+        }
+        return chained.withResidual(residual().withCharAt(c, position));
+    }
+
+    @Override
+    public WordSetV3 withoutCharAt(char c, int position) {
+        WordSetV3 chained = chained(chain -> chain.withoutCharAt(c, position));
+        if (WordIndex.isIndexed(c)) {
+            return chained.exclude(index.withCharAt(c, position));
+        }
+        return chained.withResidual(residual().withoutCharAt(c, position));
+    }
+
+    @Override
+    public WordSetV3 anagramOf(String value) {
+        return include(index.anagramsOf(value)).chained(chain -> chain.anagramOf(value));
+    }
+
+    // Blanks can stand for any letter, so only the length bound can come from the index then.
+    @Override
+    public WordSetV3 formableFrom(String tiles, int blanks) {
+        WordSetV3 chained = chained(chain -> chain.formableFrom(tiles, blanks));
+        if (blanks == 0 && WordIndex.formableSubBags(tiles) <= MAX_SUB_BAGS) {
+            return chained.include(index.formableFrom(tiles));
+        }
+        PredicateBuilder residual = residual().formableFrom(tiles, blanks);
+        int maxLength = (int) Math.min(Integer.MAX_VALUE, (long) tiles.length() + blanks);
+        return chained.include(index.withLengthBetween(0, maxLength)).withResidual(residual);
+    }
+
+    // An anchored automaton walks the prefix DAWG, so only the branches it can still accept are
+    // visited. One that may match anywhere would visit every branch, checking the candidates is cheaper.
+    @Override
+    public WordSetV3 matchingRegex(String regex) {
+        Automaton automaton = Automaton.regex(regex);
+        WordSetV3 chained = chained(chain -> chain.matchingRegex(regex));
+        if (automaton.isAnchored()) {
+            return chained.include(index.accepted(automaton));
+        }
+        return chained.include(index.withLengthBetween(automaton.minLength(), automaton.maxLength()))
+                .withResidual(residual().matchingRegex(regex));
+    }
+
+    @Override
+    public WordSetV3 matchingGlob(String glob) {
+        Automaton automaton = Automaton.glob(glob);
+        WordSetV3 chained = chained(chain -> chain.matchingGlob(glob));
+        if (automaton.isAnchored()) {
+            return chained.include(index.accepted(automaton));
+        }
+        return chained.include(index.withLengthBetween(automaton.minLength(), automaton.maxLength()))
+                .withResidual(residual().matchingGlob(glob));
+    }
+
+    // The walk is deferred, so whatever the rest of the chain adds to include and exclude prunes
+    // its branches too, e.g. longerThan(3) after withinEditDistance("hous", 1).
+    @Override
+    public WordSetV3 withinEditDistance(String word, int maxEdits, boolean transpositions) {
+        WordSetV3 chained = chained(chain -> chain.withinEditDistance(word, maxEdits, transpositions));
+        if (nearby != null) {
+            return chained.withResidual(residual().withinEditDistance(word, maxEdits, transpositions));
+        }
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton(word, maxEdits, transpositions);
+        return new WordSetV3(index, residual, include, exclude, automaton, chained.chain, limit);
+    }
+
+    private WordSetV3 include(Bitmap bitmap) {
+        Bitmap included = include == null ? bitmap : include.and(bitmap);
+        return new WordSetV3(index, residual, included, exclude, nearby, chain, limit);
+    }
+
+    private WordSetV3 exclude(Bitmap bitmap) {
+        Bitmap excluded = exclude == null ? bitmap : exclude.or(bitmap);
+        return new WordSetV3(index, residual, include, excluded, nearby, chain, limit);
+    }
+
+    private WordSetV3 withResidual(PredicateBuilder residual) {
+        return new WordSetV3(index, residual, include, exclude, nearby, chain, limit);
+    }
+
+    private WordSetV3 chained(UnaryOperator<PredicateBuilder> step) {
+        if (chain == null) {
+            return this;
+        }
+        return new WordSetV3(index, residual, include, exclude, nearby, step.apply(chain), limit);
+    }
+
+    private PredicateBuilder residual() {
+        return residual == null ? new PredicateBuilder() : residual;
+    }
+
+    private PlannedPredicate residualPredicate() {
+        PlannedPredicate planned = this.planned;
+        if (planned == null && residual != null) {
+            planned = QueryPlanner.plan(residual.build(), index.statistics());
+            this.planned = planned;
+        }
+        return planned;
+    }
+
+    private PlannedPredicate chainPredicate() {
+        PlannedPredicate planned = this.plannedChain;
+        if (planned == null && chain != null) {
+            planned = QueryPlanner.plan(chain.build(), index.statistics());
+            this.plannedChain = planned;
+        }
+        return planned;
+    }
+
+    private Bitmap candidates() {
+        Bitmap candidates = this.candidates;
+        if (candidates == null) {
+            candidates = include == null ? index.all() : include;
+            candidates = exclude == null ? candidates : candidates.andNot(exclude);
+            if (nearby != null) {
+                candidates = index.withinEditDistance(nearby, include == null && exclude == null ? null : candidates);
+            }
+            this.candidates = candidates;
+        }
+        return candidates;
+    }
+
+    private class MatchIterator implements Iterator<String> {
+        private final PrimitiveIterator.OfInt ids;
+        private final PlannedPredicate residual;
+        private final PlannedPredicate chain;
+        private final Probe probe;
+        private int remaining;
+        private int unpackable;
+        private String next;
+        private long scanned;
+        private long matched;
+
+        MatchIterator(PrimitiveIterator.OfInt ids, PlannedPredicate residual, PlannedPredicate chain, int limit,
+                      Probe probe) {
+            this.ids = ids;
+            this.residual = residual;
+            this.chain = chain;
+            this.remaining = limit;
+            this.probe = probe;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            String current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            next = null;
+            if (remaining > 0) {
+                PackedWords packed = index.packed();
+                while (ids.hasNext()) {
+                    int id = ids.nextInt();
+                    scanned++;
+                    if (residual == null || residual.matches(packed.bytes(), packed.offset(id), packed.length(id))) {
+                        next = packed.word(id);
+                        remaining--;
+                        matched++;
+                        return;
+                    }
+                }
+                List<String> words = index.unpackable();
+                while (chain != null && unpackable < words.size()) {
+                    String word = words.get(unpackable++);
+                    scanned++;
+                    if (chain.matches(word)) {
+                        next = word;
+                        remaining--;
+                        matched++;
+                        return;
+                    }
+                }
+            }
+            if (remaining >= 0) {
+                remaining = -1;
+                probe.end(residual == null ? 0 : scanned, matched);
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.wordalytica.wordset;
+
+import com.wordalytica.wordset.cache.ResultCache;
+import com.wordalytica.wordset.core.WordSet;
+import com.wordalytica.wordset.v3.WordIndex;
+import com.wordalytica.wordset.v3.WordIndexFile;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Every engine must answer every query with the words a plain scan of the list finds. The scan
+// spells out each query with String methods and java.util.regex, so it shares no planner, predicate
+// or cache with the engines. Words beyond Latin-1 only go to the engines that keep them as Strings,
+// the packed-only Parallel and Columnar engines reject them.
+class EngineAgreementTest {
+    private static final List<String> WORDS = Arrays.asList(
+            "", "a", "at", "ate", "eat", "tea", "tee", "teen", "ten", "net", "nett", "rat", "tar", "art", "star",
+            "start", "stare", "tears", "rates", "aster", "sing", "singing", "ring", "rings", "string", "testing",
+            "ending", "reading", "trading", "listen", "silent", "enlist", "tinsel", "inlets", "zoo", "zoom",
+            "quiz", "jazz", "café", "naïve");
+    private static final List<String> UNPACKABLE = Arrays.asList("zażółć", "ἀλφα", "teaŝ");
+
+    private static final List<Query> QUERIES = Arrays.asList(
+            new Query("all", set -> set, word -> true),
+            new Query("longerThan(4)", set -> set.longerThan(4), word -> word.length() > 4),
+            new Query("containing(in)", set -> set.containing("in"), word -> word.contains("in")),
+            new Query("endingWith(ing)", set -> set.endingWith("ing"), word -> word.endsWith("ing")),
+            new Query("startingWith(st)", set -> set.startingWith("st"), word -> word.startsWith("st")),
+            new Query("notEndingWith(s)", set -> set.notEndingWith("s"), word -> !word.endsWith("s")),
+            new Query("notContaining(e)", set -> set.notContaining("e"), word -> !word.contains("e")),
+            new Query("matching(t__)", set -> set.matching("t__"), word -> word.length() == 3 && word.startsWith("t")),
+            new Query("matching(?a?e)", set -> set.matching("?a?e"),
+                    word -> word.length() == 4 && word.charAt(1) == 'a' && word.charAt(3) == 'e'),
+            new Query("withCharAt(t, 0)", set -> set.withCharAt('t', 0), word -> word.startsWith("t")),
+            new Query("withCharAt(é, 3)", set -> set.withCharAt('é', 3), word -> word.indexOf('é', 3) == 3),
+            new Query("withoutCharAt(s, 0)", set -> set.withoutCharAt('s', 0), word -> !word.startsWith("s")),
+            new Query("anagramOf(listen)", set -> set.anagramOf("listen"), word -> sorted(word).equals("eilnst")),
+            new Query("anagramOf(rates)", set -> set.anagramOf("rates"), word -> sorted(word).equals("aerst")),
+            new Query("formableFrom(stare, 0)", set -> set.formableFrom("stare", 0), word -> missing(word, "stare") == 0),
+            new Query("formableFrom(tea, 1)", set -> set.formableFrom("tea", 1), word -> missing(word, "tea") <= 1),
+            regex("^s.*g$"),
+            regex("e[ae]t"),
+            regex("z+"),
+            regex("^..$"),
+            regex("(ea|ee)t?$"),
+            glob("?a*", "^.a.*$"),
+            glob("*[!aeiou]", "^.*[^aeiou]$"),
+            glob("t??", "^t..$"),
+            distance("tea", 1, false),
+            distance("tea", 2, false),
+            distance("silnet", 1, true),
+            distance("silnet", 1, false),
+            distance("cafe", 1, false),
+            new Query("containing(ż)", set -> set.containing("ż"), word -> word.contains("ż")),
+            new Query("containing(t).endingWith(s).longerThan(4)",
+                    set -> set.containing("t").endingWith("s").longerThan(4),
+                    word -> word.contains("t") && word.endsWith("s") && word.length() > 4),
+            new Query("startingWith(t).notContaining(z).limit(100)",
+                    set -> set.startingWith("t").notContaining("z").limit(100),
+                    word -> word.startsWith("t") && !word.contains("z")));
+
+    @TempDir
+    static Path directory;
+
+    private static final Map<String, WordSet<?>> ENGINES = new LinkedHashMap<>();
+    private static final Map<String, WordSet<?>> UNPACKABLE_ENGINES = new LinkedHashMap<>();
+
+    @BeforeAll
+    static void build() throws IOException {
+        ENGINES.put("V1", WordSetFactory.build(WORDS, 1));
+        ENGINES.put("V2", WordSetFactory.build(WORDS, 2));
+        ENGINES.put("V3", WordSetFactory.build(WORDS, 3));
+        Path index = directory.resolve("words.idx");
+        WordIndexFile.write(new WordIndex(WORDS.iterator()), index);
+        ENGINES.put("V3 mapped", WordSetFactory.load(index));
+        ENGINES.put("Parallel", WordSetFactory.buildParallel(WORDS.iterator(), ForkJoinPool.commonPool()));
+        ENGINES.put("Columnar", WordSetFactory.buildColumnar(WORDS.iterator()));
+        ENGINES.put("Cached", WordSetFactory.cached(WordSetFactory.build(WORDS, 3), new ResultCache(1 << 20)));
+        ENGINES.put("Mutable", WordSetFactory.buildMutable(WORDS.iterator(), 3));
+
+        List<String> all = all();
+        UNPACKABLE_ENGINES.put("V1", WordSetFactory.build(all, 1));
+        UNPACKABLE_ENGINES.put("V2", WordSetFactory.build(all, 2));
+        UNPACKABLE_ENGINES.put("V3", WordSetFactory.build(all, 3));
+        Path unpackableIndex = directory.resolve("unpackable.idx");
+        WordIndexFile.write(new WordIndex(all.iterator()), unpackableIndex);
+        UNPACKABLE_ENGINES.put("V3 mapped", WordSetFactory.load(unpackableIndex));
+        UNPACKABLE_ENGINES.put("Mutable", WordSetFactory.buildMutable(all.iterator(), 3));
+    }
+
+    @Test
+    void enginesAgreeWithScan() {
+        agree(WORDS, ENGINES);
+    }
+
+    @Test
+    void unpackableWordsAgreeWithScan() {
+        agree(all(), UNPACKABLE_ENGINES);
+        assertThrows(IllegalArgumentException.class, () -> WordSetFactory.buildColumnar(UNPACKABLE.iterator()));
+    }
+
+    @Test
+    void limitCapsEveryEngine() {
+        for (Map.Entry<String, WordSet<?>> engine : ENGINES.entrySet()) {
+            List<String> limited = new ArrayList<>();
+            engine.getValue().startingWith("t").limit(2).forEach(limited::add);
+            assertEquals(2, limited.size(), engine.getKey());
+            assertEquals(2, engine.getValue().startingWith("t").limit(2).count(), engine.getKey());
+        }
+    }
+
+    @Test
+    void negativeLimitIsRejected() {
+        Map<String, WordSet<?>> engines = new LinkedHashMap<>(ENGINES);
+        engines.put("Noop", WordSetFactory.buildNoop());
+        for (Map.Entry<String, WordSet<?>> engine : engines.entrySet()) {
+            assertThrows(IllegalArgumentException.class, () -> engine.getValue().limit(-1), engine.getKey());
+        }
+    }
+
+    private static void agree(List<String> words, Map<String, WordSet<?>> engines) {
+        for (Query query : QUERIES) {
+            Set<String> expected = new HashSet<>();
+            words.stream().filter(query.scan).forEach(expected::add);
+            for (Map.Entry<String, WordSet<?>> engine : engines.entrySet()) {
+                // Twice, so cached plans and results are checked as well.
+                for (int run = 0; run < 2; run++) {
+                    WordSet<?> result = query.view.apply(engine.getValue());
+                    String message = engine.getKey() + " " + query.name;
+                    assertEquals(expected, words(result), message);
+                    assertEquals(expected.size(), result.count(), message);
+                }
+            }
+        }
+    }
+
+    private static List<String> all() {
+        List<String> all = new ArrayList<>(WORDS);
+        all.addAll(UNPACKABLE);
+        return all;
+    }
+
+    private static Set<String> words(WordSet<?> set) {
+        Set<String> words = new HashSet<>();
+        set.forEach(words::add);
+        return words;
+    }
+
+    private static Query regex(String regex) {
+        Pattern pattern = Pattern.compile(regex);
+        return new Query("matchingRegex(" + regex + ")", set -> set.matchingRegex(regex),
+                word -> pattern.matcher(word).find());
+    }
+
+    // The glob and the regex that spells it out.
+    private static Query glob(String glob, String regex) {
+        Pattern pattern = Pattern.compile(regex);
+        return new Query("matchingGlob(" + glob + ")", set -> set.matchingGlob(glob),
+                word -> pattern.matcher(word).matches());
+    }
+
+    private static Query distance(String target, int maxEdits, boolean transpositions) {
+        return new Query("withinEditDistance(" + target + ", " + maxEdits + ", " + transpositions + ")",
+                set -> set.withinEditDistance(target, maxEdits, transpositions),
+                word -> distance(word, target, transpositions) <= maxEdits);
+    }
+
+    private static String sorted(String word) {
+        char[] chars = word.toCharArray();
+        Arrays.sort(chars);
+        return new String(chars);
+    }
+
+    // Letters of word that the tiles do not cover.
+    private static int missing(String word, String tiles) {
+        StringBuilder left = new StringBuilder(tiles);
+        int missing = 0;
+        for (char c : word.toCharArray()) {
+            int tile = left.indexOf(String.valueOf(c));
+            if (tile < 0) {
+                missing++;
+            } else {
+                left.deleteCharAt(tile);
+            }
+        }
+        return missing;
+    }
+
+    // Textbook edit distance table, with adjacent swaps as one edit when transpositions is set.
+    private static int distance(String a, String b, boolean transpositions) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    d[i][j] = i + j;
+                    continue;
+                }
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+                if (transpositions && i > 1 && j > 1
+                        && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static final class Query {
+        final String name;
+        final Function<WordSet<?>, WordSet<?>> view;
+        final Predicate<String> scan;
+
+        Query(String name, Function<WordSet<?>, WordSet<?>> view, Predicate<String> scan) {
+            this.name = name;
+            this.view = view;
+            this.scan = scan;
+        }
+    }
+}
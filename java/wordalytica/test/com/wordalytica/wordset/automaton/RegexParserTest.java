@@ -0,0 +1,79 @@
+package com.wordalytica.wordset.automaton;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The syntax RegexParser accepts, checked through the automata compiled from it. Every regex that
+// is also valid for java.util.regex must agree with find() on it.
+class RegexParserTest {
+    private static final String[] WORDS = {
+            "", "a", "aa", "ab", "abc", "abab", "bca", "cab", "tea", "teas", "eat", "xyz", "x1", "a.b", "a+b",
+            "sing", "singing", "string", "café", "naïve", "zażółć"};
+
+    @Test
+    void regexAgreesWithJavaRegex() {
+        String[] patterns = {
+                "a", "^a", "a$", "^a$", "^$", "ab|ca", "^(ab)+$", "(?:ab)*c", "a?b", "^a*$", "^.{3}$", "^.{2,}$",
+                "^.{1,2}$", "^a{2}", "[a-c]+$", "^[^aeiou]+$", "\\d", "^\\w+$", "\\.", "a\\+b", "ing$", "^s.*g$",
+                "é", "[éï]", "ż", "^..$"};
+        for (String pattern : patterns) {
+            Automaton automaton = Automaton.regex(pattern);
+            Pattern reference = Pattern.compile(pattern);
+            for (String word : WORDS) {
+                boolean expected = reference.matcher(word).find();
+                assertEquals(expected, automaton.matches(word), pattern + " on \"" + word + "\"");
+                if (latin1(word)) {
+                    byte[] bytes = ("#" + word + "#").getBytes(StandardCharsets.ISO_8859_1);
+                    assertEquals(expected, automaton.matches(bytes, 1, word.length()), pattern + " on bytes of " + word);
+                }
+            }
+        }
+    }
+
+    @Test
+    void globMatchesWholeWords() {
+        Automaton glob = Automaton.glob("?a*");
+        assertTrue(glob.matches("cab"));
+        assertTrue(glob.matches("ea"));
+        assertFalse(glob.matches("a"));
+        assertFalse(glob.matches("tea"));
+        assertTrue(Automaton.glob("*ing").matches("singing"));
+        assertFalse(Automaton.glob("*ing").matches("singer"));
+        assertTrue(Automaton.glob("[abc]?").matches("bx"));
+        assertFalse(Automaton.glob("[!abc]?").matches("bx"));
+        assertTrue(Automaton.glob("caf?").matches("café"));
+        assertTrue(Automaton.glob("za*").matches("zażółć"));
+        assertTrue(Automaton.glob("").matches(""));
+        assertFalse(Automaton.glob("").matches("a"));
+    }
+
+    @Test
+    void lengthBounds() {
+        assertEquals(3, Automaton.regex("^.{3,5}$").minLength());
+        assertEquals(5, Automaton.regex("^.{3,5}$").maxLength());
+        assertEquals(Integer.MAX_VALUE, Automaton.regex("ab").maxLength());
+        assertEquals(2, Automaton.regex("ab").minLength());
+        assertEquals(1, Automaton.glob("?").maxLength());
+    }
+
+    @Test
+    void malformedPatternsAreRejected() {
+        for (String pattern : new String[]{"(ab", "ab)", "[ab", "a{2", "a{3,2}", "*a", "a|*", "\\"}) {
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                    () -> Automaton.regex(pattern), pattern);
+            assertTrue(error.getMessage().contains(pattern), error.getMessage());
+        }
+        assertThrows(IllegalArgumentException.class, () -> Automaton.glob("[ab"));
+    }
+
+    private static boolean latin1(String word) {
+        return word.chars().allMatch(c -> c <= 0xFF);
+    }
+}
@@ -0,0 +1,118 @@
+package com.wordalytica.wordset.cache;
+
+import com.wordalytica.wordset.WordSetFactory;
+import com.wordalytica.wordset.core.WordSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The cache stays within its budget however it is used, and sets sharing one never see each
+// other's results.
+class ResultCacheTest {
+
+    @Test
+    void setsSharingACacheKeepTheirResultsApart() {
+        ResultCache cache = new ResultCache(1 << 10);
+        WordSet<?> fruit = WordSetFactory.cached(WordSetFactory.build(words("apple", "apricot", "banana"), 3), cache);
+        WordSet<?> trees = WordSetFactory.cached(
+                WordSetFactory.build(words("ash", "alder", "aspen", "birch"), 3), cache);
+
+        assertEquals(2, fruit.startingWith("a").count());
+        assertEquals(3, trees.startingWith("a").count());
+        assertEquals(Arrays.asList("apple", "apricot"), list(fruit.startingWith("a")));
+        assertEquals(Arrays.asList("alder", "ash", "aspen"), list(trees.startingWith("a")));
+        // Asked again, each set is answered from its own entries.
+        assertEquals(2, fruit.startingWith("a").count());
+        assertEquals(3, trees.startingWith("a").count());
+        assertEquals(2, cache.hits());
+    }
+
+    @Test
+    void evictsUnreadEntriesFirst() {
+        ResultCache cache = new ResultCache(3);
+        cache.put("a", "a", 1);
+        cache.put("b", "b", 1);
+        cache.put("c", "c", 1);
+        assertSame("a", cache.getIfPresent("a"));
+        cache.put("d", "d", 1);
+
+        assertSame("a", cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+        assertEquals(3, cache.weight());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    void valuesHeavierThanTheBudgetAreNotCached() {
+        ResultCache cache = new ResultCache(10);
+        cache.put("big", "big", 11);
+        assertNull(cache.getIfPresent("big"));
+        assertEquals(0, cache.weight());
+        assertThrows(IllegalArgumentException.class, () -> new ResultCache(0));
+    }
+
+    @Test
+    void replacingAnEntryReplacesItsWeight() {
+        ResultCache cache = new ResultCache(10);
+        cache.put("key", "first", 4);
+        cache.put("key", "second", 6);
+        assertEquals(6, cache.weight());
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.weight());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void concurrentUseStaysWithinBudget() throws Exception {
+        ResultCache cache = new ResultCache(100);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int seed = t;
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        String key = "key" + (i * 7 + seed) % 500;
+                        if (cache.getIfPresent(key) == null) {
+                            cache.put(key, key, 1 + i % 5);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        assertTrue(cache.weight() <= 100, cache.toString());
+        assertTrue(cache.evictions() > 0, cache.toString());
+        assertEquals(80_000, cache.hits() + cache.misses());
+    }
+
+    private static Iterator<String> words(String... words) {
+        return Arrays.asList(words).iterator();
+    }
+
+    private static List<String> list(WordSet<?> set) {
+        List<String> words = new ArrayList<>();
+        set.forEach(words::add);
+        words.sort(null);
+        return words;
+    }
+}
@@ -0,0 +1,140 @@
+package com.wordalytica.wordset.mutable;
+
+import com.wordalytica.wordset.WordSetFactory;
+import com.wordalytica.wordset.columnar.ColumnarWordSet;
+import com.wordalytica.wordset.core.WordSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Updates are visible to the next query, never to one already pinned, and compaction leaves the
+// words as they were.
+class MutableWordSetTest {
+    private static final List<String> WORDS = Arrays.asList("apple", "apricot", "banana", "cherry");
+
+    @Test
+    void addsAndRemovesAreVisible() {
+        MutableWordSet set = WordSetFactory.buildMutable(WORDS.iterator(), 2);
+
+        assertTrue(set.add("avocado"));
+        assertFalse(set.add("avocado"));
+        assertTrue(set.remove("apple"));
+        assertFalse(set.remove("apple"));
+
+        assertTrue(set.contains("avocado"));
+        assertFalse(set.contains("apple"));
+        assertEquals(words("apricot", "avocado"), sorted(set.startingWith("a")));
+        assertEquals(2, set.startingWith("a").count());
+        assertEquals(4, set.count());
+        assertEquals(2, set.version());
+
+        // A word added back after its removal is a base word again.
+        assertTrue(set.add("apple"));
+        assertEquals(words("apple", "apricot", "avocado"), sorted(set.startingWith("a")));
+    }
+
+    @Test
+    void updatesApplyAddsBeforeRemoves() {
+        MutableWordSet set = WordSetFactory.buildMutable(WORDS.iterator(), 3);
+
+        assertTrue(set.update(words("date", "fig"), words("fig", "banana")));
+        assertEquals(words("apple", "apricot", "cherry", "date"), sorted(set));
+        assertEquals(1, set.version());
+    }
+
+    @Test
+    void snapshotsAndViewsIgnoreLaterUpdates() {
+        MutableWordSet set = WordSetFactory.buildMutable(WORDS.iterator(), 3);
+        MutableWordSet snapshot = set.snapshot();
+        MutableWordSet view = set.startingWith("a");
+
+        set.add("avocado");
+        set.remove("apricot");
+
+        assertEquals(words("apple", "apricot", "banana", "cherry"), sorted(snapshot));
+        assertEquals(words("apple", "apricot"), sorted(view));
+        assertEquals(2, view.count());
+        assertEquals(words("apple", "avocado"), sorted(set.startingWith("a")));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add("fig"));
+        assertThrows(UnsupportedOperationException.class, () -> view.remove("apple"));
+    }
+
+    @Test
+    void compactsOnceTheDeltasReachTheThreshold() {
+        MutableWordSet set = WordSetFactory.buildMutable(WORDS.iterator(), 3);
+        MutableWordSet before = set.snapshot();
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < MutableWordSet.DEFAULT_COMPACT_THRESHOLD - 2; i++) {
+            added.add(word(i));
+        }
+        // The V3 engine keeps words it cannot pack, compaction has to carry them over.
+        added.add("zażółć");
+        set.addAll(added);
+        assertTrue(set.explain().contains("4095 added and 0 removed"), set.explain());
+
+        set.remove("banana");
+        assertTrue(set.explain().contains("0 added and 0 removed"), set.explain());
+        assertEquals(2, set.version());
+        set.add("ἀλφα");
+        assertEquals(3, set.version());
+        assertEquals(WORDS.size() - 1 + MutableWordSet.DEFAULT_COMPACT_THRESHOLD - 1 + 1, set.count());
+        assertTrue(set.contains("zażółć"));
+        assertTrue(set.contains("ἀλφα"));
+        assertFalse(set.contains("banana"));
+        assertEquals(words("zażółć"), sorted(set.startingWith("zaż")));
+        assertEquals(WORDS.size(), before.count());
+
+        // Updates after a compaction are deltas on the new base.
+        assertTrue(set.remove(word(0)));
+        assertFalse(set.contains(word(0)));
+        assertTrue(set.explain().contains("1 added and 1 removed"), set.explain());
+    }
+
+    @Test
+    void packedOnlySetsRejectWordsTheEngineCannotHold() {
+        MutableWordSet set = new MutableWordSet(WORDS.iterator(), ColumnarWordSet::new,
+                MutableWordSet.DEFAULT_COMPACT_THRESHOLD, true);
+
+        assertThrows(IllegalArgumentException.class, () -> set.add("zażółć"));
+        assertThrows(IllegalArgumentException.class, () -> set.addAll(words("date", "ἀλφα")));
+        assertFalse(set.contains("zażółć"));
+        assertFalse(set.contains("date"));
+        assertEquals(0, set.version());
+        assertTrue(set.add("café"));
+        assertTrue(set.contains("café"));
+    }
+
+    @Test
+    void compactThresholdMustBePositive() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MutableWordSet(WORDS.iterator(), words -> WordSetFactory.build(words, 2), 0));
+    }
+
+    // Distinct lowercase words, none of them in WORDS.
+    private static String word(int i) {
+        StringBuilder word = new StringBuilder("q");
+        do {
+            word.append((char) ('a' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return word.toString();
+    }
+
+    private static List<String> words(String... words) {
+        return Arrays.asList(words);
+    }
+
+    private static List<String> sorted(WordSet<?> set) {
+        TreeSet<String> words = new TreeSet<>();
+        set.forEach(words::add);
+        return new ArrayList<>(words);
+    }
+}
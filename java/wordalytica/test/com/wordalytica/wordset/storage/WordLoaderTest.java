@@ -0,0 +1,150 @@
+package com.wordalytica.wordset.storage;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Whatever the input, the loader must read the same words as trimming, lowercasing and
+// de-duplicating every line with String methods.
+class WordLoaderTest {
+    private static final String TEXT = "Tea\n  eat \r\nTEA\n\nCafé\nNAÏVE\nZAŻÓŁĆ\nzażółć\nἈλφα\ncafé\nstar\n\n\t\nlast";
+
+    private static ForkJoinPool pool;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void plainFile() throws IOException {
+        LoadedWords words = WordLoader.load(write("words.txt", bytes(TEXT)), pool);
+        assertEquals(Arrays.asList("tea", "eat", "", "café", "naïve", "star", "last"), packed(words));
+        assertEquals(Arrays.asList("zażółć", "ἀλφα"), words.unpackable());
+        assertEquals(expected(TEXT), iterated(words));
+        assertEquals(TEXT.getBytes(StandardCharsets.UTF_8).length, words.bytes());
+    }
+
+    @Test
+    void gzipFileAndStream() throws IOException {
+        byte[] gzip = gzip(bytes(TEXT));
+        assertEquals(expected(TEXT), iterated(WordLoader.load(write("words.txt.gz", gzip), pool)));
+        LoadedWords read = WordLoader.read(new ByteArrayInputStream(gzip), pool);
+        assertEquals(expected(TEXT), iterated(read));
+        assertEquals(TEXT.getBytes(StandardCharsets.UTF_8).length, read.bytes());
+    }
+
+    @Test
+    void plainStream() throws IOException {
+        assertEquals(expected(TEXT), iterated(WordLoader.read(new ByteArrayInputStream(bytes(TEXT)), pool)));
+    }
+
+    @Test
+    void emptyAndTinyInputs() throws IOException {
+        assertEquals(0, WordLoader.load(write("empty.txt", new byte[0]), pool).size());
+        assertEquals(Arrays.asList("a"), iterated(WordLoader.load(write("a.txt", bytes("A\n")), pool)));
+        assertEquals(Arrays.asList("a"), iterated(WordLoader.read(new ByteArrayInputStream(bytes("a")), pool)));
+    }
+
+    // Several chunks, with duplicates and non-ASCII lines on both sides of every chunk bound.
+    @Test
+    void manyChunks() throws IOException {
+        Random random = new Random(7);
+        String[] special = {"Über", "über", "ÉTÉ", "Ωmega", "ωmega", "  Spaced  ", ""};
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 3 * WordLoader.CHUNK_SIZE) {
+            if (random.nextInt(50) == 0) {
+                text.append(special[random.nextInt(special.length)]);
+            } else {
+                int length = 1 + random.nextInt(8);
+                for (int i = 0; i < length; i++) {
+                    char c = (char) ('a' + random.nextInt(6));
+                    text.append(random.nextInt(10) == 0 ? Character.toUpperCase(c) : c);
+                }
+            }
+            text.append(random.nextBoolean() ? "\n" : "\r\n");
+        }
+        byte[] bytes = bytes(text.toString());
+        List<String> expected = expected(text.toString());
+        assertEquals(expected, iterated(WordLoader.load(write("many.txt", bytes), pool)));
+        assertEquals(expected, iterated(WordLoader.load(write("many.txt.gz", gzip(bytes)), pool)));
+    }
+
+    @Test
+    void missingFileFails() {
+        assertThrows(IOException.class, () -> WordLoader.load(directory.resolve("missing.txt"), pool));
+    }
+
+    // Packed words in file order, then the unpackable ones.
+    private static List<String> expected(String text) {
+        LinkedHashSet<String> words = new LinkedHashSet<>();
+        String lines = text.endsWith("\n") ? text.substring(0, text.length() - 1) : text;
+        if (!text.isEmpty()) {
+            for (String line : lines.split("\n", -1)) {
+                words.add(line.trim().toLowerCase());
+            }
+        }
+        List<String> expected = new ArrayList<>();
+        words.stream().filter(PackedWords::packable).forEach(expected::add);
+        words.stream().filter(word -> !PackedWords.packable(word)).forEach(expected::add);
+        return expected;
+    }
+
+    private static List<String> packed(LoadedWords words) {
+        List<String> packed = new ArrayList<>();
+        for (int id = 0; id < words.words().size(); id++) {
+            packed.add(words.words().word(id));
+        }
+        return packed;
+    }
+
+    private static List<String> iterated(LoadedWords words) {
+        List<String> iterated = new ArrayList<>();
+        words.forEach(iterated::add);
+        assertEquals(words.size(), iterated.size());
+        return iterated;
+    }
+
+    private Path write(String name, byte[] bytes) throws IOException {
+        return Files.write(directory.resolve(name), bytes);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,152 @@
+package com.wordalytica.wordset.v3;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Bitmaps are checked against BitSet, with sparse and dense containers under several keys.
+class BitmapTest {
+    private static final int UNIVERSE = 3 << 16;
+
+    @Test
+    void emptyAndRange() {
+        assertTrue(Bitmap.EMPTY.isEmpty());
+        assertEquals(0, Bitmap.range(5, 5).cardinality());
+        Bitmap range = Bitmap.range(65530, 65540);
+        assertEquals(10, range.cardinality());
+        assertFalse(range.contains(65529));
+        assertTrue(range.contains(65530));
+        assertTrue(range.contains(65539));
+        assertFalse(range.contains(65540));
+        assertEquals(bits(65530, 65540), toBitSet(range));
+        assertEquals(bits(0, UNIVERSE), toBitSet(Bitmap.range(0, UNIVERSE)));
+    }
+
+    @Test
+    void builderAndOfAgree() {
+        BitSet expected = random(1, 0.3);
+        Bitmap.Builder builder = new Bitmap.Builder();
+        expected.stream().forEach(builder::add);
+        Bitmap built = builder.build();
+        assertEquals(expected, toBitSet(built));
+        assertEquals(expected.cardinality(), built.cardinality());
+        assertEquals(expected, toBitSet(Bitmap.of(expected.stream().toArray())));
+    }
+
+    @Test
+    void setOperationsMatchBitSet() {
+        // Sparse and dense containers, in every combination.
+        double[] densities = {0.001, 0.02, 0.5};
+        for (double left : densities) {
+            for (double right : densities) {
+                BitSet a = random(2, left);
+                BitSet b = random(3, right);
+                Bitmap x = Bitmap.of(a.stream().toArray());
+                Bitmap y = Bitmap.of(b.stream().toArray());
+                String message = left + " with " + right;
+                assertEquals(and(a, b), toBitSet(x.and(y)), message);
+                assertEquals(andNot(a, b), toBitSet(x.andNot(y)), message);
+                assertEquals(or(a, b), toBitSet(x.or(y)), message);
+                assertEquals(and(a, b).cardinality(), x.and(y).cardinality(), message);
+                assertEquals(or(a, b).cardinality(), x.or(y).cardinality(), message);
+            }
+        }
+    }
+
+    @Test
+    void containsAndIntersects() {
+        BitSet expected = random(4, 0.01);
+        Bitmap bitmap = Bitmap.of(expected.stream().toArray());
+        for (int id = 0; id < UNIVERSE; id++) {
+            assertEquals(expected.get(id), bitmap.contains(id), "id " + id);
+        }
+        for (int from = 0; from < UNIVERSE; from += 997) {
+            int to = from + 150;
+            int next = expected.nextSetBit(from);
+            assertEquals(next >= 0 && next < to, bitmap.intersects(from, to), "[" + from + ", " + to + ")");
+        }
+    }
+
+    @Test
+    void iteratorAndForEachAscend() {
+        BitSet expected = random(5, 0.1);
+        Bitmap bitmap = Bitmap.of(expected.stream().toArray());
+        BitSet iterated = new BitSet();
+        int previous = -1;
+        for (PrimitiveIterator.OfInt it = bitmap.iterator(); it.hasNext(); ) {
+            int id = it.nextInt();
+            assertTrue(id > previous);
+            iterated.set(id);
+            previous = id;
+        }
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    void writeAndReadRoundTrip() throws IOException {
+        BitSet expected = or(random(6, 0.5), bits(UNIVERSE - 3, UNIVERSE));
+        Bitmap bitmap = Bitmap.of(expected.stream().toArray());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        bitmap.write(out);
+        Bitmap.EMPTY.write(out);
+        out.flush();
+        ByteBuffer in = ByteBuffer.wrap(bytes.toByteArray());
+        Bitmap read = Bitmap.read(in);
+        assertEquals(expected, toBitSet(read));
+        assertEquals(expected.cardinality(), read.cardinality());
+        assertTrue(Bitmap.read(in).isEmpty());
+        assertEquals(in.limit(), in.position());
+    }
+
+    private static BitSet random(long seed, double density) {
+        Random random = new Random(seed);
+        BitSet bits = new BitSet(UNIVERSE);
+        for (int id = 0; id < UNIVERSE; id++) {
+            if (random.nextDouble() < density) {
+                bits.set(id);
+            }
+        }
+        return bits;
+    }
+
+    private static BitSet bits(int from, int to) {
+        BitSet bits = new BitSet();
+        bits.set(from, to);
+        return bits;
+    }
+
+    private static BitSet toBitSet(Bitmap bitmap) {
+        BitSet bits = new BitSet();
+        bitmap.forEach(bits::set);
+        return bits;
+    }
+
+    private static BitSet and(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.and(b);
+        return result;
+    }
+
+    private static BitSet andNot(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.andNot(b);
+        return result;
+    }
+
+    private static BitSet or(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.or(b);
+        return result;
+    }
+}
@@ -0,0 +1,126 @@
+package com.wordalytica.wordset.v3;
+
+import com.wordalytica.wordset.automaton.Automaton;
+import com.wordalytica.wordset.automaton.LevenshteinAutomaton;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Ordinals are positions in the sorted word list, so every answer of the graph is checked against
+// a scan of that list.
+class DawgTest {
+    private static final List<String> WORDS = Arrays.asList(new TreeSet<>(Arrays.asList(
+            "", "a", "at", "ate", "eat", "eats", "tea", "teas", "ten", "tens", "net", "nets", "rat", "rats",
+            "star", "stars", "start", "starts", "stare", "stares", "string", "strings", "sing", "singing",
+            "ring", "rings", "ending", "endings", "café", "cafés")).toArray(new String[0]));
+
+    private final Dawg dawg = new Dawg(WORDS.iterator());
+
+    @Test
+    void sizeCountsWords() {
+        assertEquals(WORDS.size(), dawg.size());
+        assertEquals(WORDS.size(), new Dawg(duplicated().iterator()).size());
+    }
+
+    @Test
+    void rangeCoversWordsWithPrefix() {
+        List<String> prefixes = Arrays.asList("", "a", "at", "st", "star", "start", "stares", "caf", "café", "x", "nets!");
+        for (String prefix : prefixes) {
+            int from = -1;
+            int to = -1;
+            for (int i = 0; i < WORDS.size(); i++) {
+                if (WORDS.get(i).startsWith(prefix)) {
+                    from = from < 0 ? i : from;
+                    to = i + 1;
+                }
+            }
+            int[] expected = from < 0 ? new int[]{0, 0} : new int[]{from, to};
+            int[] range = dawg.range(prefix);
+            if (expected[0] == expected[1]) {
+                assertEquals(range[0], range[1], prefix);
+            } else {
+                assertArrayEquals(expected, range, prefix);
+            }
+        }
+    }
+
+    @Test
+    void acceptedMatchesAutomaton() {
+        for (String regex : Arrays.asList("^s.*s$", "in", "^[aeiou]", "^$", "é", "^(ea|te)t?s?$", "qq")) {
+            Automaton automaton = Automaton.regex(regex);
+            assertEquals(scan(automaton), toBitSet(dawg.accepted(automaton)), regex);
+        }
+        Automaton glob = Automaton.glob("?a*");
+        assertEquals(scan(glob), toBitSet(dawg.accepted(glob)));
+    }
+
+    @Test
+    void withinEditDistanceMatchesAutomaton() {
+        for (int maxEdits = 0; maxEdits <= 2; maxEdits++) {
+            for (boolean transpositions : new boolean[]{false, true}) {
+                for (String word : Arrays.asList("tae", "sart", "cafe", "singnig", "")) {
+                    LevenshteinAutomaton automaton = new LevenshteinAutomaton(word, maxEdits, transpositions);
+                    BitSet expected = new BitSet();
+                    for (int i = 0; i < WORDS.size(); i++) {
+                        if (automaton.matches(WORDS.get(i))) {
+                            expected.set(i);
+                        }
+                    }
+                    assertEquals(expected, toBitSet(dawg.withinEditDistance(automaton, null, Integer.MAX_VALUE)),
+                            automaton.toString());
+                    Bitmap even = Bitmap.of(expected.stream().filter(i -> i % 2 == 0).toArray());
+                    assertEquals(toBitSet(even), toBitSet(dawg.withinEditDistance(automaton, even, Integer.MAX_VALUE)),
+                            automaton + " over even ordinals");
+                }
+            }
+        }
+    }
+
+    @Test
+    void writeAndReadRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        dawg.write(out);
+        out.flush();
+        Dawg read = Dawg.read(ByteBuffer.wrap(bytes.toByteArray()));
+        assertEquals(dawg.size(), read.size());
+        assertArrayEquals(dawg.range("sta"), read.range("sta"));
+        Automaton automaton = Automaton.regex("s$");
+        assertEquals(toBitSet(dawg.accepted(automaton)), toBitSet(read.accepted(automaton)));
+    }
+
+    private static List<String> duplicated() {
+        String[] twice = new String[WORDS.size() * 2];
+        for (int i = 0; i < WORDS.size(); i++) {
+            twice[2 * i] = WORDS.get(i);
+            twice[2 * i + 1] = WORDS.get(i);
+        }
+        return Arrays.asList(twice);
+    }
+
+    private static BitSet scan(Automaton automaton) {
+        BitSet expected = new BitSet();
+        for (int i = 0; i < WORDS.size(); i++) {
+            if (automaton.matches(WORDS.get(i))) {
+                expected.set(i);
+            }
+        }
+        return expected;
+    }
+
+    private static BitSet toBitSet(Bitmap bitmap) {
+        BitSet bits = new BitSet();
+        bitmap.forEach(bits::set);
+        return bits;
+    }
+}